@@ -0,0 +1,50 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.AmortizationPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Generazione del piano di ammortamento: la dimensione e' il numero di rate (da 1 a 30 anni mensili)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmortizationPlanBenchmark {
+
+    @Param({"12", "60", "360"})
+    private int installments;
+
+    // Tasso annuo come frazione: 0 = rate costanti senza interessi
+    @Param({"0", "0.035"})
+    private String interestRate;
+
+    private AmortizationPlan plan;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plan = new AmortizationPlan("Mutuo", new BigDecimal("150000.00"), new BigDecimal(interestRate),
+                installments, LocalDate.of(2025, 1, 1));
+    }
+
+    @Benchmark
+    public AmortizationPlan generateInstallments() {
+        plan.generateInstallments();
+        return plan;
+    }
+}
@@ -0,0 +1,117 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Budget;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Dataset sintetico riproducibile (seme fisso) comune a tutti i backend: 24 periodi mensili con un budget
+// generale e uno per categoria, un periodo di mezzo mese e movimenti distribuiti uniformemente sui due anni
+public final class BenchmarkDataset {
+
+    public static final long SEED = 42L;
+    public static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    public static final YearMonth LAST_MONTH = YearMonth.of(2025, 12);
+
+    // Periodi e categoria usati dai benchmark sui budget
+    public static final YearMonth BUDGET_MONTH = YearMonth.of(2025, 3);
+    public static final String PARTIAL_PERIOD = "Quindicina " + BUDGET_MONTH;
+    public static final String BUDGET_CATEGORY = "Alimentari";
+
+    private static final String[] CATEGORY_NAMES = {
+            "Alimentari", "Trasporti", "Casa", "Bollette", "Salute", "Svago",
+            "Ristoranti", "Abbigliamento", "Istruzione", "Viaggi", "Regali", "Varie"
+    };
+    private static final int INCOME_PERCENT = 15;
+    private static final int TWO_CATEGORIES_PERCENT = 10;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final BigDecimal PLANNED_EXPENSES = new BigDecimal("500.00");
+
+    private BenchmarkDataset() {}
+
+    static void populate(BenchmarkRepositories repositories, int movementCount) {
+        long start = System.nanoTime();
+
+        List<Category> categories = new ArrayList<>();
+        for (String name : CATEGORY_NAMES) {
+            categories.add(repositories.getCategoryRepository().save(new Category(name)));
+        }
+
+        for (YearMonth month = FIRST_MONTH; !month.isAfter(LAST_MONTH); month = month.plusMonths(1)) {
+            Period period = repositories.getPeriodRepository().save(
+                    new Period(monthPeriodName(month), month.atDay(1), month.atEndOfMonth()));
+            saveBudget(repositories, period, null);
+            for (Category category : categories) {
+                saveBudget(repositories, period, category);
+            }
+        }
+
+        Period partial = repositories.getPeriodRepository().save(
+                new Period(PARTIAL_PERIOD, BUDGET_MONTH.atDay(10), BUDGET_MONTH.atDay(24)));
+        saveBudget(repositories, partial, null);
+        saveBudget(repositories, partial, categories.get(0));
+
+        Random random = new Random(SEED);
+        LocalDate firstDay = FIRST_MONTH.atDay(1);
+        int days = (int) ChronoUnit.DAYS.between(firstDay, LAST_MONTH.atEndOfMonth()) + 1;
+
+        List<Movement> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < movementCount; i++) {
+            chunk.add(randomMovement(random, i, firstDay.plusDays(random.nextInt(days)), categories));
+            if (chunk.size() == CHUNK_SIZE) {
+                repositories.getMovementRepository().saveAll(chunk);
+                chunk.clear();
+                if ((i + 1) % (CHUNK_SIZE * 10) == 0) {
+                    QuietConsole.info("Inseriti " + (i + 1) + "/" + movementCount + " movimenti");
+                }
+            }
+        }
+        repositories.getMovementRepository().saveAll(chunk);
+
+        QuietConsole.info("Dataset " + repositories.getBackend() + " di " + movementCount + " movimenti creato in " +
+                (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static Movement randomMovement(Random random, int index, LocalDate date, List<Category> categories) {
+        if (random.nextInt(100) < INCOME_PERCENT) {
+            return new Movement("Entrata " + index, BigDecimal.valueOf(50_000 + random.nextInt(250_000), 2),
+                    MovementType.INCOME, date);
+        }
+
+        Movement movement = new Movement("Spesa " + index, BigDecimal.valueOf(100 + random.nextInt(30_000), 2),
+                MovementType.EXPENSE, date);
+        movement.addCategory(categories.get(random.nextInt(categories.size())));
+        if (random.nextInt(100) < TWO_CATEGORIES_PERCENT) {
+            movement.addCategory(categories.get(random.nextInt(categories.size())));
+        }
+        return movement;
+    }
+
+    private static void saveBudget(BenchmarkRepositories repositories, Period period, Category category) {
+        repositories.getBudgetRepository().save(new Budget(period, category, BigDecimal.ZERO, PLANNED_EXPENSES));
+    }
+
+    public static String monthPeriodName(YearMonth month) {
+        return "Mese " + month;
+    }
+
+    // categoryName null per il budget generale del periodo
+    public static Budget findBudget(BenchmarkRepositories repositories, String periodName, String categoryName) {
+        Period period = repositories.getPeriodRepository().findByName(periodName)
+                .orElseThrow(() -> new RuntimeException("Periodo di benchmark non trovato: " + periodName));
+        Category category = categoryName == null ? null : repositories.getCategoryRepository().findByName(categoryName)
+                .stream().findFirst()
+                .orElseThrow(() -> new RuntimeException("Categoria di benchmark non trovata: " + categoryName));
+        return repositories.getBudgetRepository().findByPeriodAndCategory(period, category)
+                .orElseThrow(() -> new RuntimeException("Budget di benchmark non trovato: " + periodName));
+    }
+}
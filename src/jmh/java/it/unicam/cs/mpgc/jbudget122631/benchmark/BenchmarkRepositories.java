@@ -0,0 +1,101 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.application.service.impl.BudgetServiceImpl;
+import it.unicam.cs.mpgc.jbudget122631.application.service.impl.StatisticsServiceImpl;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.BudgetRepository;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.MovementRepository;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.CachedCategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.CachedPeriodRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.JpaBudgetRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.JpaCategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.JpaMovementRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.JpaPeriodRepository;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Repository su cui girano i benchmark dei servizi: fake in memoria oppure un database H2 su file
+// popolato con lo stesso dataset, creato una volta per dimensione e riusato dalle esecuzioni successive
+public class BenchmarkRepositories {
+
+    public enum Backend {
+        MEMORY,
+        H2
+    }
+
+    private final Backend backend;
+    private final CategoryRepository categoryRepository;
+    private final PeriodRepository periodRepository;
+    private final BudgetRepository budgetRepository;
+    private final MovementRepository movementRepository;
+
+    private BenchmarkRepositories(Backend backend, CategoryRepository categoryRepository,
+                                  PeriodRepository periodRepository, BudgetRepository budgetRepository,
+                                  MovementRepository movementRepository) {
+        this.backend = backend;
+        this.categoryRepository = categoryRepository;
+        this.periodRepository = periodRepository;
+        this.budgetRepository = budgetRepository;
+        this.movementRepository = movementRepository;
+    }
+
+    public static BenchmarkRepositories open(Backend backend, int movements) {
+        return backend == Backend.H2 ? h2(movements) : inMemory(movements);
+    }
+
+    public static BenchmarkRepositories inMemory(int movements) {
+        InMemoryCategoryRepository categories = new InMemoryCategoryRepository();
+        BenchmarkRepositories repositories = new BenchmarkRepositories(Backend.MEMORY, categories,
+                new InMemoryPeriodRepository(), new InMemoryBudgetRepository(), new InMemoryMovementRepository(categories));
+        BenchmarkDataset.populate(repositories, movements);
+        return repositories;
+    }
+
+    // Stessa composizione di ApplicationConfig (cache di categorie e periodi), senza le metriche
+    public static BenchmarkRepositories h2(int movements) {
+        Path file = databaseDirectory().resolve("jbudget-" + movements).toAbsolutePath();
+        System.setProperty("jbudget.database.url", "jdbc:h2:file:" + file + ";DB_CLOSE_DELAY=-1");
+
+        BenchmarkRepositories repositories = new BenchmarkRepositories(Backend.H2,
+                new CachedCategoryRepository(new JpaCategoryRepository()),
+                new CachedPeriodRepository(new JpaPeriodRepository()),
+                new JpaBudgetRepository(),
+                new JpaMovementRepository());
+
+        long existing = repositories.movementRepository.count();
+        if (existing == 0) {
+            BenchmarkDataset.populate(repositories, movements);
+        } else if (existing != movements) {
+            throw new RuntimeException("Database di benchmark incompleto (" + existing + " movimenti su " +
+                    movements + "): eliminare " + file + ".mv.db");
+        }
+        return repositories;
+    }
+
+    private static Path databaseDirectory() {
+        return Paths.get(System.getProperty("jbudget.benchmark.dir", "build/jmh-db"));
+    }
+
+    public StatisticsServiceImpl statisticsService() {
+        return new StatisticsServiceImpl(movementRepository, budgetRepository, categoryRepository, periodRepository);
+    }
+
+    public BudgetServiceImpl budgetService() {
+        return new BudgetServiceImpl(budgetRepository, movementRepository, periodRepository, categoryRepository);
+    }
+
+    public void close() {
+        if (backend == Backend.H2) {
+            HibernateConfig.shutdown();
+        }
+    }
+
+    public Backend getBackend() { return backend; }
+    public CategoryRepository getCategoryRepository() { return categoryRepository; }
+    public PeriodRepository getPeriodRepository() { return periodRepository; }
+    public BudgetRepository getBudgetRepository() { return budgetRepository; }
+    public MovementRepository getMovementRepository() { return movementRepository; }
+}
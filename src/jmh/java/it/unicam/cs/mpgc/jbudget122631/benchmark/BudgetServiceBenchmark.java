@@ -0,0 +1,75 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Ricalcolo dei valori reali di un budget: un periodo mensile passa dai totali precalcolati,
+// il periodo di mezzo mese carica e filtra i movimenti
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class BudgetServiceBenchmark {
+
+    public enum Target {
+        CATEGORY_MONTH,
+        GENERAL_MONTH,
+        CATEGORY_PARTIAL,
+        GENERAL_PARTIAL
+    }
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"MEMORY", "H2"})
+    private BenchmarkRepositories.Backend backend;
+
+    @Param({"CATEGORY_MONTH", "GENERAL_MONTH", "CATEGORY_PARTIAL", "GENERAL_PARTIAL"})
+    private Target target;
+
+    private BenchmarkRepositories repositories;
+    private BudgetService budgetService;
+    private Long budgetId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        QuietConsole.silence();
+        repositories = BenchmarkRepositories.open(backend, size);
+        budgetService = repositories.budgetService();
+
+        boolean partial = target == Target.CATEGORY_PARTIAL || target == Target.GENERAL_PARTIAL;
+        boolean general = target == Target.GENERAL_MONTH || target == Target.GENERAL_PARTIAL;
+        String periodName = partial
+                ? BenchmarkDataset.PARTIAL_PERIOD
+                : BenchmarkDataset.monthPeriodName(BenchmarkDataset.BUDGET_MONTH);
+        budgetId = BenchmarkDataset.findBudget(repositories, periodName,
+                general ? null : BenchmarkDataset.BUDGET_CATEGORY).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.close();
+        QuietConsole.restore();
+    }
+
+    @Benchmark
+    public void updateBudgetWithRealMovements() {
+        budgetService.updateBudgetWithRealMovements(budgetId);
+    }
+}
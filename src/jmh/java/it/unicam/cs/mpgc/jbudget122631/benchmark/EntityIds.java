@@ -0,0 +1,19 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import java.lang.reflect.Field;
+
+// Assegna l'ID generato come farebbe Hibernate, per le entita' senza setter (Movement, Budget)
+final class EntityIds {
+
+    private EntityIds() {}
+
+    static void assign(Object entity, Long id) {
+        try {
+            Field field = entity.getClass().getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(entity, id);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Impossibile assegnare l'ID a " + entity.getClass().getSimpleName(), e);
+        }
+    }
+}
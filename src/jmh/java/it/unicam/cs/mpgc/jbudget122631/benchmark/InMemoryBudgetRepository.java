@@ -0,0 +1,131 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Budget;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.BudgetRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Budget in memoria per i benchmark, con gli stessi ordinamenti delle query di JpaBudgetRepository
+public class InMemoryBudgetRepository implements BudgetRepository {
+
+    private final Map<Long, Budget> budgets = new TreeMap<>();
+    private long nextId = 1;
+
+    @Override
+    public Budget save(Budget budget) {
+        if (budget.getId() == null) {
+            EntityIds.assign(budget, nextId++);
+        }
+        budgets.put(budget.getId(), budget);
+        return budget;
+    }
+
+    @Override
+    public Optional<Budget> findById(Long id) {
+        return Optional.ofNullable(budgets.get(id));
+    }
+
+    @Override
+    public List<Budget> findAll() {
+        return new ArrayList<>(budgets.values());
+    }
+
+    @Override
+    public void scrollAll(Consumer<Budget> action) {
+        findAll().forEach(action);
+    }
+
+    @Override
+    public void delete(Budget budget) {
+        deleteById(budget.getId());
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        budgets.remove(id);
+    }
+
+    @Override
+    public Optional<Budget> findByPeriodAndCategory(Period period, Category category) {
+        return budgets.values().stream()
+                .filter(budget -> budget.getPeriod().equals(period) && Objects.equals(budget.getCategory(), category))
+                .findFirst();
+    }
+
+    @Override
+    public List<Budget> findByPeriod(Period period) {
+        return filter(budget -> budget.getPeriod().equals(period));
+    }
+
+    @Override
+    public List<Budget> findByCategory(Category category) {
+        return filter(budget -> Objects.equals(budget.getCategory(), category));
+    }
+
+    @Override
+    public List<Budget> findGeneralBudgets() {
+        return newestFirst(filter(Budget::isGeneral));
+    }
+
+    @Override
+    public List<Budget> findActiveBudgets() {
+        return newestFirst(filter(Budget::isActive));
+    }
+
+    @Override
+    public List<Budget> findOverBudgets() {
+        return budgets.values().stream()
+                .filter(Budget::isOverBudget)
+                .sorted(Comparator.comparing(
+                        (Budget budget) -> budget.getActualExpenses().subtract(budget.getPlannedExpenses())).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Budget> findByPeriodOrderByVariance(Period period) {
+        return budgets.values().stream()
+                .filter(budget -> budget.getPeriod().equals(period))
+                .sorted(Comparator.comparing(Budget::getVarianceBalance).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Budget> findByDate(LocalDate date) {
+        return filter(budget -> budget.getPeriod().contains(date));
+    }
+
+    @Override
+    public void updateActuals(Long budgetId, BigDecimal actualIncome, BigDecimal actualExpenses) {
+        Budget budget = budgets.get(budgetId);
+        if (budget != null) {
+            budget.updateActuals(actualIncome, actualExpenses);
+        }
+    }
+
+    @Override
+    public long count() {
+        return budgets.size();
+    }
+
+    private List<Budget> filter(Predicate<Budget> condition) {
+        return budgets.values().stream().filter(condition).collect(Collectors.toList());
+    }
+
+    private List<Budget> newestFirst(List<Budget> result) {
+        result.sort(Comparator.comparing((Budget budget) -> budget.getPeriod().getStartDate()).reversed());
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Categorie in memoria per i benchmark, con la stessa semantica di JpaCategoryRepository:
+// i discendenti non comprendono la categoria stessa
+public class InMemoryCategoryRepository implements CategoryRepository {
+
+    private final Map<Long, Category> categories = new TreeMap<>();
+    private long nextId = 1;
+
+    @Override
+    public Category save(Category category) {
+        if (category.getId() == null) {
+            category.setId(nextId++);
+        }
+        categories.put(category.getId(), category);
+        return category;
+    }
+
+    @Override
+    public Category saveWithParent(Category category, Long parentId) {
+        if (parentId != null) {
+            findById(parentId).ifPresent(parent -> parent.addChild(category));
+        }
+        return save(category);
+    }
+
+    @Override
+    public Optional<Category> findById(Long id) {
+        return Optional.ofNullable(categories.get(id));
+    }
+
+    @Override
+    public List<Category> findAll() {
+        return new ArrayList<>(categories.values());
+    }
+
+    @Override
+    public void delete(Category category) {
+        deleteById(category.getId());
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        categories.remove(id);
+    }
+
+    @Override
+    public List<Category> findByName(String name) {
+        return filter(category -> category.getName().equals(name));
+    }
+
+    @Override
+    public List<Category> findByParent(Category parent) {
+        return filter(category -> Objects.equals(category.getParent(), parent));
+    }
+
+    @Override
+    public List<Category> findRootCategories() {
+        return filter(Category::isRoot);
+    }
+
+    @Override
+    public List<Category> findActiveCategories() {
+        return filter(Category::isActive);
+    }
+
+    @Override
+    public List<Category> findDescendants(Category category) {
+        return filter(candidate -> candidate.isDescendantOf(category));
+    }
+
+    @Override
+    public List<Category> findAncestors(Category category) {
+        return filter(category::isDescendantOf);
+    }
+
+    @Override
+    public List<Long> findDescendantIds(Long categoryId) {
+        return findById(categoryId)
+                .map(category -> findDescendants(category).stream().map(Category::getId).collect(Collectors.toList()))
+                .orElseGet(ArrayList::new);
+    }
+
+    @Override
+    public void moveInHierarchy(Long categoryId, Long newParentId) {
+        Category category = categories.get(categoryId);
+        if (category == null) {
+            return;
+        }
+
+        Category newParent = newParentId != null ? categories.get(newParentId) : null;
+        if (newParent != null && (newParent.equals(category) || newParent.isDescendantOf(category))) {
+            throw new IllegalArgumentException("Ciclo nella gerarchia non ammesso");
+        }
+
+        // Il sottoalbero segue la categoria: basta spostare il legame con il parent
+        if (category.getParent() != null) {
+            category.getParent().removeChild(category);
+        }
+        if (newParent != null) {
+            newParent.addChild(category);
+        }
+    }
+
+    @Override
+    public boolean existsByNameAndParent(String name, Category parent) {
+        return categories.values().stream()
+                .anyMatch(category -> category.getName().equals(name) && Objects.equals(category.getParent(), parent));
+    }
+
+    @Override
+    public long count() {
+        return categories.size();
+    }
+
+    private List<Category> filter(Predicate<Category> condition) {
+        return categories.values().stream().filter(condition).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,413 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.CategoryTypeTotal;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MonthlyTotal;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementCursor;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementSummary;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.MovementRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.search.MovementSearchIndex;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Movimenti in memoria per i benchmark: indice per data al posto degli indici del database e totali mensili
+// mantenuti a ogni scrittura come la tabella movement_monthly_totals. Elenchi, pagine e ricerca testuale
+// seguono gli stessi ordinamenti di JpaMovementRepository; il testo passa dallo stesso MovementSearchIndex.
+public class InMemoryMovementRepository implements MovementRepository {
+
+    // Come MonthlyTotalsRollup: la categoria 0 raccoglie il totale del tipo, ogni movimento contato una volta
+    private static final long ALL_CATEGORIES = 0L;
+
+    private final CategoryRepository categoryRepository;
+
+    private final Map<Long, Movement> byId = new HashMap<>();
+    private final NavigableMap<LocalDate, List<Movement>> byDate = new TreeMap<>();
+    private final NavigableMap<YearMonth, Map<Long, Map<MovementType, BigDecimal>>> monthlyTotals = new TreeMap<>();
+    private final MovementSearchIndex searchIndex = new MovementSearchIndex();
+    private long nextId = 1;
+
+    public InMemoryMovementRepository(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @Override
+    public Movement save(Movement movement) {
+        if (movement.getId() == null) {
+            EntityIds.assign(movement, nextId++);
+        } else if (byId.containsKey(movement.getId())) {
+            remove(byId.get(movement.getId()));
+        }
+        byId.put(movement.getId(), movement);
+        byDate.computeIfAbsent(movement.getDate(), date -> new ArrayList<>()).add(movement);
+        addToTotals(movement, BigDecimal.ONE);
+        searchIndex.index(movement.getId(), movement.getDescription(), movement.getNotes());
+        return movement;
+    }
+
+    @Override
+    public List<Movement> saveAll(Collection<Movement> movements) {
+        movements.forEach(this::save);
+        return new ArrayList<>(movements);
+    }
+
+    @Override
+    public Optional<Movement> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    @Override
+    public List<Movement> findAll() {
+        return new ArrayList<>(byId.values());
+    }
+
+    @Override
+    public void delete(Movement movement) {
+        deleteById(movement.getId());
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Movement movement = byId.get(id);
+        if (movement != null) {
+            remove(movement);
+        }
+    }
+
+    private void remove(Movement movement) {
+        byId.remove(movement.getId());
+        List<Movement> sameDay = byDate.get(movement.getDate());
+        if (sameDay != null) {
+            sameDay.remove(movement);
+            if (sameDay.isEmpty()) {
+                byDate.remove(movement.getDate());
+            }
+        }
+        addToTotals(movement, BigDecimal.ONE.negate());
+        searchIndex.remove(movement.getId());
+    }
+
+    // Stesso ordinamento della query JPA: dal piu' recente
+    @Override
+    public List<Movement> findByDateBetween(LocalDate startDate, LocalDate endDate) {
+        List<Movement> result = new ArrayList<>();
+        byDate.subMap(startDate, true, endDate, true).descendingMap().values().forEach(result::addAll);
+        return result;
+    }
+
+    @Override
+    public List<Movement> findByType(MovementType type) {
+        return filter(movement -> movement.getType() == type);
+    }
+
+    @Override
+    public List<Movement> findByCategory(Category category) {
+        return findByCategoriesContaining(category);
+    }
+
+    @Override
+    public List<Movement> findByCategoriesContaining(Category category) {
+        return filter(movement -> movement.hasCategory(category));
+    }
+
+    @Override
+    public List<Movement> findByPeriod(Period period) {
+        return findByDateBetween(period.getStartDate(), period.getEndDate());
+    }
+
+    @Override
+    public List<MovementSummary> findAllSummaries() {
+        return summaries(newestFirst());
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByDateBetween(LocalDate startDate, LocalDate endDate) {
+        return summaries(newestFirst().filter(movement -> !movement.getDate().isBefore(startDate)
+                && !movement.getDate().isAfter(endDate)));
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByType(MovementType type) {
+        return summaries(newestFirst().filter(movement -> movement.getType() == type));
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByCategory(Long categoryId) {
+        return summaries(newestFirst().filter(movement -> categoryIdsOf(movement).contains(categoryId)));
+    }
+
+    // Nell'ordine degli ID richiesti (es. ranking della ricerca), saltando quelli inesistenti
+    @Override
+    public List<MovementSummary> findSummariesByIds(List<Long> ids) {
+        return summaries(ids.stream().map(byId::get).filter(Objects::nonNull));
+    }
+
+    @Override
+    public List<MovementSummary> findSummaryPageAfter(MovementCursor cursor, int size) {
+        return summaries(after(cursor).limit(size));
+    }
+
+    @Override
+    public List<MovementSummary> findSummaryPage(MovementQuery query, int offset, int size) {
+        return summaries(matching(query).sorted(orderOf(query)).skip(offset).limit(size));
+    }
+
+    @Override
+    public long countMatching(MovementQuery query) {
+        return matching(query).count();
+    }
+
+    @Override
+    public BigDecimal getTotalByTypeAndDateRange(MovementType type, LocalDate startDate, LocalDate endDate) {
+        return between(startDate, endDate)
+                .filter(movement -> movement.getType() == type)
+                .map(Movement::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public BigDecimal getTotalByCategoryAndDateRange(Category category, LocalDate startDate, LocalDate endDate) {
+        return between(startDate, endDate)
+                .filter(movement -> movement.hasCategory(category))
+                .map(Movement::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public List<CategoryTypeTotal> getTotalsByCategoryAndType(LocalDate startDate, LocalDate endDate) {
+        Map<Long, Map<MovementType, BigDecimal>> totals = new TreeMap<>();
+        between(startDate, endDate).forEach(movement -> {
+            for (Long categoryId : categoryIdsOf(movement)) {
+                totals.computeIfAbsent(categoryId, id -> new EnumMap<>(MovementType.class))
+                        .merge(movement.getType(), movement.getAmount(), BigDecimal::add);
+            }
+        });
+        return toCategoryTotals(totals);
+    }
+
+    @Override
+    public List<CategoryTypeTotal> getSubtreeTotalsByType(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        Set<Long> subtree = new HashSet<>(categoryRepository.findDescendantIds(categoryId));
+        subtree.add(categoryId);
+
+        Map<MovementType, BigDecimal> totals = new EnumMap<>(MovementType.class);
+        between(startDate, endDate)
+                .filter(movement -> categoryIdsOf(movement).stream().anyMatch(subtree::contains))
+                .forEach(movement -> totals.merge(movement.getType(), movement.getAmount(), BigDecimal::add));
+
+        List<CategoryTypeTotal> result = new ArrayList<>();
+        totals.forEach((type, total) -> result.add(new CategoryTypeTotal(categoryId, type, total)));
+        return result;
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotalsByType(LocalDate startDate, LocalDate endDate) {
+        return monthlySeries(between(startDate, endDate));
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotalsByCategory(Category category, LocalDate startDate, LocalDate endDate) {
+        return monthlySeries(between(startDate, endDate).filter(movement -> movement.hasCategory(category)));
+    }
+
+    @Override
+    public List<MonthlyTotal> getRollupTotalsByType(YearMonth from, YearMonth to) {
+        return getRollupTotalsByCategory(ALL_CATEGORIES, from, to);
+    }
+
+    @Override
+    public List<MonthlyTotal> getRollupTotalsByCategory(Long categoryId, YearMonth from, YearMonth to) {
+        List<MonthlyTotal> result = new ArrayList<>();
+        monthlyTotals.subMap(from, true, to, true).forEach((month, byCategory) ->
+                byCategory.getOrDefault(categoryId, Map.of()).forEach((type, total) ->
+                        result.add(new MonthlyTotal(month.getYear(), month.getMonthValue(), type, total))));
+        return result;
+    }
+
+    @Override
+    public List<CategoryTypeTotal> getRollupTotalsByCategoryAndType(YearMonth from, YearMonth to) {
+        Map<Long, Map<MovementType, BigDecimal>> totals = new TreeMap<>();
+        monthlyTotals.subMap(from, true, to, true).values().forEach(byCategory ->
+                byCategory.forEach((categoryId, byType) -> {
+                    if (categoryId != ALL_CATEGORIES) {
+                        byType.forEach((type, total) -> totals.computeIfAbsent(categoryId, id -> new EnumMap<>(MovementType.class))
+                                .merge(type, total, BigDecimal::add));
+                    }
+                }));
+        return toCategoryTotals(totals);
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        monthlyTotals.clear();
+        byId.values().forEach(movement -> addToTotals(movement, BigDecimal.ONE));
+    }
+
+    @Override
+    public List<Movement> findByDescriptionContaining(String description) {
+        String text = description.toLowerCase();
+        return filter(movement -> movement.getDescription().toLowerCase().contains(text));
+    }
+
+    @Override
+    public List<Long> searchIds(String query) {
+        return searchIndex.search(query);
+    }
+
+    @Override
+    public List<Movement> findScheduledMovements() {
+        return filter(Movement::isScheduled);
+    }
+
+    @Override
+    public List<Movement> findByAmortizationPlanId(Long planId) {
+        return filter(movement -> movement.getAmortizationPlan() != null
+                && planId.equals(movement.getAmortizationPlan().getId()));
+    }
+
+    @Override
+    public List<Movement> findAllPaginated(int page, int size) {
+        return newestFirst().skip((long) page * size).limit(size).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Movement> findPageAfter(MovementCursor cursor, int size) {
+        return after(cursor).limit(size).collect(Collectors.toList());
+    }
+
+    @Override
+    public long count() {
+        return byId.size();
+    }
+
+    // Ordinamento (date DESC, id DESC) delle query JPA e dei cursori
+    private Stream<Movement> newestFirst() {
+        return byDate.descendingMap().values().stream()
+                .flatMap(sameDay -> sameDay.stream().sorted(Comparator.comparing(Movement::getId).reversed()));
+    }
+
+    private Stream<Movement> after(MovementCursor cursor) {
+        if (cursor == null) {
+            return newestFirst();
+        }
+        return byDate.headMap(cursor.getDate(), true).descendingMap().values().stream()
+                .flatMap(sameDay -> sameDay.stream().sorted(Comparator.comparing(Movement::getId).reversed()))
+                .filter(movement -> movement.getDate().isBefore(cursor.getDate()) || movement.getId() < cursor.getId());
+    }
+
+    // Stessi filtri di JpaMovementRepository.filterClause, testo compreso tramite l'indice di ricerca
+    private Stream<Movement> matching(MovementQuery query) {
+        Set<Long> textIds = query.hasText() ? new HashSet<>(searchIds(query.getText())) : null;
+        return byId.values().stream()
+                .filter(movement -> textIds == null || textIds.contains(movement.getId()))
+                .filter(movement -> query.getType() == null || movement.getType() == query.getType())
+                .filter(movement -> query.getStartDate() == null || !movement.getDate().isBefore(query.getStartDate()))
+                .filter(movement -> query.getEndDate() == null || !movement.getDate().isAfter(query.getEndDate()))
+                .filter(movement -> query.getCategoryId() == null || categoryIdsOf(movement).contains(query.getCategoryId()))
+                .filter(movement -> query.getMinAmount() == null || movement.getAmount().compareTo(query.getMinAmount()) >= 0)
+                .filter(movement -> query.getMaxAmount() == null || movement.getAmount().compareTo(query.getMaxAmount()) <= 0);
+    }
+
+    // Come orderBy del repository JPA: campo scelto e poi ID, nella stessa direzione; il tipo confrontato per nome
+    private static Comparator<Movement> orderOf(MovementQuery query) {
+        Comparator<Movement> bySortField;
+        switch (query.getSortField()) {
+            case DESCRIPTION:
+                bySortField = Comparator.comparing(Movement::getDescription);
+                break;
+            case AMOUNT:
+                bySortField = Comparator.comparing(Movement::getAmount);
+                break;
+            case TYPE:
+                bySortField = Comparator.comparing(movement -> movement.getType().name());
+                break;
+            default:
+                bySortField = Comparator.comparing(Movement::getDate);
+        }
+        Comparator<Movement> order = bySortField.thenComparing(Movement::getId);
+        return query.isAscending() ? order : order.reversed();
+    }
+
+    private static List<MovementSummary> summaries(Stream<Movement> movements) {
+        return movements.map(InMemoryMovementRepository::toSummary).collect(Collectors.toList());
+    }
+
+    private static MovementSummary toSummary(Movement movement) {
+        MovementSummary summary = new MovementSummary(movement.getId(), movement.getDescription(), movement.getAmount(),
+                movement.getType(), movement.getDate(), movement.getNotes(), movement.isScheduled());
+        movement.getCategories().stream()
+                .map(Category::getId)
+                .sorted()
+                .forEach(summary::addCategoryId);
+        return summary;
+    }
+
+    private Stream<Movement> between(LocalDate startDate, LocalDate endDate) {
+        return byDate.subMap(startDate, true, endDate, true).values().stream().flatMap(List::stream);
+    }
+
+    private List<Movement> filter(Predicate<Movement> condition) {
+        return byId.values().stream()
+                .filter(condition)
+                .sorted(Comparator.comparing(Movement::getDate).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private List<MonthlyTotal> monthlySeries(Stream<Movement> movements) {
+        Map<YearMonth, Map<MovementType, BigDecimal>> totals = new TreeMap<>();
+        movements.forEach(movement -> totals.computeIfAbsent(YearMonth.from(movement.getDate()), month -> new EnumMap<>(MovementType.class))
+                .merge(movement.getType(), movement.getAmount(), BigDecimal::add));
+
+        List<MonthlyTotal> result = new ArrayList<>();
+        totals.forEach((month, byType) -> byType.forEach((type, total) ->
+                result.add(new MonthlyTotal(month.getYear(), month.getMonthValue(), type, total))));
+        return result;
+    }
+
+    private List<CategoryTypeTotal> toCategoryTotals(Map<Long, Map<MovementType, BigDecimal>> totals) {
+        List<CategoryTypeTotal> result = new ArrayList<>();
+        totals.forEach((categoryId, byType) -> byType.forEach((type, total) ->
+                result.add(new CategoryTypeTotal(categoryId, type, total))));
+        return result;
+    }
+
+    // sign = -1 per togliere il contributo di un movimento rimosso o sostituito
+    private void addToTotals(Movement movement, BigDecimal sign) {
+        BigDecimal amount = movement.getAmount().multiply(sign);
+        Map<Long, Map<MovementType, BigDecimal>> month =
+                monthlyTotals.computeIfAbsent(YearMonth.from(movement.getDate()), key -> new HashMap<>());
+
+        List<Long> categoryIds = new ArrayList<>(categoryIdsOf(movement));
+        categoryIds.add(ALL_CATEGORIES);
+        for (Long categoryId : categoryIds) {
+            month.computeIfAbsent(categoryId, id -> new EnumMap<>(MovementType.class))
+                    .merge(movement.getType(), amount, BigDecimal::add);
+        }
+    }
+
+    private static Set<Long> categoryIdsOf(Movement movement) {
+        return movement.getCategories().stream().map(Category::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,102 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Periodi in memoria per i benchmark: poche righe, ricerche per scansione come nell'indice della cache
+public class InMemoryPeriodRepository implements PeriodRepository {
+
+    private final Map<Long, Period> periods = new TreeMap<>();
+    private long nextId = 1;
+
+    @Override
+    public Period save(Period period) {
+        if (period.getId() == null) {
+            period.setId(nextId++);
+        }
+        periods.put(period.getId(), period);
+        return period;
+    }
+
+    @Override
+    public Optional<Period> findById(Long id) {
+        return Optional.ofNullable(periods.get(id));
+    }
+
+    @Override
+    public List<Period> findAll() {
+        return new ArrayList<>(periods.values());
+    }
+
+    @Override
+    public void delete(Period period) {
+        deleteById(period.getId());
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        periods.remove(id);
+    }
+
+    @Override
+    public Optional<Period> findByName(String name) {
+        return periods.values().stream().filter(period -> period.getName().equals(name)).findFirst();
+    }
+
+    @Override
+    public List<Period> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return filter(period -> !period.getStartDate().isBefore(startDate) && !period.getEndDate().isAfter(endDate));
+    }
+
+    @Override
+    public Optional<Period> findPeriodContaining(LocalDate date) {
+        return findPeriodsContaining(date).stream().findFirst();
+    }
+
+    @Override
+    public List<Period> findPeriodsContaining(LocalDate date) {
+        return filter(period -> period.contains(date));
+    }
+
+    @Override
+    public List<Period> findOverlappingPeriods(LocalDate startDate, LocalDate endDate) {
+        return filter(period -> !period.getStartDate().isAfter(endDate) && !period.getEndDate().isBefore(startDate));
+    }
+
+    @Override
+    public List<Period> findCurrentPeriods() {
+        return findPeriodsContaining(LocalDate.now());
+    }
+
+    @Override
+    public List<Period> findFuturePeriods() {
+        return filter(period -> period.getStartDate().isAfter(LocalDate.now()));
+    }
+
+    @Override
+    public List<Period> findPastPeriods() {
+        return filter(period -> period.getEndDate().isBefore(LocalDate.now()));
+    }
+
+    @Override
+    public long count() {
+        return periods.size();
+    }
+
+    private List<Period> filter(Predicate<Period> condition) {
+        return periods.values().stream()
+                .filter(condition)
+                .sorted(Comparator.comparing(Period::getStartDate))
+                .collect(Collectors.toList());
+    }
+}
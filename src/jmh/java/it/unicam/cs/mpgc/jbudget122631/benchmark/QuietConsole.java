@@ -0,0 +1,25 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// I percorsi misurati scrivono molti log su System.out: durante i benchmark finiscono in uno stream vuoto,
+// cosi' si misura il costo di costruirli ma non quello della console
+public final class QuietConsole {
+
+    private static final PrintStream ORIGINAL = System.out;
+
+    private QuietConsole() {}
+
+    public static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    public static void restore() {
+        System.setOut(ORIGINAL);
+    }
+
+    public static void info(String message) {
+        ORIGINAL.println("BENCHMARK - " + message);
+    }
+}
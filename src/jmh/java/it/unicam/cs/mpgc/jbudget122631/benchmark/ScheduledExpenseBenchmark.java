@@ -0,0 +1,66 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Prossima scadenza di tutte le spese ricorrenti, come nel passaggio dello scheduler: ricorrenze e intervalli
+// misti con la prima scadenza fino a 20 anni fa, cosi' conta anche la distanza dalla data iniziale
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class ScheduledExpenseBenchmark {
+
+    private static final RecurrenceType[] RECURRING = {
+            RecurrenceType.DAILY, RecurrenceType.WEEKLY, RecurrenceType.MONTHLY, RecurrenceType.YEARLY
+    };
+    private static final int MAX_AGE_DAYS = 20 * 365;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private ScheduledExpense[] expenses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkDataset.SEED);
+        LocalDate today = LocalDate.now();
+
+        expenses = new ScheduledExpense[size];
+        for (int i = 0; i < size; i++) {
+            ScheduledExpense expense = new ScheduledExpense("Scadenza " + i, BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    MovementType.EXPENSE, today.minusDays(random.nextInt(MAX_AGE_DAYS)));
+            expense.setRecurrenceType(RECURRING[random.nextInt(RECURRING.length)]);
+            expense.setRecurrenceInterval(1 + random.nextInt(3));
+            expenses[i] = expense;
+        }
+    }
+
+    @Benchmark
+    public void getNextDueDate(Blackhole blackhole) {
+        for (ScheduledExpense expense : expenses) {
+            blackhole.consume(expense.getNextDueDate());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package it.unicam.cs.mpgc.jbudget122631.benchmark;
+
+import it.unicam.cs.mpgc.jbudget122631.application.dto.StatisticsDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Statistiche di un anno: con mesi interi si leggono i totali precalcolati, altrimenti si aggrega sui movimenti
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class StatisticsServiceBenchmark {
+
+    public enum Range {
+        WHOLE_MONTHS,
+        PARTIAL_MONTHS
+    }
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"MEMORY", "H2"})
+    private BenchmarkRepositories.Backend backend;
+
+    @Param({"WHOLE_MONTHS", "PARTIAL_MONTHS"})
+    private Range range;
+
+    private BenchmarkRepositories repositories;
+    private StatisticsService statisticsService;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        QuietConsole.silence();
+        repositories = BenchmarkRepositories.open(backend, size);
+        statisticsService = repositories.statisticsService();
+
+        if (range == Range.WHOLE_MONTHS) {
+            startDate = BenchmarkDataset.LAST_MONTH.withMonth(1).atDay(1);
+            endDate = BenchmarkDataset.LAST_MONTH.atEndOfMonth();
+        } else {
+            startDate = BenchmarkDataset.LAST_MONTH.withMonth(1).atDay(15);
+            endDate = BenchmarkDataset.LAST_MONTH.atDay(14);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.close();
+        QuietConsole.restore();
+    }
+
+    @Benchmark
+    public StatisticsDTO getStatisticsForPeriod() {
+        return statisticsService.getStatisticsForPeriod(startDate, endDate);
+    }
+}
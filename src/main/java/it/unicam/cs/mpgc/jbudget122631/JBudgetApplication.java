@@ -21,6 +21,7 @@ public class JBudgetApplication extends Application {
             primaryStage.setMinHeight(600);
             primaryStage.setOnCloseRequest(e -> ApplicationConfig.shutdown());
             primaryStage.show();
+            ApplicationConfig.startBackgroundJobs();
         } catch (Exception e) {
             e.printStackTrace();
             ApplicationConfig.shutdown();
@@ -3,6 +3,7 @@ package it.unicam.cs.mpgc.jbudget122631.application.dto;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -31,6 +32,18 @@ public class StatisticsDTO {
         this.endDate = endDate;
     }
 
+    // Copia con mappe proprie: le modifiche del chiamante non raggiungono l'originale (es. in cache)
+    public StatisticsDTO(StatisticsDTO other) {
+        this.startDate = other.startDate;
+        this.endDate = other.endDate;
+        this.totalIncome = other.getTotalIncome();
+        this.totalExpenses = other.getTotalExpenses();
+        this.balance = other.getBalance();
+        this.incomeByCategory = new LinkedHashMap<>(other.getIncomeByCategory());
+        this.expensesByCategory = new LinkedHashMap<>(other.getExpensesByCategory());
+        this.monthlyTrend = new LinkedHashMap<>(other.getMonthlyTrend());
+    }
+
     private BigDecimal nullSafeBigDecimal(BigDecimal value) {
         return value != null ? value : BigDecimal.ZERO;
     }
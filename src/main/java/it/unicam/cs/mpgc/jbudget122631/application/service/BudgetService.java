@@ -1,9 +1,12 @@
 package it.unicam.cs.mpgc.jbudget122631.application.service;
 
 import it.unicam.cs.mpgc.jbudget122631.application.dto.BudgetDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface BudgetService {
 
@@ -25,5 +28,12 @@ public interface BudgetService {
 
     void updateBudgetWithRealMovements(Long budgetId);
 
+    // Ricalcolo completo: operazione di riparazione esplicita
     void updateAllBudgetsWithRealMovements();
+
+    // Budget i cui valori reali dipendono da almeno uno degli stati di movimento indicati
+    Set<Long> findBudgetIdsAffectedBy(Collection<MovementDTO> movementStates);
+
+    // Ricalcolo completo dei soli budget indicati, uno per budget
+    void recalculateBudgets(Collection<Long> budgetIds);
 }
\ No newline at end of file
@@ -0,0 +1,294 @@
+package it.unicam.cs.mpgc.jbudget122631.application.service;
+
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Sincronizzazione dei budget fuori dalle scritture dei movimenti: ogni modifica viene accodata con un
+// numero di versione e un unico thread la elabora. Le modifiche arrivate a raffica (es. eliminazione di
+// molti movimenti) si raccolgono in un solo lotto con un ricalcolo per ciascun budget interessato.
+// La versione sincronizzata dice fino a quale modifica i valori reali dei budget sono aggiornati.
+public class BudgetSyncQueue {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int MAX_BATCH_SIZE = 5_000;
+    // Attesa di altre modifiche dopo la prima di un lotto, per non ricalcolare a ogni elemento di una raffica
+    private static final long COALESCE_WINDOW_MILLIS = 50;
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+
+    private static final class MovementDelta {
+        private final long version;
+        private final MovementDTO previousState;
+        private final MovementDTO currentState;
+
+        MovementDelta(long version, MovementDTO previousState, MovementDTO currentState) {
+            this.version = version;
+            this.previousState = previousState;
+            this.currentState = currentState;
+        }
+    }
+
+    private final BudgetService budgetService;
+    private final BlockingQueue<MovementDelta> queue;
+
+    // Versioni assegnate e accodate sotto lo stesso lock: nella coda sono sempre in ordine crescente
+    private final Object submitLock = new Object();
+    private long publishedVersion;
+    private long syncedVersion;
+    // Modifiche non accodabili (coda piena), riparazione richiesta o lotto fallito: serve il ricalcolo di tutti i budget
+    private boolean fullRecalculationRequested;
+    // Attese di whenSynced per versione, completate dal thread di sincronizzazione
+    private final NavigableMap<Long, List<CompletableFuture<Long>>> waiters = new TreeMap<>();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public BudgetSyncQueue(BudgetService budgetService) {
+        this(budgetService, DEFAULT_CAPACITY);
+    }
+
+    public BudgetSyncQueue(BudgetService budgetService, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacita' coda deve essere > 0");
+        }
+        this.budgetService = budgetService;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "budget-sync");
+        worker.setDaemon(true);
+        worker.start();
+        System.out.println("BUDGET_SYNC - Sincronizzazione budget in background avviata");
+    }
+
+    // Le modifiche gia' accodate vengono elaborate prima dell'arresto, entro il tempo indicato
+    public synchronized void stop(long timeout, TimeUnit unit) {
+        if (worker == null) {
+            return;
+        }
+        try {
+            if (!awaitVersion(getPublishedVersion(), timeout, unit)) {
+                System.err.println("BUDGET_SYNC - Arresto con modifiche non elaborate: budget da ricalcolare");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        worker.interrupt();
+        worker = null;
+        System.out.println("BUDGET_SYNC - Sincronizzazione budget arrestata");
+    }
+
+    // Chiamato dopo il commit della scrittura; non blocca mai il chiamante
+    public long submit(MovementDTO previousState, MovementDTO currentState) {
+        synchronized (submitLock) {
+            long version = ++publishedVersion;
+            if (!queue.offer(new MovementDelta(version, previousState, currentState))) {
+                // Coda piena: la modifica non viene persa, sara' coperta dal ricalcolo completo
+                fullRecalculationRequested = true;
+                System.err.println("BUDGET_SYNC - Coda piena: richiesto ricalcolo completo dei budget");
+            }
+            submitLock.notifyAll();
+            return version;
+        }
+    }
+
+    // Ricalcolo di tutti i budget eseguito dallo stesso thread, quindi mai in parallelo agli altri ricalcoli
+    public long requestFullRecalculation() {
+        synchronized (submitLock) {
+            long version = ++publishedVersion;
+            fullRecalculationRequested = true;
+            submitLock.notifyAll();
+            return version;
+        }
+    }
+
+    public long getPublishedVersion() {
+        synchronized (submitLock) {
+            return publishedVersion;
+        }
+    }
+
+    public long getSyncedVersion() {
+        synchronized (submitLock) {
+            return syncedVersion;
+        }
+    }
+
+    public boolean isUpToDate() {
+        synchronized (submitLock) {
+            return syncedVersion >= publishedVersion;
+        }
+    }
+
+    // Attende che i budget riflettano tutte le modifiche fino alla versione indicata
+    public boolean awaitVersion(long version, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (submitLock) {
+            while (syncedVersion < version) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(submitLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    // Come awaitVersion senza occupare un thread: il risultato e' la versione sincronizzata raggiunta.
+    // Un'attesa annullata o scaduta (es. orTimeout) viene rimossa subito.
+    public CompletableFuture<Long> whenSynced(long version) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        synchronized (submitLock) {
+            if (syncedVersion >= version) {
+                future.complete(syncedVersion);
+                return future;
+            }
+            waiters.computeIfAbsent(version, v -> new ArrayList<>()).add(future);
+        }
+        future.whenComplete((synced, error) -> {
+            if (error != null) {
+                removeWaiter(version, future);
+            }
+        });
+        return future;
+    }
+
+    private void removeWaiter(long version, CompletableFuture<Long> future) {
+        synchronized (submitLock) {
+            List<CompletableFuture<Long>> atVersion = waiters.get(version);
+            if (atVersion != null && atVersion.remove(future) && atVersion.isEmpty()) {
+                waiters.remove(version);
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                List<MovementDelta> batch = nextBatch();
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Il thread non deve terminare: al prossimo giro si ripara con il ricalcolo completo
+                System.err.println("BUDGET_SYNC - Errore sincronizzazione: " + e.getMessage());
+                synchronized (submitLock) {
+                    fullRecalculationRequested = true;
+                }
+            }
+        }
+    }
+
+    private List<MovementDelta> nextBatch() throws InterruptedException {
+        List<MovementDelta> batch = new ArrayList<>();
+
+        MovementDelta first;
+        synchronized (submitLock) {
+            while ((first = queue.poll()) == null && !fullRecalculationRequested) {
+                submitLock.wait();
+            }
+        }
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        // Raccoglie il resto della raffica finche' arrivano modifiche
+        while (batch.size() < MAX_BATCH_SIZE) {
+            queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+            MovementDelta next = queue.poll(COALESCE_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void processBatch(List<MovementDelta> batch) throws InterruptedException {
+        boolean fullRecalculation;
+        long targetVersion;
+
+        synchronized (submitLock) {
+            fullRecalculation = fullRecalculationRequested;
+            if (fullRecalculation) {
+                // Il ricalcolo completo legge i movimenti dopo questo punto: copre tutte le modifiche gia' accodate
+                fullRecalculationRequested = false;
+                queue.drainTo(batch);
+                targetVersion = publishedVersion;
+            } else if (batch.isEmpty()) {
+                return;
+            } else {
+                targetVersion = batch.get(batch.size() - 1).version;
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (fullRecalculation) {
+                budgetService.updateAllBudgetsWithRealMovements();
+                System.out.println("BUDGET_SYNC - Ricalcolo completo fino alla versione " + targetVersion);
+            } else {
+                recalculateAffected(batch);
+            }
+        } catch (Exception e) {
+            System.err.println("BUDGET_SYNC - Errore lotto fino alla versione " + targetVersion +
+                    ": " + e.getMessage() + ", nuovo tentativo con ricalcolo completo");
+            synchronized (submitLock) {
+                fullRecalculationRequested = true;
+            }
+            Thread.sleep(RETRY_DELAY_MILLIS);
+            return;
+        }
+
+        List<CompletableFuture<Long>> reached = new ArrayList<>();
+        long synced;
+        synchronized (submitLock) {
+            syncedVersion = Math.max(syncedVersion, targetVersion);
+            synced = syncedVersion;
+            submitLock.notifyAll();
+            NavigableMap<Long, List<CompletableFuture<Long>>> covered = waiters.headMap(synced, true);
+            covered.values().forEach(reached::addAll);
+            covered.clear();
+        }
+        // Fuori dal lock: le azioni collegate sincrone girano su questo thread
+        reached.forEach(future -> future.complete(synced));
+        System.out.println("BUDGET_SYNC - Budget aggiornati alla versione " + targetVersion + " (" + batch.size() +
+                " modifiche, " + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    private void recalculateAffected(List<MovementDelta> batch) {
+        List<MovementDTO> states = new ArrayList<>(batch.size() * 2);
+        for (MovementDelta change : batch) {
+            states.add(change.previousState);
+            states.add(change.currentState);
+        }
+
+        Set<Long> budgetIds = budgetService.findBudgetIdsAffectedBy(states);
+        budgetService.recalculateBudgets(budgetIds);
+        System.out.println("BUDGET_SYNC - " + batch.size() + " modifiche, " + budgetIds.size() + " budget ricalcolati");
+    }
+}
@@ -0,0 +1,139 @@
+package it.unicam.cs.mpgc.jbudget122631.application.service;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Nomi di tutte le categorie caricati con una sola query e letti da memoria: il rendering delle
+// tabelle non apre sessioni. Dopo una modifica la mappa viene ricaricata sull'executor indicato
+// e, finche' non arriva quella nuova, si continua a leggere la precedente.
+public class CategoryNameResolver {
+
+    private final CategoryRepository categoryRepository;
+    private final Executor reloadExecutor;
+
+    // Mappa immutabile sostituita per intero: le letture da piu' thread non richiedono lock
+    private volatile Map<Long, String> names;
+    // Incrementata a ogni modifica: un caricamento superato da una modifica successiva viene scartato
+    private long generation;
+    private CompletableFuture<Void> reloading = CompletableFuture.completedFuture(null);
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    // Senza executor la ricarica avviene nel thread che segnala la modifica
+    public CategoryNameResolver(CategoryRepository categoryRepository) {
+        this(categoryRepository, Runnable::run);
+    }
+
+    public CategoryNameResolver(CategoryRepository categoryRepository, Executor reloadExecutor) {
+        this.categoryRepository = Objects.requireNonNull(categoryRepository, "Repository categorie richiesto");
+        this.reloadExecutor = Objects.requireNonNull(reloadExecutor, "Executor ricarica richiesto");
+    }
+
+    public Optional<String> findName(Long categoryId) {
+        if (categoryId == null) {
+            return Optional.empty();
+        }
+        lookups.incrementAndGet();
+        return Optional.ofNullable(names().get(categoryId));
+    }
+
+    public String nameOrDefault(Long categoryId, String defaultName) {
+        return findName(categoryId).orElse(defaultName);
+    }
+
+    // Nomi delle categorie note separati da virgola, nell'ordine degli ID
+    public String joinNames(Collection<Long> categoryIds) {
+        Map<Long, String> current = names();
+        lookups.addAndGet(categoryIds.size());
+        return categoryIds.stream()
+                .map(current::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(", "));
+    }
+
+    public void preload() {
+        names();
+    }
+
+    public void invalidate() {
+        long current;
+        CompletableFuture<Void> reload = new CompletableFuture<>();
+        synchronized (this) {
+            current = ++generation;
+            reloading = reload;
+        }
+        Runnable task = () -> {
+            try {
+                reload(current);
+                reload.complete(null);
+            } catch (Exception e) {
+                System.err.println("SERVICE - Errore ricarica nomi categorie: " + e.getMessage());
+                reload.completeExceptionally(e);
+            }
+        };
+        try {
+            reloadExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Executor gia' chiuso (uscita dall'applicazione): si ricarica nel thread corrente
+            task.run();
+        }
+    }
+
+    // Completato quando la mappa riflette l'ultima modifica segnalata (subito se non ce ne sono in corso)
+    public synchronized CompletableFuture<Void> whenCurrent() {
+        return reloading;
+    }
+
+    public String getStatistics() {
+        Map<Long, String> current = names;
+        return String.format("Nomi categorie: %d in memoria, %d letture, %d caricamenti",
+                current != null ? current.size() : 0, lookups.get(), reloads.get());
+    }
+
+    private Map<Long, String> names() {
+        Map<Long, String> current = names;
+        if (current != null) {
+            return current;
+        }
+
+        // Solo il primo caricamento e' sincrono: poi le letture non attendono piu' il database
+        synchronized (this) {
+            if (names == null) {
+                names = load();
+            }
+            return names;
+        }
+    }
+
+    private void reload(long requestedGeneration) {
+        Map<Long, String> loaded = load();
+        synchronized (this) {
+            if (generation == requestedGeneration) {
+                names = loaded;
+            }
+        }
+    }
+
+    private Map<Long, String> load() {
+        Map<Long, String> loaded = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            loaded.put(category.getId(), category.getName());
+        }
+        reloads.incrementAndGet();
+        System.out.println("SERVICE - Nomi categorie caricati: " + loaded.size());
+        return Collections.unmodifiableMap(loaded);
+    }
+}
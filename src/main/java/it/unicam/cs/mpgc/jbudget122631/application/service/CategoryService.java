@@ -11,6 +11,7 @@ public interface CategoryService {
     Optional<Category> getCategoryById(Long id);
     List<Category> getAllCategories();
     Category updateCategory(Long id, String name, String description);
+    Category moveCategory(Long id, Long newParentId);
     void deleteCategory(Long id);
 
     List<Category> getRootCategories();
@@ -2,6 +2,8 @@ package it.unicam.cs.mpgc.jbudget122631.application.service;
 
 import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementCursor;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 
@@ -29,6 +31,11 @@ public interface MovementService {
     List<MovementDTO> searchMovements(String searchTerm);
 
     List<MovementDTO> getMovementsPaginated(int page, int size);
+    List<MovementDTO> getMovementsAfter(MovementCursor cursor, int size);
+    List<MovementDTO> getMovementsPage(MovementQuery query, int offset, int size);
+    long countMovements(MovementQuery query);
     long getTotalMovementsCount();
+    int importMovements(List<MovementDTO> movementDTOs);
+    void rebuildMonthlyTotals();
     Movement createMovement(Movement movement);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package it.unicam.cs.mpgc.jbudget122631.application.service;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,8 @@ public interface ScheduledExpenseService {
     List<ScheduledExpense> getRecurringExpenses();
     ScheduledExpense createNextOccurrence(Long id);
     void processRecurringExpenses(); // Background task
+    boolean processRecurringExpensesIfNeeded();
+    Optional<LocalDate> getRecurringProcessedThrough();
 
     // Notifications
     List<ScheduledExpense> getExpensesRequiringAttention();
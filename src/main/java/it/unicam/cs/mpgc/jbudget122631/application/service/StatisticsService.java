@@ -10,6 +10,7 @@ public interface StatisticsService {
 
     StatisticsDTO getStatisticsForPeriod(LocalDate startDate, LocalDate endDate);
     StatisticsDTO getStatisticsForCategory(Long categoryId, LocalDate startDate, LocalDate endDate);
+    StatisticsDTO getStatisticsForCategoryTree(Long categoryId, LocalDate startDate, LocalDate endDate);
 
     Map<String, StatisticsDTO> comparePeriodsStatistics(LocalDate period1Start, LocalDate period1End,
                                                         LocalDate period2Start, LocalDate period2End);
@@ -1,16 +1,23 @@
 package it.unicam.cs.mpgc.jbudget122631.application.service.impl;
 
 import it.unicam.cs.mpgc.jbudget122631.application.dto.BudgetDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.*;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class BudgetServiceImpl implements BudgetService {
@@ -93,6 +100,16 @@ public class BudgetServiceImpl implements BudgetService {
 
             logBudgetProcessingInfo(period, category);
 
+            if (category != null && !categoryRepository.findDescendantIds(category.getId()).isEmpty()) {
+                updateBudgetFromSubtreeTotals(budget, period, category);
+                return;
+            }
+
+            if (MonthlyTotal.coversWholeMonths(period.getStartDate(), period.getEndDate())) {
+                updateBudgetFromMonthlyTotals(budget, period, category);
+                return;
+            }
+
             List<Movement> movements = movementRepository.findByDateBetween(
                     period.getStartDate(), period.getEndDate());
 
@@ -116,19 +133,57 @@ public class BudgetServiceImpl implements BudgetService {
         }
     }
 
+    private void updateBudgetFromMonthlyTotals(Budget budget, Period period, Category category) {
+        YearMonth from = YearMonth.from(period.getStartDate());
+        YearMonth to = YearMonth.from(period.getEndDate());
+
+        // Periodo di mesi interi: bastano le righe dei totali mensili, senza leggere i movimenti
+        List<MonthlyTotal> totalsByType = movementRepository.getRollupTotalsByType(from, to);
+        BigDecimal actualIncome = MonthlyTotal.sumOfType(totalsByType, MovementType.INCOME);
+        BigDecimal actualExpenses = category == null
+                ? MonthlyTotal.sumOfType(totalsByType, MovementType.EXPENSE)
+                : MonthlyTotal.sumOfType(
+                        movementRepository.getRollupTotalsByCategory(category.getId(), from, to), MovementType.EXPENSE);
+
+        System.out.println("BUDGET - Totali mensili " + from + " - " + to +
+                ": entrate €" + actualIncome + ", spese €" + actualExpenses);
+
+        updateAndSaveBudget(budget, actualIncome, actualExpenses, budget.getId());
+    }
+
+    private void updateBudgetFromSubtreeTotals(Budget budget, Period period, Category category) {
+        // Budget su categoria padre: le spese comprendono tutte le sottocategorie, a qualsiasi profondita'
+        BigDecimal actualIncome = movementRepository.getTotalByTypeAndDateRange(
+                MovementType.INCOME, period.getStartDate(), period.getEndDate());
+        BigDecimal actualExpenses = movementRepository
+                .getSubtreeTotalsByType(category.getId(), period.getStartDate(), period.getEndDate())
+                .stream()
+                .filter(total -> total.getType() == MovementType.EXPENSE)
+                .map(CategoryTypeTotal::getTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        System.out.println("BUDGET - Totali sottoalbero " + category.getName() +
+                ": entrate €" + actualIncome + ", spese €" + actualExpenses);
+
+        updateAndSaveBudget(budget, actualIncome != null ? actualIncome : BigDecimal.ZERO,
+                actualExpenses, budget.getId());
+    }
+
     @Override
     public void updateAllBudgetsWithRealMovements() {
         try {
             System.out.println("BUDGET - Avvio aggiornamento di tutti i budget...");
 
-            List<Budget> allBudgets = budgetRepository.findAll();
-            System.out.println("BUDGET - Budget da aggiornare: " + allBudgets.size());
+            // Servono solo gli ID: i budget vengono letti in streaming invece di caricarli tutti
+            List<Long> budgetIds = new ArrayList<>();
+            budgetRepository.scrollAll(budget -> budgetIds.add(budget.getId()));
+            System.out.println("BUDGET - Budget da aggiornare: " + budgetIds.size());
 
-            for (Budget budget : allBudgets) {
+            for (Long budgetId : budgetIds) {
                 try {
-                    updateBudgetWithRealMovements(budget.getId());
+                    updateBudgetWithRealMovements(budgetId);
                 } catch (Exception e) {
-                    System.err.println("BUDGET - Errore aggiornamento budget ID " + budget.getId() +
+                    System.err.println("BUDGET - Errore aggiornamento budget ID " + budgetId +
                             ": " + e.getMessage());
                     // Continua con gli altri budget anche se uno fallisce
                 }
@@ -142,6 +197,84 @@ public class BudgetServiceImpl implements BudgetService {
         }
     }
 
+    @Override
+    public Set<Long> findBudgetIdsAffectedBy(Collection<MovementDTO> movementStates) {
+        Map<LocalDate, List<Budget>> budgetsByDate = new HashMap<>();
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        Set<Long> affected = new LinkedHashSet<>();
+
+        // Stessi criteri del ricalcolo: entrate su tutti i budget del periodo, spese per categoria e sottocategorie
+        for (MovementDTO movement : movementStates) {
+            if (movement == null || movement.getDate() == null || movement.getType() == null) {
+                continue;
+            }
+            for (Budget budget : budgetsByDate.computeIfAbsent(movement.getDate(), this::findBudgetsContaining)) {
+                if (movement.getType() == MovementType.INCOME || isExpenseRelevantForBudget(movement, budget, subtrees)) {
+                    affected.add(budget.getId());
+                }
+            }
+        }
+        return affected;
+    }
+
+    @Override
+    public void recalculateBudgets(Collection<Long> budgetIds) {
+        int failures = 0;
+        Long firstFailedId = null;
+        Exception firstFailure = null;
+        for (Long budgetId : budgetIds) {
+            try {
+                updateBudgetWithRealMovements(budgetId);
+            } catch (Exception e) {
+                // Continua con gli altri budget (ogni errore e' gia' registrato), il primo viene segnalato alla fine
+                failures++;
+                if (firstFailure == null) {
+                    firstFailedId = budgetId;
+                    firstFailure = e;
+                }
+            }
+        }
+        if (failures > 0) {
+            throw new RuntimeException("Errore aggiornamento di " + failures + " budget su " + budgetIds.size() +
+                    " (primo: budget ID " + firstFailedId + ", " + rootMessage(firstFailure) + ")", firstFailure);
+        }
+    }
+
+    // updateBudgetWithRealMovements avvolge la causa in un messaggio generico
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private List<Budget> findBudgetsContaining(LocalDate date) {
+        // Periodi risolti dall'indice in memoria: nessuna query se la data non cade in alcun periodo
+        List<Budget> budgets = new ArrayList<>();
+        for (Period period : periodRepository.findPeriodsContaining(date)) {
+            budgets.addAll(budgetRepository.findByPeriod(period));
+        }
+        return budgets;
+    }
+
+    private boolean isExpenseRelevantForBudget(MovementDTO movement, Budget budget, Map<Long, Set<Long>> subtrees) {
+        if (movement.getType() != MovementType.EXPENSE) {
+            return false;
+        }
+        if (budget.isGeneral()) {
+            return true;
+        }
+
+        // La categoria del budget e tutte le sue sottocategorie
+        Set<Long> subtree = subtrees.computeIfAbsent(budget.getCategory().getId(), categoryId -> {
+            Set<Long> ids = new HashSet<>(categoryRepository.findDescendantIds(categoryId));
+            ids.add(categoryId);
+            return ids;
+        });
+        return movement.getCategoryIds().stream().anyMatch(subtree::contains);
+    }
+
     @Override
     public void updateActualValuesForPeriod(Long periodId) {
         Period period = periodRepository.findById(periodId)
@@ -320,8 +453,10 @@ public class BudgetServiceImpl implements BudgetService {
         System.out.println("  - Budget actualIncome: €" + budget.getActualIncome());
         System.out.println("  - Budget actualExpenses: €" + budget.getActualExpenses());
 
-        Budget savedBudget = budgetRepository.save(budget);
-        logPostSaveVerification(savedBudget, budgetId);
+        // Si scrivono solo i valori reali: salvare l'intero budget letto prima del calcolo
+        // sovrascriverebbe importi pianificati e note modificati dall'utente nel frattempo
+        budgetRepository.updateActuals(budgetId, budget.getActualIncome(), budget.getActualExpenses());
+        logPostSaveVerification(budget, budgetId);
     }
 
     private void logPostSaveVerification(Budget savedBudget, Long budgetId) {
@@ -366,10 +501,8 @@ public class BudgetServiceImpl implements BudgetService {
     }
 
     private Optional<Period> findExistingPeriodByName(String periodName) {
-        List<Period> allPeriods = periodRepository.findAll();
-        return allPeriods.stream()
+        return periodRepository.findByName(periodName)
                 .filter(period -> periodName.equals(period.getName()))
-                .findFirst()
                 .map(period -> {
                     System.out.println("PERIOD - Periodo esistente trovato: " + period.getName() +
                             " (" + period.getStartDate() + " - " + period.getEndDate() + ")");
@@ -1,10 +1,13 @@
 package it.unicam.cs.mpgc.jbudget122631.application.service.impl;
 
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetSyncQueue;
 import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryService;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 public class CategoryServiceImpl implements CategoryService {
@@ -14,11 +17,16 @@ public class CategoryServiceImpl implements CategoryService {
     private static final String PARENT_CATEGORY_NOT_FOUND_MESSAGE = "Categoria parent non trovata";
 
     private final CategoryRepository categoryRepository;
+    private BudgetSyncQueue budgetSyncQueue; // Se presente, riceve i ricalcoli dopo i cambi di gerarchia
 
     public CategoryServiceImpl(CategoryRepository categoryRepository) {
         this.categoryRepository = categoryRepository;
     }
 
+    public void setBudgetSyncQueue(BudgetSyncQueue budgetSyncQueue) {
+        this.budgetSyncQueue = budgetSyncQueue;
+    }
+
     @Override
     public Category createCategory(String name, String description, Long parentId) {
         validateCategoryName(name);
@@ -26,13 +34,12 @@ public class CategoryServiceImpl implements CategoryService {
         Category parent = resolveParentCategory(parentId);
         validateUniqueNameInParent(name, parent);
 
-        Category category = new Category(name, description);
-
-        if (parent != null) {
-            establishParentChildRelationship(parent, category);
+        if (parent == null) {
+            return categoryRepository.save(new Category(name, description));
         }
-
-        return categoryRepository.save(category);
+        // Il legame col parent passa dalla gerarchia persistita: niente navigazione di collezioni lazy
+        Category saved = categoryRepository.saveWithParent(new Category(name, description), parent.getId());
+        return findCategoryById(saved.getId());
     }
 
     @Override
@@ -57,12 +64,33 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.save(category);
     }
 
+    @Override
+    public Category moveCategory(Long id, Long newParentId) {
+        Category category = findCategoryById(id);
+        Category newParent = resolveParentCategory(newParentId);
+
+        if (newParent != null && isInSubtree(category, newParent)) {
+            throw new IllegalArgumentException("Ciclo nella gerarchia non ammesso");
+        }
+
+        if (!sameParent(category, newParent)) {
+            validateUniqueNameInParent(category.getName(), newParent);
+        }
+
+        categoryRepository.moveInHierarchy(id, newParentId);
+        // I budget dei vecchi e dei nuovi antenati includono le spese del sottoalbero spostato
+        requestBudgetRecalculation();
+        return findCategoryById(id);
+    }
+
     @Override
     public void deleteCategory(Long id) {
         if (canDeleteCategory(id)) {
             throw new IllegalArgumentException("Impossibile eliminare categoria: ha figli o movimenti associati");
         }
+        // Categoria e righe della gerarchia eliminate nella stessa transazione
         categoryRepository.deleteById(id);
+        requestBudgetRecalculation();
     }
 
     @Override
@@ -79,13 +107,16 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public List<Category> getCategoryPath(Long categoryId) {
         Category category = findCategoryById(categoryId);
-        return category.getPath();
+
+        List<Category> path = new ArrayList<>(categoryRepository.findAncestors(category));
+        path.add(category);
+        return path;
     }
 
     @Override
     public List<Category> getAllDescendants(Long categoryId) {
         Category category = findCategoryById(categoryId);
-        return List.copyOf(category.getAllDescendants());
+        return categoryRepository.findDescendants(category);
     }
 
     @Override
@@ -123,6 +154,13 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.existsByNameAndParent(name, parent);
     }
 
+    private void requestBudgetRecalculation() {
+        if (budgetSyncQueue != null) {
+            long version = budgetSyncQueue.requestFullRecalculation();
+            System.out.println("BUDGET - Gerarchia categorie modificata, ricalcolo accodato (versione " + version + ")");
+        }
+    }
+
     private Category findCategoryById(Long id) {
         return findCategoryById(id, CATEGORY_NOT_FOUND_MESSAGE);
     }
@@ -139,11 +177,6 @@ public class CategoryServiceImpl implements CategoryService {
         return findCategoryById(parentId, PARENT_CATEGORY_NOT_FOUND_MESSAGE);
     }
 
-    private void establishParentChildRelationship(Category parent, Category child) {
-        parent.addChild(child);
-        categoryRepository.save(parent); // Salva per aggiornare la relazione
-    }
-
     private void updateCategoryFields(Category category, String name, String description) {
         category.setName(name);
         category.setDescription(description);
@@ -155,7 +188,21 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     private boolean hasChildCategories(Category category) {
-        return !category.getChildren().isEmpty();
+        return !categoryRepository.findDescendantIds(category.getId()).isEmpty();
+    }
+
+    private boolean isInSubtree(Category root, Category candidate) {
+        return root.getId().equals(candidate.getId())
+                || categoryRepository.findDescendantIds(root.getId()).contains(candidate.getId());
+    }
+
+    private boolean sameParent(Category category, Category newParent) {
+        Long currentParentId = categoryRepository.findAncestors(category).stream()
+                .reduce((first, second) -> second)
+                .map(Category::getId)
+                .orElse(null);
+        Long newParentId = newParent != null ? newParent.getId() : null;
+        return Objects.equals(currentParentId, newParentId);
     }
 
     private void validateCategoryName(String name) {
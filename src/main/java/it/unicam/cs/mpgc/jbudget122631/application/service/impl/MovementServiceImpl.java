@@ -3,7 +3,12 @@ package it.unicam.cs.mpgc.jbudget122631.application.service.impl;
 import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.service.MovementService;
 import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetSyncQueue;
+import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryNameResolver;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementCursor;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementSummary;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.MovementRepository;
@@ -12,8 +17,12 @@ import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class MovementServiceImpl implements MovementService {
@@ -29,17 +38,29 @@ public class MovementServiceImpl implements MovementService {
     private final MovementRepository movementRepository;
     private final CategoryRepository categoryRepository;
     private final PeriodRepository periodRepository;
+    private final CategoryNameResolver categoryNames;
     private BudgetService budgetService; // Opzionale per aggiornamento automatico budget
+    private BudgetSyncQueue budgetSyncQueue; // Se presente, i budget vengono aggiornati in background
     private boolean categoriesInitialized = false;
 
     public MovementServiceImpl(MovementRepository movementRepository,
                                CategoryRepository categoryRepository,
                                PeriodRepository periodRepository,
-                               BudgetService budgetService) {
+                               BudgetService budgetService,
+                               CategoryNameResolver categoryNames) {
         this.movementRepository = movementRepository;
         this.categoryRepository = categoryRepository;
         this.periodRepository = periodRepository;
         this.budgetService = budgetService;
+        this.categoryNames = categoryNames;
+    }
+
+    public MovementServiceImpl(MovementRepository movementRepository,
+                               CategoryRepository categoryRepository,
+                               PeriodRepository periodRepository,
+                               BudgetService budgetService) {
+        this(movementRepository, categoryRepository, periodRepository, budgetService,
+                new CategoryNameResolver(categoryRepository));
     }
 
     public MovementServiceImpl(MovementRepository movementRepository,
@@ -52,6 +73,10 @@ public class MovementServiceImpl implements MovementService {
         this.budgetService = budgetService;
     }
 
+    public void setBudgetSyncQueue(BudgetSyncQueue budgetSyncQueue) {
+        this.budgetSyncQueue = budgetSyncQueue;
+    }
+
     @Override
     public MovementDTO createMovement(MovementDTO movementDTO) {
         logMovementOperation("CREATE", movementDTO);
@@ -67,7 +92,7 @@ public class MovementServiceImpl implements MovementService {
         MovementDTO resultDTO = convertToDTO(savedMovement);
 
         logMovementResult(resultDTO);
-        synchronizeBudgets("CREATE", resultDTO);
+        synchronizeBudgets("CREATE", null, resultDTO);
 
         return resultDTO;
     }
@@ -90,7 +115,7 @@ public class MovementServiceImpl implements MovementService {
 
     @Override
     public List<MovementDTO> getAllMovements() {
-        return movementRepository.findAll()
+        return movementRepository.findAllSummaries()
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -101,6 +126,7 @@ public class MovementServiceImpl implements MovementService {
         Movement movement = findMovementById(id);
 
         MovementUpdateInfo updateInfo = captureUpdateInfo(movement);
+        MovementDTO previousState = convertToDTO(movement);
         logMovementUpdate(id, updateInfo, movementDTO);
 
         updateMovementFields(movement, movementDTO);
@@ -110,7 +136,7 @@ public class MovementServiceImpl implements MovementService {
         MovementDTO resultDTO = convertToDTO(savedMovement);
 
         logCompletedUpdate(updateInfo, resultDTO);
-        synchronizeBudgets("UPDATE", resultDTO);
+        synchronizeBudgets("UPDATE", previousState, resultDTO);
 
         return resultDTO;
     }
@@ -124,7 +150,7 @@ public class MovementServiceImpl implements MovementService {
 
         if (deletedMovement != null) {
             System.out.println("SERVICE - Movimento eliminato: " + deletedMovement.getDescription());
-            synchronizeBudgets("DELETE", deletedMovement);
+            synchronizeBudgets("DELETE", deletedMovement, null);
         } else {
             System.out.println("SERVICE - Movimento non trovato, eliminazione forzata");
         }
@@ -132,7 +158,7 @@ public class MovementServiceImpl implements MovementService {
 
     @Override
     public List<MovementDTO> getMovementsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return movementRepository.findByDateBetween(startDate, endDate)
+        return movementRepository.findSummariesByDateBetween(startDate, endDate)
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -140,7 +166,7 @@ public class MovementServiceImpl implements MovementService {
 
     @Override
     public List<MovementDTO> getMovementsByType(MovementType type) {
-        return movementRepository.findByType(type)
+        return movementRepository.findSummariesByType(type)
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -150,7 +176,7 @@ public class MovementServiceImpl implements MovementService {
     public List<MovementDTO> getMovementsByCategory(Long categoryId) {
         Category category = findCategoryById(categoryId);
 
-        return movementRepository.findByCategoriesContaining(category)
+        return movementRepository.findSummariesByCategory(category.getId())
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -159,7 +185,7 @@ public class MovementServiceImpl implements MovementService {
     @Override
     public List<MovementDTO> getMovementsByPeriod(Long periodId) {
         return periodRepository.findById(periodId)
-                .map(period -> movementRepository.findByPeriod(period)
+                .map(period -> movementRepository.findSummariesByDateBetween(period.getStartDate(), period.getEndDate())
                         .stream()
                         .map(this::convertToDTO)
                         .collect(Collectors.toList()))
@@ -179,7 +205,8 @@ public class MovementServiceImpl implements MovementService {
 
     @Override
     public List<MovementDTO> searchMovements(String searchTerm) {
-        return movementRepository.findByDescriptionContaining(searchTerm)
+        // Ranking dall'indice di ricerca, righe lette come proiezioni nello stesso ordine
+        return movementRepository.findSummariesByIds(movementRepository.searchIds(searchTerm))
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -193,11 +220,88 @@ public class MovementServiceImpl implements MovementService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<MovementDTO> getMovementsAfter(MovementCursor cursor, int size) {
+        return movementRepository.findSummaryPageAfter(cursor, size)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<MovementDTO> getMovementsPage(MovementQuery query, int offset, int size) {
+        if (offset < 0 || size <= 0) {
+            throw new IllegalArgumentException("Finestra di paginazione non valida");
+        }
+        return movementRepository.findSummaryPage(query, offset, size)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countMovements(MovementQuery query) {
+        return movementRepository.countMatching(query);
+    }
+
     @Override
     public long getTotalMovementsCount() {
         return movementRepository.count();
     }
 
+    @Override
+    public int importMovements(List<MovementDTO> movementDTOs) {
+        if (movementDTOs == null || movementDTOs.isEmpty()) {
+            return 0;
+        }
+
+        System.out.println("SERVICE - Importazione di " + movementDTOs.size() + " movimenti");
+        initializeCategoriesIfNeeded();
+
+        // Categorie caricate una volta sola invece di una query per movimento
+        Map<Long, Category> categoriesById = categoryRepository.findAll()
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<Movement> movements = new ArrayList<>(movementDTOs.size());
+        for (MovementDTO dto : movementDTOs) {
+            Movement movement = convertToEntity(dto);
+            if (dto.getCategoryIds() != null) {
+                for (Long categoryId : dto.getCategoryIds()) {
+                    Category category = categoriesById.get(categoryId);
+                    if (category == null) {
+                        throw new RuntimeException(CATEGORY_NOT_FOUND_MESSAGE + " con ID: " + categoryId);
+                    }
+                    movement.addCategory(category);
+                }
+            }
+            movements.add(movement);
+        }
+
+        List<Movement> saved = movementRepository.saveAll(movements);
+
+        // Un solo ricalcolo dei budget a fine importazione
+        if (budgetSyncQueue != null) {
+            budgetSyncQueue.requestFullRecalculation();
+        } else if (budgetServiceAvailable()) {
+            try {
+                budgetService.updateAllBudgetsWithRealMovements();
+            } catch (Exception e) {
+                logBudgetSynchronizationError(e);
+            }
+        }
+
+        System.out.println("SERVICE - Importazione completata: " + saved.size() + " movimenti");
+        return saved.size();
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        // Riparazione: ricalcola i totali mensili precalcolati a partire dai movimenti
+        System.out.println("SERVICE - Ricostruzione totali mensili...");
+        movementRepository.rebuildMonthlyTotals();
+    }
+
     private Movement findMovementById(Long id) {
         return movementRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(MOVEMENT_NOT_FOUND_MESSAGE + " con ID: " + id));
@@ -311,17 +415,36 @@ public class MovementServiceImpl implements MovementService {
         );
     }
 
-    private void synchronizeBudgets(String operation, MovementDTO movementDTO) {
+    private void synchronizeBudgets(String operation, MovementDTO previousState, MovementDTO currentState) {
+        if (budgetSyncQueue != null) {
+            // La scrittura e' gia' confermata: il ricalcolo avviene nel thread di sincronizzazione
+            long version = budgetSyncQueue.submit(previousState, currentState);
+            System.out.println("BUDGET - " + operation + " accodato per la sincronizzazione (versione " + version + ")");
+            return;
+        }
         if (!budgetServiceAvailable()) {
             logBudgetServiceUnavailable();
             return;
         }
 
         try {
-            logBudgetSynchronizationStart(operation, movementDTO);
-            budgetService.updateAllBudgetsWithRealMovements();
+            logBudgetSynchronizationStart(operation, currentState != null ? currentState : previousState);
+            // Stesso ricalcolo del thread di sincronizzazione, limitato ai budget interessati dai due stati
+            budgetService.recalculateBudgets(
+                    budgetService.findBudgetIdsAffectedBy(Arrays.asList(previousState, currentState)));
             logBudgetSynchronizationSuccess();
 
+        } catch (Exception e) {
+            logBudgetSynchronizationError(e);
+            repairBudgets();
+        }
+    }
+
+    private void repairBudgets() {
+        // Se il ricalcolo dei budget interessati fallisce si ricostruiscono tutti i valori
+        try {
+            System.out.println("BUDGET - Ricalcolo completo di riparazione...");
+            budgetService.updateAllBudgetsWithRealMovements();
         } catch (Exception e) {
             logBudgetSynchronizationError(e);
         }
@@ -331,7 +454,7 @@ public class MovementServiceImpl implements MovementService {
         if (budgetServiceAvailable()) {
             try {
                 MovementDTO dto = convertToDTO(movement);
-                synchronizeBudgets(operation, dto);
+                synchronizeBudgets(operation, null, dto);
             } catch (Exception e) {
                 System.err.println("Errore sincronizzazione budget: " + e.getMessage());
             }
@@ -379,6 +502,21 @@ public class MovementServiceImpl implements MovementService {
         return dto;
     }
 
+    private MovementDTO convertToDTO(MovementSummary summary) {
+        MovementDTO dto = new MovementDTO();
+
+        dto.setId(summary.getId());
+        dto.setDescription(summary.getDescription());
+        dto.setAmount(summary.getAmount());
+        dto.setType(summary.getType());
+        dto.setDate(summary.getDate());
+        dto.setNotes(summary.getNotes());
+        dto.setScheduled(summary.isScheduled());
+        dto.setCategoryIds(new ArrayList<>(summary.getCategoryIds()));
+
+        return dto;
+    }
+
     private boolean hasNotes(MovementDTO dto) {
         return dto.getNotes() != null && !dto.getNotes().trim().isEmpty();
     }
@@ -399,9 +537,7 @@ public class MovementServiceImpl implements MovementService {
         }
 
         try {
-            return categoryRepository.findById(categoryId)
-                    .map(Category::getName)
-                    .orElse("Categoria ID:" + categoryId);
+            return categoryNames.nameOrDefault(categoryId, "Categoria ID:" + categoryId);
         } catch (Exception e) {
             return "Categoria ID:" + categoryId;
         }
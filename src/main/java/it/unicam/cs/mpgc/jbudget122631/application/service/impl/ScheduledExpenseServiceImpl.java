@@ -5,12 +5,14 @@ import it.unicam.cs.mpgc.jbudget122631.application.service.MovementService;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurringSeries;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.ScheduledExpenseRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,9 +21,15 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
     private static final int DEFAULT_ATTENTION_DAYS = 3;
     private static final String EXPENSE_NOT_FOUND_MESSAGE = "Spesa programmata non trovata";
     private static final String EXPENSE_ALREADY_COMPLETED_MESSAGE = "Spesa già completata";
+    private static final String RECURRING_JOB = "recurring-expenses";
+    // Limite di occorrenze generate per serie in un singolo passaggio (es. ricorrenze giornaliere dimenticate)
+    private static final int MAX_OCCURRENCES_PER_SERIES = 1000;
 
     private final ScheduledExpenseRepository scheduledExpenseRepository;
     private final MovementService movementService;
+    // Completamento di un'occorrenza e processo in background leggono l'ultima data della serie e poi
+    // salvano: si alternano su questo lock, l'indice univoco (serie, data) copre gli altri processi
+    private final Object recurrenceLock = new Object();
 
     public ScheduledExpenseServiceImpl(ScheduledExpenseRepository scheduledExpenseRepository,
                                        MovementService movementService) {
@@ -52,7 +60,10 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
         validateScheduledExpense(updatedExpense);
         updateExpenseFields(existing, updatedExpense);
 
-        return scheduledExpenseRepository.save(existing);
+        // Il processo in background legge la griglia dell'ultima occorrenza: la nuova va salvata prima
+        synchronized (recurrenceLock) {
+            return scheduledExpenseRepository.save(existing);
+        }
     }
 
     @Override
@@ -111,33 +122,58 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
     public ScheduledExpense createNextOccurrence(Long id) {
         ScheduledExpense expense = findScheduledExpenseById(id);
         ScheduledExpense nextOccurrence = expense.createNextOccurrence();
-        return scheduledExpenseRepository.save(nextOccurrence);
+        synchronized (recurrenceLock) {
+            if (!scheduledExpenseRepository.saveOccurrenceIfAbsent(nextOccurrence)) {
+                throw new IllegalStateException("Occorrenza del " + nextOccurrence.getDueDate() + " gia' presente");
+            }
+        }
+        return nextOccurrence;
     }
 
     @Override
     public void processRecurringExpenses() {
-        List<ScheduledExpense> recurringExpenses = getRecurringExpenses();
+        synchronized (recurrenceLock) {
+            generateDueOccurrences(LocalDate.now());
+        }
+    }
+
+    private void generateDueOccurrences(LocalDate today) {
+        // Una sola query per le serie scadute, poi tutte le occorrenze mancanti in un'unica transazione
+        List<RecurringSeries> dueSeries = scheduledExpenseRepository.findSeriesDueBy(today);
 
-        System.out.println("RECURRING - Processamento " + recurringExpenses.size() + " spese ricorrenti...");
+        System.out.println("RECURRING - Processamento " + dueSeries.size() + " serie ricorrenti scadute...");
 
-        int processedCount = 0;
+        List<ScheduledExpense> occurrences = new ArrayList<>();
         int errorCount = 0;
 
-        for (ScheduledExpense expense : recurringExpenses) {
-            if (shouldCreateNextOccurrence(expense)) {
-                try {
-                    createNextOccurrence(expense.getId());
-                    processedCount++;
-                    System.out.println("RECURRING - Creata prossima occorrenza per: " + expense.getDescription());
-                } catch (Exception e) {
-                    errorCount++;
-                    logRecurrenceError(expense, e);
-                }
+        for (RecurringSeries series : dueSeries) {
+            try {
+                occurrences.addAll(series.occurrencesThrough(today, MAX_OCCURRENCES_PER_SERIES));
+            } catch (Exception e) {
+                errorCount++;
+                logRecurrenceError(series.getLatest(), e);
             }
         }
 
-        System.out.println("RECURRING - Processamento completato: " +
-                processedCount + " successi, " + errorCount + " errori");
+        scheduledExpenseRepository.saveGeneratedOccurrences(occurrences, RECURRING_JOB, today);
+
+        System.out.println("RECURRING - Processamento completato: " + occurrences.size() +
+                " occorrenze generate, " + errorCount + " errori");
+    }
+
+    @Override
+    public boolean processRecurringExpensesIfNeeded() {
+        Optional<LocalDate> processedThrough = scheduledExpenseRepository.findProcessedThrough(RECURRING_JOB);
+        if (processedThrough.isPresent() && !processedThrough.get().isBefore(LocalDate.now())) {
+            return false;
+        }
+        processRecurringExpenses();
+        return true;
+    }
+
+    @Override
+    public Optional<LocalDate> getRecurringProcessedThrough() {
+        return scheduledExpenseRepository.findProcessedThrough(RECURRING_JOB);
     }
 
     @Override
@@ -162,6 +198,10 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
     }
 
     private void updateExpenseFields(ScheduledExpense existing, ScheduledExpense updated) {
+        boolean rescheduled = !existing.getDueDate().equals(updated.getDueDate())
+                || existing.getRecurrenceType() != updated.getRecurrenceType()
+                || !Objects.equals(existing.getRecurrenceInterval(), updated.getRecurrenceInterval());
+
         existing.setDescription(updated.getDescription());
         existing.setAmount(updated.getAmount());
         existing.setType(updated.getType());
@@ -170,6 +210,10 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
         existing.setRecurrenceInterval(updated.getRecurrenceInterval());
         existing.setRecurrenceEndDate(updated.getRecurrenceEndDate());
         existing.setNotes(updated.getNotes());
+
+        if (rescheduled) {
+            existing.restartSeries();
+        }
     }
 
     private void validateExpenseNotCompleted(ScheduledExpense expense) {
@@ -195,18 +239,26 @@ public class ScheduledExpenseServiceImpl implements ScheduledExpenseService {
             return;
         }
 
-        try {
-            ScheduledExpense nextOccurrence = expense.createNextOccurrence();
-            scheduledExpenseRepository.save(nextOccurrence);
-            System.out.println("RECURRING - Creata prossima occorrenza per: " + expense.getDescription());
-        } catch (IllegalStateException e) {
-            // Fine ricorrenza raggiunta - comportamento normale
-            System.out.println("RECURRING - Fine ricorrenza per spesa: " + expense.getDescription());
-        }
-    }
+        synchronized (recurrenceLock) {
+            // Il processo in background puo' aver gia' generato le occorrenze successive della serie
+            Long seriesId = expense.getSeriesId() != null ? expense.getSeriesId() : expense.getId();
+            Optional<LocalDate> latestDueDate = scheduledExpenseRepository.findLatestDueDateInSeries(seriesId);
+            if (latestDueDate.isPresent() && latestDueDate.get().isAfter(expense.getDueDate())) {
+                return;
+            }
 
-    private boolean shouldCreateNextOccurrence(ScheduledExpense expense) {
-        return expense.isCompleted() && expense.getNextDueDate() != null;
+            try {
+                ScheduledExpense nextOccurrence = expense.createNextOccurrence();
+                if (scheduledExpenseRepository.saveOccurrenceIfAbsent(nextOccurrence)) {
+                    System.out.println("RECURRING - Creata prossima occorrenza per: " + expense.getDescription());
+                } else {
+                    System.out.println("RECURRING - Prossima occorrenza gia' presente per: " + expense.getDescription());
+                }
+            } catch (IllegalStateException e) {
+                // Fine ricorrenza raggiunta - comportamento normale
+                System.out.println("RECURRING - Fine ricorrenza per spesa: " + expense.getDescription());
+            }
+        }
     }
 
     private void logRecurrenceError(ScheduledExpense expense, Exception e) {
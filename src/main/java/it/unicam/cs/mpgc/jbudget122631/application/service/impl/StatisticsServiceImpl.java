@@ -13,7 +13,9 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class StatisticsServiceImpl implements StatisticsService {
 
@@ -33,29 +35,38 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final MovementRepository movementRepository;
     private final BudgetRepository budgetRepository;
     private final CategoryRepository categoryRepository;
+    private final PeriodRepository periodRepository;
 
     public StatisticsServiceImpl(MovementRepository movementRepository,
                                  BudgetRepository budgetRepository,
-                                 CategoryRepository categoryRepository) {
+                                 CategoryRepository categoryRepository,
+                                 PeriodRepository periodRepository) {
         this.movementRepository = movementRepository;
         this.budgetRepository = budgetRepository;
         this.categoryRepository = categoryRepository;
+        this.periodRepository = periodRepository;
     }
 
     @Override
     public StatisticsDTO getStatisticsForPeriod(LocalDate startDate, LocalDate endDate) {
         StatisticsDTO stats = new StatisticsDTO(startDate, endDate);
 
-        // Calcola totali generali usando query ottimizzate
-        PeriodTotals totals = calculatePeriodTotals(startDate, endDate);
+        // Totali generali e trend derivati dalla stessa serie mensile
+        List<MonthlyTotal> monthlyTotals = loadMonthlyTotalsByType(startDate, endDate);
+        PeriodTotals totals = new PeriodTotals(
+                MonthlyTotal.sumOfType(monthlyTotals, MovementType.INCOME),
+                MonthlyTotal.sumOfType(monthlyTotals, MovementType.EXPENSE));
         populateBasicStatistics(stats, totals);
 
-        // Calcola statistiche dettagliate per categoria
-        stats.setIncomeByCategory(calculateIncomeByCategory(startDate, endDate));
-        stats.setExpensesByCategory(calculateExpensesByCategory(startDate, endDate));
+        // Calcola statistiche dettagliate per categoria con un'unica aggregazione
+        Map<Long, CategoryTotals> totalsByCategory = loadTotalsByCategory(startDate, endDate);
+        List<Category> activeCategories = categoryRepository.findActiveCategories();
+        stats.setIncomeByCategory(calculateAmountsByCategory(activeCategories, totalsByCategory, true));
+        stats.setExpensesByCategory(calculateAmountsByCategory(activeCategories, totalsByCategory, false));
 
         // Calcola trend mensile per il periodo
-        stats.setMonthlyTrend(calculateMonthlyTrend(startDate, endDate));
+        stats.setMonthlyTrend(fillMissingMonths(startDate, endDate,
+                sumByMonth(monthlyTotals, MonthlyTotal::getSignedTotal)));
 
         return stats;
     }
@@ -65,12 +76,28 @@ public class StatisticsServiceImpl implements StatisticsService {
         Category category = findCategoryById(categoryId);
         StatisticsDTO stats = new StatisticsDTO(startDate, endDate);
 
-        CategoryTotals categoryTotals = calculateCategoryTotals(category, startDate, endDate);
+        CategoryTotals categoryTotals = loadTotalsByCategory(startDate, endDate)
+                .getOrDefault(category.getId(), CategoryTotals.EMPTY);
         populateCategoryStatistics(stats, categoryTotals);
 
         return stats;
     }
 
+    @Override
+    public StatisticsDTO getStatisticsForCategoryTree(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        Category category = findCategoryById(categoryId);
+        StatisticsDTO stats = new StatisticsDTO(startDate, endDate);
+
+        // Categoria e sottocategorie di ogni livello (es. Casa > Utenze > Luce) in una sola query
+        CategoryTotals treeTotals = CategoryTotals.EMPTY;
+        for (CategoryTypeTotal total : movementRepository.getSubtreeTotalsByType(category.getId(), startDate, endDate)) {
+            treeTotals = treeTotals.plus(total.getType(), total.getTotal());
+        }
+        populateCategoryStatistics(stats, treeTotals);
+
+        return stats;
+    }
+
     @Override
     public Map<String, StatisticsDTO> comparePeriodsStatistics(LocalDate period1Start, LocalDate period1End,
                                                                LocalDate period2Start, LocalDate period2End) {
@@ -95,7 +122,7 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     @Override
     public Map<String, Object> getBudgetPerformanceAnalysis(Long periodId) {
-        Period period = findPeriodFromBudgets(periodId);
+        Period period = findPeriodById(periodId);
         List<Budget> budgets = budgetRepository.findByPeriod(period);
 
         return createBudgetAnalysis(budgets);
@@ -103,72 +130,75 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     @Override
     public Map<String, BigDecimal> getTopSpendingCategories(LocalDate startDate, LocalDate endDate, int limit) {
-        List<Category> activeCategories = categoryRepository.findActiveCategories();
+        Map<Long, CategoryTotals> totalsByCategory = loadTotalsByCategory(startDate, endDate);
 
-        return activeCategories.stream()
-                .collect(Collectors.toMap(
-                        Category::getName,
-                        cat -> calculateCategoryExpenses(cat, startDate, endDate)
-                ))
-                .entrySet()
-                .stream()
-                .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) > 0)
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
+        // Classifica per ID: categorie distinte con lo stesso nome restano separate
+        List<Category> topCategories = categoryRepository.findActiveCategories().stream()
+                .filter(cat -> expensesOf(totalsByCategory, cat).compareTo(BigDecimal.ZERO) > 0)
+                .sorted((c1, c2) -> expensesOf(totalsByCategory, c2).compareTo(expensesOf(totalsByCategory, c1)))
                 .limit(limit)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
-    }
+                .collect(Collectors.toList());
 
-    private Category findCategoryById(Long categoryId) {
-        return categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new RuntimeException(CATEGORY_NOT_FOUND_MESSAGE + " con ID: " + categoryId));
+        return labelledAmounts(topCategories, cat -> expensesOf(totalsByCategory, cat));
     }
 
-    private Period findPeriodFromBudgets(Long periodId) {
-        return budgetRepository.findById(periodId)
-                .map(Budget::getPeriod)
-                .orElseThrow(() -> new RuntimeException(PERIOD_NOT_FOUND_MESSAGE + " con ID: " + periodId));
+    private BigDecimal expensesOf(Map<Long, CategoryTotals> totalsByCategory, Category category) {
+        return totalsByCategory.getOrDefault(category.getId(), CategoryTotals.EMPTY).expenses;
     }
 
-    private PeriodTotals calculatePeriodTotals(LocalDate startDate, LocalDate endDate) {
-        BigDecimal totalIncome = movementRepository.getTotalByTypeAndDateRange(
-                MovementType.INCOME, startDate, endDate);
-        BigDecimal totalExpenses = movementRepository.getTotalByTypeAndDateRange(
-                MovementType.EXPENSE, startDate, endDate);
+    // I nomi sono solo per la visualizzazione: se si ripetono si usa il percorso completo
+    private Map<String, BigDecimal> labelledAmounts(List<Category> categories, Function<Category, BigDecimal> amountOf) {
+        Map<String, Long> nameOccurrences = categories.stream()
+                .collect(Collectors.groupingBy(Category::getName, Collectors.counting()));
 
-        return new PeriodTotals(totalIncome, totalExpenses);
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (Category category : categories) {
+            String label = nameOccurrences.get(category.getName()) > 1
+                    ? categoryPathLabel(category)
+                    : category.getName();
+            result.put(label, amountOf.apply(category));
+        }
+        return result;
     }
 
-    private CategoryTotals calculateCategoryTotals(Category category, LocalDate startDate, LocalDate endDate) {
-        List<Movement> movements = getMovementsInDateRange(category, startDate, endDate);
-
-        BigDecimal income = sumMovementsByType(movements, true);
-        BigDecimal expenses = sumMovementsByType(movements, false);
+    // Nome completo "Radice > ... > Categoria"
+    private String categoryPathLabel(Category category) {
+        return Stream.concat(categoryRepository.findAncestors(category).stream(), Stream.of(category))
+                .map(Category::getName)
+                .collect(Collectors.joining(" > "));
+    }
 
-        return new CategoryTotals(income, expenses);
+    private Category findCategoryById(Long categoryId) {
+        return categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new RuntimeException(CATEGORY_NOT_FOUND_MESSAGE + " con ID: " + categoryId));
     }
 
-    private List<Movement> getMovementsInDateRange(Category category, LocalDate startDate, LocalDate endDate) {
-        return movementRepository.findByCategory(category)
-                .stream()
-                .filter(m -> isMovementInDateRange(m, startDate, endDate))
-                .collect(Collectors.toList());
+    private Period findPeriodById(Long periodId) {
+        return periodRepository.findById(periodId)
+                .orElseThrow(() -> new RuntimeException(PERIOD_NOT_FOUND_MESSAGE + " con ID: " + periodId));
     }
 
-    private boolean isMovementInDateRange(Movement movement, LocalDate startDate, LocalDate endDate) {
-        LocalDate movementDate = movement.getDate();
-        return !movementDate.isBefore(startDate) && !movementDate.isAfter(endDate);
+    // Per intervalli di mesi interi si leggono i totali precalcolati invece dei movimenti
+    private List<MonthlyTotal> loadMonthlyTotalsByType(LocalDate startDate, LocalDate endDate) {
+        if (MonthlyTotal.coversWholeMonths(startDate, endDate)) {
+            return movementRepository.getRollupTotalsByType(YearMonth.from(startDate), YearMonth.from(endDate));
+        }
+        return movementRepository.getMonthlyTotalsByType(startDate, endDate);
     }
 
-    private BigDecimal sumMovementsByType(List<Movement> movements, boolean isIncome) {
-        return movements.stream()
-                .filter(m -> isIncome ? m.isIncome() : m.isExpense())
-                .map(Movement::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Map<Long, CategoryTotals> loadTotalsByCategory(LocalDate startDate, LocalDate endDate) {
+        Map<Long, CategoryTotals> totals = new HashMap<>();
+
+        List<CategoryTypeTotal> rows = MonthlyTotal.coversWholeMonths(startDate, endDate)
+                ? movementRepository.getRollupTotalsByCategoryAndType(YearMonth.from(startDate), YearMonth.from(endDate))
+                : movementRepository.getTotalsByCategoryAndType(startDate, endDate);
+
+        for (CategoryTypeTotal row : rows) {
+            CategoryTotals current = totals.getOrDefault(row.getCategoryId(), CategoryTotals.EMPTY);
+            totals.put(row.getCategoryId(), current.plus(row.getType(), row.getTotal()));
+        }
+
+        return totals;
     }
 
     private void populateBasicStatistics(StatisticsDTO stats, PeriodTotals totals) {
@@ -183,90 +213,60 @@ public class StatisticsServiceImpl implements StatisticsService {
         stats.setBalance(totals.income.subtract(totals.expenses));
     }
 
-    private Map<String, BigDecimal> calculateIncomeByCategory(LocalDate startDate, LocalDate endDate) {
-        return calculateAmountsByCategory(startDate, endDate, true);
-    }
-
-    private Map<String, BigDecimal> calculateExpensesByCategory(LocalDate startDate, LocalDate endDate) {
-        return calculateAmountsByCategory(startDate, endDate, false);
-    }
+    private Map<String, BigDecimal> calculateAmountsByCategory(List<Category> activeCategories,
+                                                               Map<Long, CategoryTotals> totalsByCategory,
+                                                               boolean isIncome) {
+        Function<Category, BigDecimal> amountOf = category -> {
+            CategoryTotals totals = totalsByCategory.getOrDefault(category.getId(), CategoryTotals.EMPTY);
+            return isIncome ? totals.income : totals.expenses;
+        };
 
-    private Map<String, BigDecimal> calculateAmountsByCategory(LocalDate startDate, LocalDate endDate, boolean isIncome) {
-        List<Category> activeCategories = categoryRepository.findActiveCategories();
-        Map<String, BigDecimal> result = new LinkedHashMap<>();
-
-        for (Category category : activeCategories) {
-            BigDecimal total = calculateCategoryAmountByType(category, startDate, endDate, isIncome);
-
-            if (total.compareTo(BigDecimal.ZERO) > 0) {
-                result.put(category.getName(), total);
-            }
-        }
-
-        return result;
-    }
-
-    private BigDecimal calculateCategoryAmountByType(Category category, LocalDate startDate, LocalDate endDate, boolean isIncome) {
-        List<Movement> movements = getMovementsInDateRange(category, startDate, endDate);
-        return sumMovementsByType(movements, isIncome);
-    }
+        List<Category> withAmounts = activeCategories.stream()
+                .filter(category -> amountOf.apply(category).compareTo(BigDecimal.ZERO) > 0)
+                .collect(Collectors.toList());
 
-    private BigDecimal calculateCategoryExpenses(Category category, LocalDate startDate, LocalDate endDate) {
-        return calculateCategoryAmountByType(category, startDate, endDate, false);
+        return labelledAmounts(withAmounts, amountOf);
     }
 
     private Map<String, BigDecimal> calculateMonthlyTrend(LocalDate startDate, LocalDate endDate) {
-        Map<String, BigDecimal> monthlyTrend = new LinkedHashMap<>();
-
-        processMonthsInRange(startDate, endDate, (monthStart, monthEnd, yearMonth) -> {
-            BigDecimal monthlyBalance = calculateMonthlyBalance(monthStart, monthEnd);
-            monthlyTrend.put(yearMonth.toString(), monthlyBalance);
-        });
+        // Saldo mensile (entrate - uscite) dall'intera serie caricata con una sola query
+        Map<YearMonth, BigDecimal> monthlyBalances = sumByMonth(
+                loadMonthlyTotalsByType(startDate, endDate), MonthlyTotal::getSignedTotal);
 
-        return monthlyTrend;
+        return fillMissingMonths(startDate, endDate, monthlyBalances);
     }
 
     private Map<String, BigDecimal> calculateCategoryMonthlyTrend(Category category, LocalDate startDate, LocalDate endDate) {
-        Map<String, BigDecimal> trend = new LinkedHashMap<>();
+        List<MonthlyTotal> rows = MonthlyTotal.coversWholeMonths(startDate, endDate)
+                ? movementRepository.getRollupTotalsByCategory(category.getId(), YearMonth.from(startDate), YearMonth.from(endDate))
+                : movementRepository.getMonthlyTotalsByCategory(category, startDate, endDate);
+        Map<YearMonth, BigDecimal> monthlyTotals = sumByMonth(rows, MonthlyTotal::getTotal);
 
-        processMonthsInRange(startDate, endDate, (monthStart, monthEnd, yearMonth) -> {
-            BigDecimal monthlyTotal = movementRepository.getTotalByCategoryAndDateRange(category, monthStart, monthEnd);
-            trend.put(yearMonth.toString(), monthlyTotal);
-        });
+        return fillMissingMonths(startDate, endDate, monthlyTotals);
+    }
 
-        return trend;
+    private Map<YearMonth, BigDecimal> sumByMonth(List<MonthlyTotal> rows, Function<MonthlyTotal, BigDecimal> valueExtractor) {
+        Map<YearMonth, BigDecimal> result = new HashMap<>();
+        for (MonthlyTotal row : rows) {
+            result.merge(row.getYearMonth(), valueExtractor.apply(row), BigDecimal::add);
+        }
+        return result;
     }
 
-    private void processMonthsInRange(LocalDate startDate, LocalDate endDate, MonthProcessor processor) {
-        YearMonth start = YearMonth.from(startDate);
+    private Map<String, BigDecimal> fillMissingMonths(LocalDate startDate, LocalDate endDate,
+                                                      Map<YearMonth, BigDecimal> monthlyValues) {
+        Map<String, BigDecimal> trend = new LinkedHashMap<>();
+
+        YearMonth current = YearMonth.from(startDate);
         YearMonth end = YearMonth.from(endDate);
 
-        YearMonth current = start;
+        // I mesi senza movimenti non compaiono nel GROUP BY: vanno riempiti a zero
         while (!current.isAfter(end)) {
-            DateRange monthRange = calculateMonthRange(current, startDate, endDate);
-            processor.process(monthRange.start, monthRange.end, current);
+            trend.put(current.toString(), monthlyValues.getOrDefault(current, BigDecimal.ZERO));
             current = current.plusMonths(1);
         }
-    }
-
-    private DateRange calculateMonthRange(YearMonth yearMonth, LocalDate periodStart, LocalDate periodEnd) {
-        LocalDate monthStart = yearMonth.atDay(1);
-        LocalDate monthEnd = yearMonth.atEndOfMonth();
 
-        // Adatta alle date del periodo se necessario
-        if (monthStart.isBefore(periodStart)) monthStart = periodStart;
-        if (monthEnd.isAfter(periodEnd)) monthEnd = periodEnd;
-
-        return new DateRange(monthStart, monthEnd);
-    }
-
-    private BigDecimal calculateMonthlyBalance(LocalDate monthStart, LocalDate monthEnd) {
-        BigDecimal monthlyIncome = movementRepository.getTotalByTypeAndDateRange(
-                MovementType.INCOME, monthStart, monthEnd);
-        BigDecimal monthlyExpenses = movementRepository.getTotalByTypeAndDateRange(
-                MovementType.EXPENSE, monthStart, monthEnd);
-
-        return monthlyIncome.subtract(monthlyExpenses);
+        return trend;
     }
 
     private Map<String, Object> createBudgetAnalysis(List<Budget> budgets) {
@@ -310,21 +310,6 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .doubleValue();
     }
 
-    @FunctionalInterface
-    private interface MonthProcessor {
-        void process(LocalDate monthStart, LocalDate monthEnd, YearMonth yearMonth);
-    }
-
-    private static class DateRange {
-        final LocalDate start;
-        final LocalDate end;
-
-        DateRange(LocalDate start, LocalDate end) {
-            this.start = start;
-            this.end = end;
-        }
-    }
-
     private static class PeriodTotals {
         final BigDecimal income;
         final BigDecimal expenses;
@@ -336,6 +321,8 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
 
     private static class CategoryTotals {
+        static final CategoryTotals EMPTY = new CategoryTotals(BigDecimal.ZERO, BigDecimal.ZERO);
+
         final BigDecimal income;
         final BigDecimal expenses;
 
@@ -343,6 +330,12 @@ public class StatisticsServiceImpl implements StatisticsService {
             this.income = income;
             this.expenses = expenses;
         }
+
+        CategoryTotals plus(MovementType type, BigDecimal amount) {
+            return type == MovementType.INCOME
+                    ? new CategoryTotals(income.add(amount), expenses)
+                    : new CategoryTotals(income, expenses.add(amount));
+        }
     }
 
     private static class BudgetMetrics {
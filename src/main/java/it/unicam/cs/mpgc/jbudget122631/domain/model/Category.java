@@ -94,6 +94,50 @@ public class Category {
         return descendants;
     }
 
+    // Copia indipendente per le cache: antenati e figli gia' caricati sono copiati a loro volta,
+    // le associazioni non ancora caricate restano riferimenti lazy
+    public Category copy() {
+        return copy(new IdentityHashMap<>(), Persistence.getPersistenceUtil());
+    }
+
+    // Come copy(), con una sola copia per categoria anche se raggiungibile da piu' elementi della lista
+    public static List<Category> copyAll(Collection<Category> categories) {
+        Map<Category, Category> copies = new IdentityHashMap<>();
+        PersistenceUtil persistence = Persistence.getPersistenceUtil();
+        List<Category> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            result.add(category.copy(copies, persistence));
+        }
+        return result;
+    }
+
+    Category copy(Map<Category, Category> copies, PersistenceUtil persistence) {
+        Category existing = copies.get(this);
+        if (existing != null) {
+            return existing;
+        }
+
+        Category copy = new Category();
+        copy.id = id;
+        copy.name = name;
+        copy.description = description;
+        copy.active = active;
+        copies.put(this, copy);
+
+        if (parent != null) {
+            copy.parent = persistence.isLoaded(parent) ? parent.copy(copies, persistence) : parent;
+        }
+        if (persistence.isLoaded(this, "children")) {
+            copy.children = new HashSet<>();
+            for (Category child : children) {
+                copy.children.add(child.copy(copies, persistence));
+            }
+        } else {
+            copy.children = children;
+        }
+        return copy;
+    }
+
     public Long getId() { return id; }
     public String getName() { return name; }
     public String getDescription() { return description; }
@@ -0,0 +1,27 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+public class CategoryTypeTotal {
+
+    private final Long categoryId;
+    private final MovementType type;
+    private final BigDecimal total;
+
+    // Usato anche come constructor expression nelle query HQL di aggregazione
+    public CategoryTypeTotal(Long categoryId, MovementType type, BigDecimal total) {
+        this.categoryId = Objects.requireNonNull(categoryId, "ID categoria richiesto");
+        this.type = Objects.requireNonNull(type, "Tipo movimento richiesto");
+        this.total = total != null ? total : BigDecimal.ZERO;
+    }
+
+    public Long getCategoryId() { return categoryId; }
+    public MovementType getType() { return type; }
+    public BigDecimal getTotal() { return total; }
+
+    @Override
+    public String toString() {
+        return String.format("Categoria %d - %s: %s", categoryId, type.getDescription(), total);
+    }
+}
@@ -0,0 +1,49 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Objects;
+
+public class MonthlyTotal {
+
+    private final YearMonth yearMonth;
+    private final MovementType type;
+    private final BigDecimal total;
+
+    // Usato come constructor expression nelle query HQL raggruppate per YEAR/MONTH
+    public MonthlyTotal(Integer year, Integer month, MovementType type, BigDecimal total) {
+        this.yearMonth = YearMonth.of(year, month);
+        this.type = Objects.requireNonNull(type, "Tipo movimento richiesto");
+        this.total = total != null ? total : BigDecimal.ZERO;
+    }
+
+    public YearMonth getYearMonth() { return yearMonth; }
+    public MovementType getType() { return type; }
+    public BigDecimal getTotal() { return total; }
+
+    public BigDecimal getSignedTotal() {
+        return type == MovementType.INCOME ? total : total.negate();
+    }
+
+    public static BigDecimal sumOfType(Collection<MonthlyTotal> totals, MovementType type) {
+        return totals.stream()
+                .filter(total -> total.getType() == type)
+                .map(MonthlyTotal::getTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Un intervallo di mesi interi puo' essere letto dai totali mensili precalcolati
+    public static boolean coversWholeMonths(LocalDate startDate, LocalDate endDate) {
+        return startDate != null && endDate != null
+                && !startDate.isAfter(endDate)
+                && startDate.getDayOfMonth() == 1
+                && endDate.equals(YearMonth.from(endDate).atEndOfMonth());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - %s: %s", yearMonth, type.getDescription(), total);
+    }
+}
@@ -10,8 +10,10 @@ import java.util.*;
 @Table(name = "movements")
 public class Movement {
 
+    // Sequenza con allocazione a blocchi: IDENTITY impedirebbe il batching degli insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movements_seq")
+    @SequenceGenerator(name = "movements_seq", sequenceName = "movements_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
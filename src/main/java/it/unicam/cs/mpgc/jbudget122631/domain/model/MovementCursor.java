@@ -0,0 +1,41 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class MovementCursor {
+
+    private final LocalDate date;
+    private final Long id;
+
+    // Posizione nell'ordinamento (date DESC, id DESC): la pagina successiva parte dopo questa coppia
+    public MovementCursor(LocalDate date, Long id) {
+        this.date = Objects.requireNonNull(date, "Data cursore richiesta");
+        this.id = Objects.requireNonNull(id, "ID cursore richiesto");
+    }
+
+    public static MovementCursor after(Movement movement) {
+        return new MovementCursor(movement.getDate(), movement.getId());
+    }
+
+    public LocalDate getDate() { return date; }
+    public Long getId() { return id; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MovementCursor)) return false;
+        MovementCursor that = (MovementCursor) o;
+        return Objects.equals(date, that.date) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MovementCursor{date=%s, id=%d}", date, id);
+    }
+}
@@ -0,0 +1,132 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+// Filtri e ordinamento di un elenco di movimenti, applicati dal database
+public class MovementQuery {
+
+    public enum SortField {
+        DATE, DESCRIPTION, AMOUNT, TYPE
+    }
+
+    private final MovementType type;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final String text;
+    private final Long categoryId;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final SortField sortField;
+    private final boolean ascending;
+
+    public MovementQuery(MovementType type, LocalDate startDate, LocalDate endDate, String text,
+                         SortField sortField, boolean ascending) {
+        this(type, startDate, endDate, text, null, null, null, sortField, ascending);
+    }
+
+    private MovementQuery(MovementType type, LocalDate startDate, LocalDate endDate, String text,
+                          Long categoryId, BigDecimal minAmount, BigDecimal maxAmount,
+                          SortField sortField, boolean ascending) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Data inizio deve essere precedente alla data fine");
+        }
+        if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("Importo minimo deve essere inferiore all'importo massimo");
+        }
+        this.type = type;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.text = text != null && !text.trim().isEmpty() ? text.trim() : null;
+        this.categoryId = categoryId;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.sortField = sortField != null ? sortField : SortField.DATE;
+        this.ascending = ascending;
+    }
+
+    // Tutti i movimenti dal piu' recente, come findAllSummaries
+    public static MovementQuery all() {
+        return new MovementQuery(null, null, null, null, SortField.DATE, false);
+    }
+
+    public MovementQuery sortedBy(SortField sortField, boolean ascending) {
+        return new MovementQuery(type, startDate, endDate, text, categoryId, minAmount, maxAmount, sortField, ascending);
+    }
+
+    public MovementQuery withCategory(Long categoryId) {
+        return new MovementQuery(type, startDate, endDate, text, categoryId, minAmount, maxAmount, sortField, ascending);
+    }
+
+    public MovementQuery withAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        return new MovementQuery(type, startDate, endDate, text, categoryId, minAmount, maxAmount, sortField, ascending);
+    }
+
+    // Vero se ogni movimento selezionato da questa query e' selezionato anche dall'altra (ordinamento escluso):
+    // i risultati possono allora essere ottenuti filtrando quelli dell'altra query
+    public boolean refines(MovementQuery other) {
+        return (other.type == null || other.type == type)
+                && (other.startDate == null || (startDate != null && !startDate.isBefore(other.startDate)))
+                && (other.endDate == null || (endDate != null && !endDate.isAfter(other.endDate)))
+                && (other.text == null || (text != null && textRefines(other)))
+                && (other.categoryId == null || other.categoryId.equals(categoryId))
+                && (other.minAmount == null || (minAmount != null && minAmount.compareTo(other.minAmount) >= 0))
+                && (other.maxAmount == null || (maxAmount != null && maxAmount.compareTo(other.maxAmount) <= 0));
+    }
+
+    // Ogni termine dell'altra query e' prefisso di un termine di questa: una parola che inizia con il
+    // termine piu' lungo inizia anche con quello piu' corto
+    private boolean textRefines(MovementQuery other) {
+        List<String> terms = getTextTerms();
+        List<String> otherTerms = other.getTextTerms();
+        if (terms.isEmpty()) {
+            // Testo senza parole: questa query non seleziona nulla
+            return true;
+        }
+        if (otherTerms.isEmpty()) {
+            return false;
+        }
+        return otherTerms.stream().allMatch(otherTerm -> terms.stream().anyMatch(term -> term.startsWith(otherTerm)));
+    }
+
+    public boolean hasText() {
+        return text != null;
+    }
+
+    public MovementType getType() { return type; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public String getText() { return text; }
+    // Termini come li confronta l'indice di ricerca: minuscoli, senza accenti, uno per parola
+    public List<String> getTextTerms() { return SearchTerms.tokenize(text); }
+    public Long getCategoryId() { return categoryId; }
+    public BigDecimal getMinAmount() { return minAmount; }
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public SortField getSortField() { return sortField; }
+    public boolean isAscending() { return ascending; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MovementQuery)) return false;
+        MovementQuery that = (MovementQuery) o;
+        return ascending == that.ascending && type == that.type
+                && Objects.equals(startDate, that.startDate) && Objects.equals(endDate, that.endDate)
+                && Objects.equals(text, that.text) && Objects.equals(categoryId, that.categoryId)
+                && Objects.equals(minAmount, that.minAmount) && Objects.equals(maxAmount, that.maxAmount)
+                && sortField == that.sortField;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, startDate, endDate, text, categoryId, minAmount, maxAmount, sortField, ascending);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MovementQuery{type=%s, startDate=%s, endDate=%s, text='%s', categoryId=%s, amount=[%s, %s], sort=%s %s}",
+                type, startDate, endDate, text, categoryId, minAmount, maxAmount, sortField, ascending ? "ASC" : "DESC");
+    }
+}
@@ -0,0 +1,66 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Riga piatta in sola lettura per gli elenchi: nessuna entita' gestita, categorie ridotte ai soli ID
+public class MovementSummary {
+
+    private final Long id;
+    private final String description;
+    private final BigDecimal amount;
+    private final MovementType type;
+    private final LocalDate date;
+    private final String notes;
+    private final boolean scheduled;
+    private final List<Long> categoryIds = new ArrayList<>(2);
+
+    public MovementSummary(Long id, String description, BigDecimal amount, MovementType type,
+                           LocalDate date, String notes, boolean scheduled) {
+        this.id = Objects.requireNonNull(id, "ID movimento richiesto");
+        this.description = description;
+        this.amount = amount != null ? amount : BigDecimal.ZERO;
+        this.type = type;
+        this.date = date;
+        this.notes = notes;
+        this.scheduled = scheduled;
+    }
+
+    public void addCategoryId(Long categoryId) {
+        if (categoryId != null && !categoryIds.contains(categoryId)) {
+            categoryIds.add(categoryId);
+        }
+    }
+
+    public Long getId() { return id; }
+    public String getDescription() { return description; }
+    public BigDecimal getAmount() { return amount; }
+    public MovementType getType() { return type; }
+    public LocalDate getDate() { return date; }
+    public String getNotes() { return notes; }
+    public boolean isScheduled() { return scheduled; }
+    public List<Long> getCategoryIds() { return Collections.unmodifiableList(categoryIds); }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MovementSummary)) return false;
+        MovementSummary that = (MovementSummary) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MovementSummary{id=%d, description='%s', amount=%s, type=%s, date=%s, categoryIds=%s}",
+                id, description, amount, type, date, categoryIds);
+    }
+}
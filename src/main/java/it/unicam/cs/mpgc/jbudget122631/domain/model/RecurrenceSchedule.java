@@ -0,0 +1,117 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Calendario di una ricorrenza: la k-esima occorrenza si calcola direttamente dalla data iniziale,
+// senza iterare sulle precedenti. Mesi e anni sono sempre aggiunti alla data iniziale, quindi una
+// scadenza al 31 cade a fine mese nei mesi piu' corti e torna al 31 in quelli che lo prevedono.
+public class RecurrenceSchedule {
+
+    private final RecurrenceType type;
+    private final int interval;
+    private final LocalDate start;
+    private final LocalDate endDate;
+
+    public RecurrenceSchedule(RecurrenceType type, Integer interval, LocalDate start, LocalDate endDate) {
+        this.type = Objects.requireNonNull(type, "Tipo ricorrenza richiesto");
+        this.start = Objects.requireNonNull(start, "Data iniziale richiesta");
+        if (interval != null && interval <= 0) {
+            throw new IllegalArgumentException("Intervallo ricorrenza deve essere > 0");
+        }
+        this.interval = interval != null ? interval : 1;
+        this.endDate = endDate;
+    }
+
+    public boolean isRecurring() {
+        return type != RecurrenceType.NONE;
+    }
+
+    // Occorrenza di indice k (0 = data iniziale), senza considerare la data di fine
+    public LocalDate occurrence(long k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Indice occorrenza deve essere >= 0");
+        }
+        long steps = Math.multiplyExact(k, (long) interval);
+        switch (type) {
+            case DAILY:
+                return start.plusDays(steps);
+            case WEEKLY:
+                return start.plusWeeks(steps);
+            case MONTHLY:
+                return start.plusMonths(steps);
+            case YEARLY:
+                return start.plusYears(steps);
+            default:
+                if (k > 0) {
+                    throw new IllegalStateException("Spesa non ricorrente");
+                }
+                return start;
+        }
+    }
+
+    // Prima occorrenza successiva alla data, oppure null se la ricorrenza e' terminata
+    public LocalDate firstAfter(LocalDate date) {
+        if (!isRecurring()) {
+            return null;
+        }
+        LocalDate next = occurrence(firstIndexAfter(date));
+        return withinEnd(next) ? next : null;
+    }
+
+    // Occorrenze comprese in [from, to], generate solo quando consumate
+    public Stream<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return Stream.empty();
+        }
+        if (!isRecurring()) {
+            return !start.isBefore(from) && !start.isAfter(to) && withinEnd(start) ? Stream.of(start) : Stream.empty();
+        }
+
+        LocalDate last = endDate != null && endDate.isBefore(to) ? endDate : to;
+        long first = firstIndexAfter(from.minusDays(1));
+        return LongStream.iterate(first, k -> k + 1)
+                .mapToObj(this::occurrence)
+                .takeWhile(date -> !date.isAfter(last));
+    }
+
+    private long firstIndexAfter(LocalDate date) {
+        if (date.isBefore(start)) {
+            return 0;
+        }
+
+        // Stima per difetto dell'indice, poi al massimo un paio di passi per assorbire l'arrotondamento a fine mese
+        long k = elapsedUnits(date) / interval;
+        while (!occurrence(k).isAfter(date)) {
+            k++;
+        }
+        return k;
+    }
+
+    private long elapsedUnits(LocalDate date) {
+        switch (type) {
+            case DAILY:
+                return ChronoUnit.DAYS.between(start, date);
+            case WEEKLY:
+                return ChronoUnit.WEEKS.between(start, date);
+            case MONTHLY:
+                return ChronoUnit.MONTHS.between(start, date);
+            case YEARLY:
+                return ChronoUnit.YEARS.between(start, date);
+            default:
+                return 0;
+        }
+    }
+
+    private boolean withinEnd(LocalDate date) {
+        return endDate == null || !date.isAfter(endDate);
+    }
+
+    public RecurrenceType getType() { return type; }
+    public int getInterval() { return interval; }
+    public LocalDate getStart() { return start; }
+    public LocalDate getEndDate() { return endDate; }
+}
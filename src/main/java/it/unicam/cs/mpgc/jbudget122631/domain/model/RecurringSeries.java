@@ -0,0 +1,45 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// Serie ricorrente vista dalla sua ultima occorrenza: le date successive sono ancorate alla prima
+// scadenza della serie, cosi' l'arrotondamento a fine mese di un'occorrenza non si propaga alle altre
+public class RecurringSeries {
+
+    private final ScheduledExpense latest;
+
+    public RecurringSeries(ScheduledExpense latest) {
+        this.latest = Objects.requireNonNull(latest, "Ultima occorrenza richiesta");
+    }
+
+    public RecurrenceSchedule getSchedule() {
+        return latest.getRecurrenceSchedule();
+    }
+
+    // Occorrenze mancanti fino alla data compresa, piu' la prima successiva come prossima scadenza
+    public List<ScheduledExpense> occurrencesThrough(LocalDate date, int maxOccurrences) {
+        RecurrenceSchedule schedule = getSchedule();
+
+        List<LocalDate> dates = schedule.occurrencesBetween(latest.getDueDate().plusDays(1), date)
+                .limit(maxOccurrences)
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        if (dates.size() < maxOccurrences) {
+            LocalDate upcoming = schedule.firstAfter(date);
+            if (upcoming != null && upcoming.isAfter(latest.getDueDate())) {
+                dates.add(upcoming);
+            }
+        }
+
+        return dates.stream()
+                .map(latest::createOccurrenceOn)
+                .collect(Collectors.toList());
+    }
+
+    public ScheduledExpense getLatest() { return latest; }
+    public LocalDate getFirstDueDate() { return latest.getSeriesStartDate(); }
+}
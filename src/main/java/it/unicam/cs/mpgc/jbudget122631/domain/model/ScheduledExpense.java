@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Entity
 @Table(name = "scheduled_expenses")
@@ -37,6 +38,13 @@ public class ScheduledExpense {
 
     private LocalDate recurrenceEndDate;
 
+    // Prima spesa della serie ricorrente: condiviso da tutte le occorrenze generate
+    private Long seriesId;
+
+    // Prima scadenza della serie, da cui si calcolano le date delle occorrenze generate: una data
+    // arrotondata a fine mese (31 gennaio -> 28 febbraio) non sposta quelle successive
+    private LocalDate seriesStartDate;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "scheduled_expense_categories",
@@ -112,34 +120,20 @@ public class ScheduledExpense {
     }
 
     public LocalDate getNextDueDate() {
-        if (!isRecurring()) return null;
+        return getNextDueDateAfter(LocalDate.now());
+    }
 
-        LocalDate nextDate = dueDate;
-        LocalDate today = LocalDate.now();
+    public LocalDate getNextDueDateAfter(LocalDate date) {
+        if (!isRecurring()) return null;
+        return getRecurrenceSchedule().firstAfter(date);
+    }
 
-        while (!nextDate.isAfter(today)) {
-            nextDate = calculateNextOccurrence(nextDate);
-            if (recurrenceEndDate != null && nextDate.isAfter(recurrenceEndDate)) {
-                return null;
-            }
-        }
+    public Stream<LocalDate> getOccurrencesBetween(LocalDate from, LocalDate to) {
+        return getRecurrenceSchedule().occurrencesBetween(from, to);
+    }
 
-        return nextDate;
-    }
-
-    private LocalDate calculateNextOccurrence(LocalDate currentDate) {
-        switch (recurrenceType) {
-            case DAILY:
-                return currentDate.plusDays(recurrenceInterval);
-            case WEEKLY:
-                return currentDate.plusWeeks(recurrenceInterval);
-            case MONTHLY:
-                return currentDate.plusMonths(recurrenceInterval);
-            case YEARLY:
-                return currentDate.plusYears(recurrenceInterval);
-            default:
-                return currentDate;
-        }
+    public RecurrenceSchedule getRecurrenceSchedule() {
+        return new RecurrenceSchedule(recurrenceType, recurrenceInterval, getSeriesStartDate(), recurrenceEndDate);
     }
 
     public Movement createMovement() {
@@ -163,19 +157,37 @@ public class ScheduledExpense {
             throw new IllegalStateException("Spesa non ricorrente");
         }
 
-        LocalDate nextDate = getNextDueDate();
+        // Successiva a questa occorrenza anche se scade nei prossimi giorni
+        LocalDate today = LocalDate.now();
+        LocalDate nextDate = getNextDueDateAfter(dueDate.isAfter(today) ? dueDate : today);
         if (nextDate == null) {
             throw new IllegalStateException("Nessuna prossima occorrenza disponibile");
         }
 
-        ScheduledExpense nextOccurrence = new ScheduledExpense(description, amount, type, nextDate);
-        nextOccurrence.setRecurrenceType(recurrenceType);
-        nextOccurrence.setRecurrenceInterval(recurrenceInterval);
-        nextOccurrence.setRecurrenceEndDate(recurrenceEndDate);
-        nextOccurrence.setNotes(notes);
-        categories.forEach(nextOccurrence::addCategory);
+        return createOccurrenceOn(nextDate);
+    }
+
+    public ScheduledExpense createOccurrenceOn(LocalDate occurrenceDate) {
+        if (!isRecurring()) {
+            throw new IllegalStateException("Spesa non ricorrente");
+        }
+
+        ScheduledExpense occurrence = new ScheduledExpense(description, amount, type, occurrenceDate);
+        occurrence.setRecurrenceType(recurrenceType);
+        occurrence.setRecurrenceInterval(recurrenceInterval);
+        occurrence.setRecurrenceEndDate(recurrenceEndDate);
+        occurrence.setNotes(notes);
+        occurrence.seriesId = seriesId != null ? seriesId : id;
+        occurrence.seriesStartDate = getSeriesStartDate();
+        categories.forEach(occurrence::addCategory);
 
-        return nextOccurrence;
+        return occurrence;
+    }
+
+    // Scadenza o ricorrenza modificate: le occorrenze successive seguono la nuova griglia
+    public void restartSeries() {
+        this.seriesStartDate = dueDate;
+        updateTimestamp();
     }
 
     private void updateTimestamp() {
@@ -190,6 +202,9 @@ public class ScheduledExpense {
     public RecurrenceType getRecurrenceType() { return recurrenceType; }
     public Integer getRecurrenceInterval() { return recurrenceInterval; }
     public LocalDate getRecurrenceEndDate() { return recurrenceEndDate; }
+    public Long getSeriesId() { return seriesId; }
+    // La prima spesa della serie non ha una data di inizio propria: e' la sua scadenza
+    public LocalDate getSeriesStartDate() { return seriesStartDate != null ? seriesStartDate : dueDate; }
     public Set<Category> getCategories() { return new HashSet<>(categories); }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
@@ -241,6 +256,10 @@ public class ScheduledExpense {
         updateTimestamp();
     }
 
+    public void setSeriesId(Long seriesId) {
+        this.seriesId = seriesId;
+    }
+
     public void setNotes(String notes) {
         this.notes = notes;
         updateTimestamp();
@@ -0,0 +1,55 @@
+package it.unicam.cs.mpgc.jbudget122631.domain.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Regole comuni della ricerca testuale sui movimenti: parole in minuscolo senza accenti,
+// ogni termine cercato deve essere il prefisso di una parola
+public final class SearchTerms {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private SearchTerms() {}
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Parole ordinate e senza duplicati
+    public static String[] sortedTokens(String... texts) {
+        List<String> tokens = new ArrayList<>();
+        for (String text : texts) {
+            tokens.addAll(tokenize(text));
+        }
+        return tokens.stream().distinct().sorted().toArray(String[]::new);
+    }
+
+    // Vero se il termine e' prefisso di una delle parole ordinate: basta la prima parola >= termine
+    public static boolean hasWordWithPrefix(String[] sortedTokens, String term) {
+        int low = 0;
+        int high = sortedTokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedTokens[mid].compareTo(term) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < sortedTokens.length && sortedTokens[low].startsWith(term);
+    }
+}
@@ -4,14 +4,18 @@ import it.unicam.cs.mpgc.jbudget122631.domain.model.Budget;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BudgetRepository {
 
     Budget save(Budget budget);
     Optional<Budget> findById(Long id);
     List<Budget> findAll();
+    void scrollAll(Consumer<Budget> action);
     void delete(Budget budget);
     void deleteById(Long id);
 
@@ -24,5 +28,9 @@ public interface BudgetRepository {
     List<Budget> findOverBudgets();
     List<Budget> findByPeriodOrderByVariance(Period period);
 
+    List<Budget> findByDate(LocalDate date);
+    // Solo i valori reali: importi pianificati e note modificati nel frattempo restano invariati
+    void updateActuals(Long budgetId, BigDecimal actualIncome, BigDecimal actualExpenses);
+
     long count();
 }
\ No newline at end of file
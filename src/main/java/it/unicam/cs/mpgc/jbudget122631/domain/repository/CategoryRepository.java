@@ -8,6 +8,8 @@ import java.util.Optional;
 public interface CategoryRepository {
 
     Category save(Category category);
+    // Nuova categoria collegata al parent nella gerarchia con un'unica transazione
+    Category saveWithParent(Category category, Long parentId);
     Optional<Category> findById(Long id);
     List<Category> findAll();
     void delete(Category category);
@@ -18,8 +20,11 @@ public interface CategoryRepository {
     List<Category> findRootCategories();
     List<Category> findActiveCategories();
 
+    // Gerarchia letta dalla tabella di chiusura: un'unica query a qualsiasi profondita'
     List<Category> findDescendants(Category category);
     List<Category> findAncestors(Category category);
+    List<Long> findDescendantIds(Long categoryId);
+    void moveInHierarchy(Long categoryId, Long newParentId);
     boolean existsByNameAndParent(String name, Category parent);
 
     long count();
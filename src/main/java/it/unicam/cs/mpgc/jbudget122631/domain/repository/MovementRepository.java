@@ -3,16 +3,24 @@ package it.unicam.cs.mpgc.jbudget122631.domain.repository;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.CategoryTypeTotal;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MonthlyTotal;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementCursor;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementSummary;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface MovementRepository {
 
     Movement save(Movement movement);
+    List<Movement> saveAll(Collection<Movement> movements);
     Optional<Movement> findById(Long id);
     List<Movement> findAll();
     void delete(Movement movement);
@@ -24,13 +32,38 @@ public interface MovementRepository {
     List<Movement> findByCategoriesContaining(Category category);
     List<Movement> findByPeriod(Period period);
 
+    // Proiezioni per gli elenchi in sola lettura: righe piatte con gli ID categoria, senza entita' gestite
+    List<MovementSummary> findAllSummaries();
+    List<MovementSummary> findSummariesByDateBetween(LocalDate startDate, LocalDate endDate);
+    List<MovementSummary> findSummariesByType(MovementType type);
+    List<MovementSummary> findSummariesByCategory(Long categoryId);
+    List<MovementSummary> findSummariesByIds(List<Long> ids);
+    List<MovementSummary> findSummaryPageAfter(MovementCursor cursor, int size);
+    // Finestra di righe filtrata e ordinata dal database, per gli elenchi caricati a pagine
+    List<MovementSummary> findSummaryPage(MovementQuery query, int offset, int size);
+    long countMatching(MovementQuery query);
+
     BigDecimal getTotalByTypeAndDateRange(MovementType type, LocalDate startDate, LocalDate endDate);
     BigDecimal getTotalByCategoryAndDateRange(Category category, LocalDate startDate, LocalDate endDate);
+    List<CategoryTypeTotal> getTotalsByCategoryAndType(LocalDate startDate, LocalDate endDate);
+    // Totali dell'intero sottoalbero della categoria, ogni movimento contato una sola volta
+    List<CategoryTypeTotal> getSubtreeTotalsByType(Long categoryId, LocalDate startDate, LocalDate endDate);
+    List<MonthlyTotal> getMonthlyTotalsByType(LocalDate startDate, LocalDate endDate);
+    List<MonthlyTotal> getMonthlyTotalsByCategory(Category category, LocalDate startDate, LocalDate endDate);
+
+    // Letture dai totali mensili precalcolati: valide solo per intervalli di mesi interi
+    List<MonthlyTotal> getRollupTotalsByType(YearMonth from, YearMonth to);
+    List<MonthlyTotal> getRollupTotalsByCategory(Long categoryId, YearMonth from, YearMonth to);
+    List<CategoryTypeTotal> getRollupTotalsByCategoryAndType(YearMonth from, YearMonth to);
+    void rebuildMonthlyTotals();
+
     List<Movement> findByDescriptionContaining(String description);
+    List<Long> searchIds(String query);
 
     List<Movement> findScheduledMovements();
     List<Movement> findByAmortizationPlanId(Long planId);
 
     List<Movement> findAllPaginated(int page, int size);
+    List<Movement> findPageAfter(MovementCursor cursor, int size);
     long count();
 }
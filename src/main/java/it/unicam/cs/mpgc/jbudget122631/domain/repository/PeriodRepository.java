@@ -17,6 +17,7 @@ public interface PeriodRepository {
     Optional<Period> findByName(String name);
     List<Period> findByDateRange(LocalDate startDate, LocalDate endDate);
     Optional<Period> findPeriodContaining(LocalDate date);
+    List<Period> findPeriodsContaining(LocalDate date);
     List<Period> findOverlappingPeriods(LocalDate startDate, LocalDate endDate);
 
     List<Period> findCurrentPeriods();
@@ -4,8 +4,10 @@ import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurrenceType;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurringSeries;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +31,15 @@ public interface ScheduledExpenseRepository {
     List<ScheduledExpense> findByRecurrenceType(RecurrenceType recurrenceType);
     List<ScheduledExpense> findRecurringExpenses();
 
+    // Serie ricorrenti attive la cui ultima occorrenza e' scaduta entro la data
+    List<RecurringSeries> findSeriesDueBy(LocalDate date);
+    Optional<LocalDate> findLatestDueDateInSeries(Long seriesId);
+    // Falso se la serie ha gia' un'occorrenza nella stessa data
+    boolean saveOccurrenceIfAbsent(ScheduledExpense occurrence);
+    // Occorrenze generate e avanzamento del processo salvati nella stessa transazione
+    void saveGeneratedOccurrences(Collection<ScheduledExpense> occurrences, String job, LocalDate processedThrough);
+    Optional<LocalDate> findProcessedThrough(String job);
+
     List<ScheduledExpense> findByCategory(Category category);
 
     Optional<ScheduledExpense> findByCreatedMovement(Movement movement);
@@ -0,0 +1,98 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final LinkedHashMap<K, V> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    // Incrementata da ogni scrittura: un caricamento iniziato prima non rimette in cache dati superati
+    private long generation;
+
+    public BoundedCache(String name, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Dimensione massima cache deve essere > 0");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        // Ordine di accesso: l'elemento usato meno di recente e' il primo ad essere rimosso
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        // Il caricamento avviene fuori dal lock per non serializzare gli accessi al database
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        generation++;
+        entries.put(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public String getName() { return name; }
+
+    public synchronized long getHitCount() { return hits; }
+    public synchronized long getMissCount() { return misses; }
+    public synchronized long getEvictionCount() { return evictions; }
+
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                name, entries.size(), maxSize, hits, misses, evictions, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,114 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.cache;
+
+import it.unicam.cs.mpgc.jbudget122631.application.dto.StatisticsDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.service.StatisticsService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+public class CachedStatisticsService implements StatisticsService {
+
+    private static final int DEFAULT_CACHE_SIZE = 200;
+
+    private final StatisticsService delegate;
+    private final BoundedCache<String, Object> results;
+    private long cachedVersion = DataVersion.current();
+
+    public CachedStatisticsService(StatisticsService delegate) {
+        this(delegate, DEFAULT_CACHE_SIZE);
+    }
+
+    public CachedStatisticsService(StatisticsService delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.results = new BoundedCache<>("statistiche", maxEntries);
+    }
+
+    @Override
+    public StatisticsDTO getStatisticsForPeriod(LocalDate startDate, LocalDate endDate) {
+        return cached(key("period", startDate, endDate),
+                () -> delegate.getStatisticsForPeriod(startDate, endDate), StatisticsDTO::new);
+    }
+
+    @Override
+    public StatisticsDTO getStatisticsForCategory(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return cached(key("category", startDate, endDate, categoryId),
+                () -> delegate.getStatisticsForCategory(categoryId, startDate, endDate), StatisticsDTO::new);
+    }
+
+    @Override
+    public StatisticsDTO getStatisticsForCategoryTree(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return cached(key("categoryTree", startDate, endDate, categoryId),
+                () -> delegate.getStatisticsForCategoryTree(categoryId, startDate, endDate), StatisticsDTO::new);
+    }
+
+    @Override
+    public Map<String, StatisticsDTO> comparePeriodsStatistics(LocalDate period1Start, LocalDate period1End,
+                                                               LocalDate period2Start, LocalDate period2End) {
+        return cached(key("compare", period1Start, period1End, period2Start, period2End),
+                () -> delegate.comparePeriodsStatistics(period1Start, period1End, period2Start, period2End),
+                comparison -> {
+                    Map<String, StatisticsDTO> copy = new LinkedHashMap<>();
+                    comparison.forEach((period, statistics) -> copy.put(period, new StatisticsDTO(statistics)));
+                    return copy;
+                });
+    }
+
+    @Override
+    public Map<String, BigDecimal> getMonthlyIncomeExpensesTrend(LocalDate startDate, LocalDate endDate) {
+        return cached(key("trend", startDate, endDate),
+                () -> delegate.getMonthlyIncomeExpensesTrend(startDate, endDate), LinkedHashMap::new);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getCategorySpendingTrend(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return cached(key("categoryTrend", startDate, endDate, categoryId),
+                () -> delegate.getCategorySpendingTrend(categoryId, startDate, endDate), LinkedHashMap::new);
+    }
+
+    @Override
+    public Map<String, Object> getBudgetPerformanceAnalysis(Long periodId) {
+        return cached(key("budgetPerformance", periodId),
+                () -> delegate.getBudgetPerformanceAnalysis(periodId), LinkedHashMap::new);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getTopSpendingCategories(LocalDate startDate, LocalDate endDate, int limit) {
+        return cached(key("topSpending", startDate, endDate, limit),
+                () -> delegate.getTopSpendingCategories(startDate, endDate, limit), LinkedHashMap::new);
+    }
+
+    public String getCacheStatistics() {
+        return results.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<T> loader, UnaryOperator<T> copy) {
+        long version = DataVersion.current();
+        discardOlderVersions(version);
+
+        // La versione fa parte della chiave: un risultato calcolato durante una scrittura
+        // concorrente resta associato alla versione precedente e non viene piu' servito
+        T result = (T) results.get(version + "|" + key, k -> loader.get());
+        // Ogni chiamante riceve una copia: l'istanza in cache non viene mai esposta
+        return result != null ? copy.apply(result) : null;
+    }
+
+    private synchronized void discardOlderVersions(long version) {
+        if (version != cachedVersion) {
+            results.invalidateAll();
+            cachedVersion = version;
+        }
+    }
+
+    private static String key(String method, Object... arguments) {
+        StringBuilder key = new StringBuilder(method);
+        for (Object argument : arguments) {
+            key.append('|').append(argument);
+        }
+        return key.toString();
+    }
+}
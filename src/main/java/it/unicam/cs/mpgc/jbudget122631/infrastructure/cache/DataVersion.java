@@ -0,0 +1,20 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versione globale dei dati: incrementata dopo ogni scrittura confermata su movimenti,
+// budget e categorie, permette alle cache dei risultati di riconoscere valori obsoleti
+public final class DataVersion {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    private DataVersion() {}
+
+    public static long current() {
+        return VERSION.get();
+    }
+
+    public static long increment() {
+        return VERSION.incrementAndGet();
+    }
+}
@@ -0,0 +1,188 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.cache;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Indice immutabile sui periodi: i periodi ordinati per data di inizio formano un albero binario
+// implicito (il nodo di [lo, hi] e' l'elemento centrale) in cui ogni nodo conosce la data di fine
+// massima del proprio sottoalbero. Contenimento e sovrapposizione costano O(log n + k).
+public class PeriodIntervalIndex {
+
+    private static final Comparator<Period> BY_START = Comparator
+            .comparing(Period::getStartDate)
+            .thenComparing(Period::getEndDate)
+            .thenComparing(Period::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Period[] byStart;
+    private final LocalDate[] maxEnd;
+    private final Period[] byEnd;
+    private final Map<Long, Period> byId;
+    private final Map<String, Period> byName;
+
+    public PeriodIntervalIndex(Collection<Period> periods) {
+        this.byStart = periods.toArray(new Period[0]);
+        Arrays.sort(byStart, BY_START);
+
+        this.maxEnd = new LocalDate[byStart.length];
+        buildMaxEnd(0, byStart.length - 1);
+
+        this.byEnd = byStart.clone();
+        Arrays.sort(byEnd, Comparator.comparing(Period::getEndDate).thenComparing(BY_START));
+
+        this.byId = new HashMap<>();
+        this.byName = new HashMap<>();
+        for (Period period : byStart) {
+            if (period.getId() != null) {
+                byId.put(period.getId(), period);
+            }
+            // A parita' di nome vale il primo per data di inizio
+            byName.putIfAbsent(period.getName(), period);
+        }
+    }
+
+    private LocalDate buildMaxEnd(int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        LocalDate max = byStart[mid].getEndDate();
+        max = later(max, buildMaxEnd(lo, mid - 1));
+        max = later(max, buildMaxEnd(mid + 1, hi));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    public List<Period> containing(LocalDate date) {
+        return overlapping(date, date);
+    }
+
+    // Periodi che condividono almeno un giorno con [startDate, endDate], in ordine di data di inizio
+    public List<Period> overlapping(LocalDate startDate, LocalDate endDate) {
+        List<Period> result = new ArrayList<>();
+        collectOverlapping(0, byStart.length - 1, startDate, endDate, result);
+        return result;
+    }
+
+    private void collectOverlapping(int lo, int hi, LocalDate startDate, LocalDate endDate, List<Period> result) {
+        if (lo > hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+
+        // Nessun periodo del sottoalbero arriva fino all'inizio dell'intervallo richiesto
+        if (maxEnd[mid].isBefore(startDate)) {
+            return;
+        }
+
+        collectOverlapping(lo, mid - 1, startDate, endDate, result);
+
+        Period period = byStart[mid];
+        // Da qui in avanti i periodi iniziano tutti dopo la fine dell'intervallo
+        if (period.getStartDate().isAfter(endDate)) {
+            return;
+        }
+        if (!period.getEndDate().isBefore(startDate)) {
+            result.add(period);
+        }
+
+        collectOverlapping(mid + 1, hi, startDate, endDate, result);
+    }
+
+    // Periodi che iniziano dopo la data, in ordine di data di inizio
+    public List<Period> startingAfter(LocalDate date) {
+        int from = firstStartAfter(date);
+        List<Period> result = new ArrayList<>(byStart.length - from);
+        for (int i = from; i < byStart.length; i++) {
+            result.add(byStart[i]);
+        }
+        return result;
+    }
+
+    // Periodi terminati prima della data, dal piu' recente per data di inizio
+    public List<Period> endingBefore(LocalDate date) {
+        int to = firstEndNotBefore(date);
+        List<Period> result = new ArrayList<>(to);
+        for (int i = 0; i < to; i++) {
+            result.add(byEnd[i]);
+        }
+        result.sort(BY_START.reversed());
+        return result;
+    }
+
+    public Optional<Period> byId(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    // Nome esatto se presente, altrimenti il primo che coincide ignorando maiuscole e minuscole
+    public Optional<Period> byName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Period exact = byName.get(name);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        for (Period period : byStart) {
+            if (period.getName().equalsIgnoreCase(name)) {
+                return Optional.of(period);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Tutti i periodi dal piu' recente, come JpaPeriodRepository.findAll
+    public List<Period> all() {
+        List<Period> result = new ArrayList<>(byStart.length);
+        for (int i = byStart.length - 1; i >= 0; i--) {
+            result.add(byStart[i]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return byStart.length;
+    }
+
+    private int firstStartAfter(LocalDate date) {
+        int lo = 0;
+        int hi = byStart.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (byStart[mid].getStartDate().isAfter(date)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private int firstEndNotBefore(LocalDate date) {
+        int lo = 0;
+        int hi = byEnd.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (byEnd[mid].getEndDate().isBefore(date)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -3,19 +3,44 @@ package it.unicam.cs.mpgc.jbudget122631.infrastructure.config;
 import it.unicam.cs.mpgc.jbudget122631.application.service.*;
 import it.unicam.cs.mpgc.jbudget122631.application.service.impl.*;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.*;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.CachedStatisticsService;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics.MetricsRegistry;
 import it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence.*;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.scheduling.RecurringExpenseScheduler;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ScheduledExpenseChanged;
+
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ApplicationConfig {
 
     private ApplicationConfig() {}
 
+    private static final int BACKGROUND_THREADS = 4;
+
     private static MovementRepository movementRepository;
     private static CategoryRepository categoryRepository;
+    private static CategoryNameResolver categoryNameResolver;
     private static BudgetRepository budgetRepository;
     private static ScheduledExpenseRepository scheduledExpenseRepository;
     private static PeriodRepository periodRepository;
     private static AmortizationPlanRepository amortizationPlanRepository;
     private static it.unicam.cs.mpgc.jbudget122631.presentation.controller.MainController mainController;
+    private static ChangeBus changeBus;
+
+    // Istanze concrete delle cache, dietro ai proxy delle metriche
+    private static CachedCategoryRepository cachedCategoryRepository;
+    private static CachedPeriodRepository cachedPeriodRepository;
+    private static CachedStatisticsService cachedStatisticsService;
+
+    private static MetricsRegistry metricsRegistry;
+    private static boolean metricsEnabled;
+    private static String metricsDumpFile;
 
     public static void setMainController(it.unicam.cs.mpgc.jbudget122631.presentation.controller.MainController mc) {
         mainController = mc;
@@ -25,67 +50,146 @@ public final class ApplicationConfig {
         return mainController;
     }
 
+    public static synchronized ChangeBus getChangeBus() {
+        if (changeBus == null) changeBus = new ChangeBus();
+        return changeBus;
+    }
+
+    public static synchronized MetricsRegistry getMetricsRegistry() {
+        if (metricsRegistry == null) {
+            Properties props = new Properties();
+            try (InputStream in = ApplicationConfig.class.getClassLoader()
+                    .getResourceAsStream("application.properties")) {
+                if (in != null) props.load(in);
+            } catch (Exception e) {
+                System.err.println("METRICS - Errore lettura application.properties: " + e.getMessage());
+            }
+            metricsEnabled = Boolean.parseBoolean(props.getProperty("jbudget.metrics.enabled", "true"));
+            metricsDumpFile = props.getProperty("jbudget.metrics.dump-file", "./data/metrics.txt");
+
+            metricsRegistry = new MetricsRegistry();
+            if (metricsEnabled) {
+                metricsRegistry.registerMBean();
+            }
+        }
+        return metricsRegistry;
+    }
+
+    // Proxy con tempi, esiti e righe restituite per ogni metodo dell'interfaccia, se le metriche sono attive
+    private static <T> T instrument(Class<T> type, String component, T target) {
+        MetricsRegistry registry = getMetricsRegistry();
+        return metricsEnabled ? registry.instrument(type, component, target) : target;
+    }
+
     public static MovementRepository getMovementRepository() {
-        if (movementRepository == null) movementRepository = new JpaMovementRepository();
+        if (movementRepository == null) {
+            movementRepository = instrument(MovementRepository.class, "MovementRepository", new JpaMovementRepository());
+        }
         return movementRepository;
     }
 
     public static CategoryRepository getCategoryRepository() {
-        if (categoryRepository == null) categoryRepository = new JpaCategoryRepository();
+        if (categoryRepository == null) {
+            // Misurati sia gli accessi alla cache sia quelli che arrivano al database
+            cachedCategoryRepository = new CachedCategoryRepository(
+                    instrument(CategoryRepository.class, "JpaCategoryRepository", new JpaCategoryRepository()));
+            categoryRepository = instrument(CategoryRepository.class, "CategoryRepository", cachedCategoryRepository);
+        }
         return categoryRepository;
     }
 
+    public static synchronized CategoryNameResolver getCategoryNameResolver() {
+        if (categoryNameResolver == null) {
+            categoryNameResolver = new CategoryNameResolver(getCategoryRepository(), getBackgroundExecutor());
+            if (cachedCategoryRepository != null) {
+                cachedCategoryRepository.addChangeListener(categoryNameResolver::invalidate);
+            }
+        }
+        return categoryNameResolver;
+    }
+
     public static BudgetRepository getBudgetRepository() {
-        if (budgetRepository == null) budgetRepository = new JpaBudgetRepository();
+        if (budgetRepository == null) {
+            budgetRepository = instrument(BudgetRepository.class, "BudgetRepository", new JpaBudgetRepository());
+        }
         return budgetRepository;
     }
 
     public static ScheduledExpenseRepository getScheduledExpenseRepository() {
-        if (scheduledExpenseRepository == null) scheduledExpenseRepository = new JpaScheduledExpenseRepository();
+        if (scheduledExpenseRepository == null) {
+            scheduledExpenseRepository = instrument(ScheduledExpenseRepository.class, "ScheduledExpenseRepository",
+                    new JpaScheduledExpenseRepository());
+        }
         return scheduledExpenseRepository;
     }
 
     public static PeriodRepository getPeriodRepository() {
-        if (periodRepository == null) periodRepository = new JpaPeriodRepository();
+        if (periodRepository == null) {
+            cachedPeriodRepository = new CachedPeriodRepository(
+                    instrument(PeriodRepository.class, "JpaPeriodRepository", new JpaPeriodRepository()));
+            periodRepository = instrument(PeriodRepository.class, "PeriodRepository", cachedPeriodRepository);
+        }
         return periodRepository;
     }
 
     public static AmortizationPlanRepository getAmortizationPlanRepository() {
-        if (amortizationPlanRepository == null) amortizationPlanRepository = new JpaAmortizationPlanRepository();
+        if (amortizationPlanRepository == null) {
+            amortizationPlanRepository = instrument(AmortizationPlanRepository.class, "AmortizationPlanRepository",
+                    new JpaAmortizationPlanRepository());
+        }
         return amortizationPlanRepository;
     }
 
     private static MovementService movementService;
+    // Implementazione concreta: con le metriche attive movementService e' un proxy
+    private static MovementServiceImpl movementServiceImpl;
     private static CategoryService categoryService;
     private static BudgetService budgetService;
     private static ScheduledExpenseService scheduledExpenseService;
     private static StatisticsService statisticsService;
 
+    private static RecurringExpenseScheduler recurringExpenseScheduler;
+    private static ExecutorService backgroundExecutor;
+    private static BudgetSyncQueue budgetSyncQueue;
+
     public static BudgetService getBudgetService() {
         if (budgetService == null) {
-            budgetService = new BudgetServiceImpl(
+            budgetService = instrument(BudgetService.class, "BudgetService", new BudgetServiceImpl(
                     getBudgetRepository(),
                     getMovementRepository(),
                     getPeriodRepository(),
                     getCategoryRepository()
-            );
+            ));
             System.out.println("INIT - BudgetService inizializzato");
         }
         return budgetService;
     }
 
+    public static synchronized BudgetSyncQueue getBudgetSyncQueue() {
+        if (budgetSyncQueue == null) {
+            budgetSyncQueue = new BudgetSyncQueue(getBudgetService());
+            budgetSyncQueue.start();
+        }
+        return budgetSyncQueue;
+    }
+
     public static MovementService getMovementService() {
         if (movementService == null) {
             // Prima inizializza il BudgetService
             BudgetService budgetSvc = getBudgetService();
 
             // Poi crea il MovementService con il BudgetService per aggiornamento automatico
-            movementService = new MovementServiceImpl(
+            MovementServiceImpl service = new MovementServiceImpl(
                     getMovementRepository(),
                     getCategoryRepository(),
                     getPeriodRepository(),
-                    budgetSvc  // Passa il BudgetService per aggiornamento automatico
+                    budgetSvc,  // Passa il BudgetService per aggiornamento automatico
+                    getCategoryNameResolver()
             );
+            // Le scritture accodano la sincronizzazione dei budget invece di eseguirla
+            service.setBudgetSyncQueue(getBudgetSyncQueue());
+            movementServiceImpl = service;
+            movementService = instrument(MovementService.class, "MovementService", service);
 
             System.out.println("INIT - MovementService inizializzato");
         }
@@ -94,7 +198,10 @@ public final class ApplicationConfig {
 
     public static CategoryService getCategoryService() {
         if (categoryService == null) {
-            categoryService = new CategoryServiceImpl(getCategoryRepository());
+            CategoryServiceImpl service = new CategoryServiceImpl(getCategoryRepository());
+            // Spostamenti ed eliminazioni cambiano i sottoalberi su cui si calcolano i budget
+            service.setBudgetSyncQueue(getBudgetSyncQueue());
+            categoryService = instrument(CategoryService.class, "CategoryService", service);
             System.out.println("INIT - CategoryService inizializzato");
         }
         return categoryService;
@@ -102,10 +209,11 @@ public final class ApplicationConfig {
 
     public static ScheduledExpenseService getScheduledExpenseService() {
         if (scheduledExpenseService == null) {
-            scheduledExpenseService = new ScheduledExpenseServiceImpl(
-                    getScheduledExpenseRepository(),
-                    getMovementService()
-            );
+            scheduledExpenseService = instrument(ScheduledExpenseService.class, "ScheduledExpenseService",
+                    new ScheduledExpenseServiceImpl(
+                            getScheduledExpenseRepository(),
+                            getMovementService()
+                    ));
             System.out.println("INIT - ScheduledExpenseService inizializzato");
         }
         return scheduledExpenseService;
@@ -113,11 +221,14 @@ public final class ApplicationConfig {
 
     public static StatisticsService getStatisticsService() {
         if (statisticsService == null) {
-            statisticsService = new StatisticsServiceImpl(
-                    getMovementRepository(),
-                    getBudgetRepository(),
-                    getCategoryRepository()
-            );
+            cachedStatisticsService = new CachedStatisticsService(
+                    instrument(StatisticsService.class, "StatisticsServiceImpl", new StatisticsServiceImpl(
+                            getMovementRepository(),
+                            getBudgetRepository(),
+                            getCategoryRepository(),
+                            getPeriodRepository()
+                    )));
+            statisticsService = instrument(StatisticsService.class, "StatisticsService", cachedStatisticsService);
             System.out.println("INIT - StatisticsService inizializzato");
         }
         return statisticsService;
@@ -136,6 +247,32 @@ public final class ApplicationConfig {
         System.out.println("INIT - Aggiornamento automatico budget ABILITATO");
     }
 
+    // Thread daemon per le letture della UI: le query indipendenti girano in parallelo fuori dal thread JavaFX
+    public static synchronized ExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            backgroundExecutor = Executors.newFixedThreadPool(BACKGROUND_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "background-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return backgroundExecutor;
+    }
+
+    public static void startBackgroundJobs() {
+        // Nomi categorie pronti prima che le tabelle li chiedano
+        getBackgroundExecutor().execute(getCategoryNameResolver()::preload);
+
+        if (recurringExpenseScheduler == null) {
+            recurringExpenseScheduler = new RecurringExpenseScheduler(getScheduledExpenseService());
+            // Le occorrenze generate in background compaiono nello scadenzario e nella dashboard gia' aperti
+            recurringExpenseScheduler.setOnOccurrencesGenerated(
+                    () -> getChangeBus().publish(ScheduledExpenseChanged.all()));
+        }
+        recurringExpenseScheduler.start();
+    }
+
     public static void testBudgetIntegration() {
         System.out.println("TEST - Verificando integrazione Budget-Movement...");
 
@@ -149,7 +286,7 @@ public final class ApplicationConfig {
                 System.out.println("TEST -  Aggiornamento automatico PRONTO");
 
 
-                if (mvService instanceof MovementServiceImpl) {
+                if (movementServiceImpl != null) {
                     System.out.println("TEST - MovementServiceImpl con aggiornamento budget configurato");
                 }
             } else {
@@ -161,12 +298,65 @@ public final class ApplicationConfig {
         }
     }
 
+    private static void logCacheStatistics() {
+        if (cachedCategoryRepository != null) {
+            System.out.println("CACHE - " + cachedCategoryRepository.getCacheStatistics());
+        }
+        if (categoryNameResolver != null) {
+            System.out.println("CACHE - " + categoryNameResolver.getStatistics());
+        }
+        if (cachedPeriodRepository != null) {
+            System.out.println("CACHE - " + cachedPeriodRepository.getCacheStatistics());
+        }
+        if (cachedStatisticsService != null) {
+            System.out.println("CACHE - " + cachedStatisticsService.getCacheStatistics());
+        }
+    }
+
+    private static synchronized void dumpMetrics() {
+        if (metricsRegistry == null) {
+            return;
+        }
+        if (metricsEnabled) {
+            try {
+                metricsRegistry.dumpToFile(metricsDumpFile);
+            } catch (RuntimeException e) {
+                System.err.println("METRICS - " + e.getMessage());
+            }
+            metricsRegistry.unregisterMBean();
+        }
+        metricsRegistry = null;
+    }
+
     public static void shutdown() {
         try {
             System.out.println("SHUTDOWN - Chiusura servizi...");
 
+            // Arresto dei processi in background prima di chiudere Hibernate
+            if (recurringExpenseScheduler != null) {
+                recurringExpenseScheduler.stop();
+                recurringExpenseScheduler = null;
+            }
+            // Le modifiche ancora in coda aggiornano i budget prima della chiusura del database
+            synchronized (ApplicationConfig.class) {
+                if (budgetSyncQueue != null) {
+                    budgetSyncQueue.stop(5, TimeUnit.SECONDS);
+                    budgetSyncQueue = null;
+                }
+            }
+            synchronized (ApplicationConfig.class) {
+                if (backgroundExecutor != null) {
+                    backgroundExecutor.shutdownNow();
+                    backgroundExecutor = null;
+                }
+            }
+
+            logCacheStatistics();
+            dumpMetrics();
+
             // Reset dei servizi
             movementService = null;
+            movementServiceImpl = null;
             budgetService = null;
             categoryService = null;
             scheduledExpenseService = null;
@@ -176,6 +366,10 @@ public final class ApplicationConfig {
             movementRepository = null;
             budgetRepository = null;
             categoryRepository = null;
+            categoryNameResolver = null;
+            cachedCategoryRepository = null;
+            cachedPeriodRepository = null;
+            cachedStatisticsService = null;
             scheduledExpenseRepository = null;
             periodRepository = null;
             amortizationPlanRepository = null;
@@ -6,22 +6,31 @@ import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.migration.SchemaMigrator;
 
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 
 import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.Properties;
 
 public class HibernateConfig {
 
+    private static final long MOVEMENT_SEQUENCE_ALLOCATION = 50;
+
     private static volatile SessionFactory sessionFactory;
 
     public static SessionFactory getSessionFactory() {
         if (sessionFactory == null) {
             synchronized (HibernateConfig.class) {
                 if (sessionFactory == null) {
-                    sessionFactory = buildSessionFactory();
+                    SessionFactory factory = buildSessionFactory();
+                    alignMovementSequence(factory);
+                    sessionFactory = factory;
                 }
             }
         }
@@ -36,11 +45,16 @@ public class HibernateConfig {
                 if (in != null) props.load(in);
             }
 
-            String url = props.getProperty("jbudget.database.url", "jdbc:h2:./data/jbudget;AUTO_SERVER=TRUE;DB_CLOSE_DELAY=-1");
+            // Un database diverso da quello configurato (es. per i benchmark) si seleziona con -Djbudget.database.url
+            String url = System.getProperty("jbudget.database.url",
+                    props.getProperty("jbudget.database.url", "jdbc:h2:./data/jbudget;AUTO_SERVER=TRUE;DB_CLOSE_DELAY=-1"));
             String user = props.getProperty("jbudget.database.user", "sa");
             String pass = props.getProperty("jbudget.database.password", "");
             String driver = props.getProperty("jbudget.database.driver", "org.h2.Driver");
 
+            // Lo schema e' gestito dalle migrazioni versionate; Hibernate si limita a validarlo
+            new SchemaMigrator(url, user, pass).migrate();
+
             Configuration cfg = new Configuration();
 
             cfg.setProperty("hibernate.connection.driver_class", driver);
@@ -49,10 +63,12 @@ public class HibernateConfig {
             cfg.setProperty("hibernate.connection.password", pass);
 
             cfg.setProperty("hibernate.dialect", props.getProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect"));
-            cfg.setProperty("hibernate.hbm2ddl.auto", props.getProperty("hibernate.hbm2ddl.auto", "update"));
+            cfg.setProperty("hibernate.hbm2ddl.auto", props.getProperty("hibernate.hbm2ddl.auto", "validate"));
             cfg.setProperty("hibernate.show_sql", props.getProperty("hibernate.show_sql", "false"));
             cfg.setProperty("hibernate.format_sql", props.getProperty("hibernate.format_sql", "true"));
             cfg.setProperty("hibernate.use_sql_comments", props.getProperty("hibernate.use_sql_comments", "false"));
+            cfg.setProperty("hibernate.jdbc.batch_size", props.getProperty("hibernate.jdbc.batch_size", "50"));
+            cfg.setProperty("hibernate.order_inserts", "true");
 
             cfg.setProperty("hibernate.connection.provider_class",
                     "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
@@ -73,6 +89,42 @@ public class HibernateConfig {
         }
     }
 
+    // I database creati con la colonna IDENTITY hanno gia' ID assegnati: la sequenza
+    // deve partire oltre il massimo esistente per non generare collisioni
+    private static void alignMovementSequence(SessionFactory factory) {
+        try (Session session = factory.openSession()) {
+            session.doWork(connection -> {
+                long maxId;
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM movements")) {
+                    rs.next();
+                    maxId = rs.getLong(1);
+                }
+
+                long nextValue;
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = ?")) {
+                    statement.setString(1, "MOVEMENTS_SEQ");
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (!rs.next()) return;
+                        nextValue = rs.getLong(1);
+                    }
+                }
+
+                // L'ottimizzatore pooled usa il valore letto come estremo superiore del blocco
+                long requiredValue = maxId + MOVEMENT_SEQUENCE_ALLOCATION;
+                if (maxId > 0 && nextValue < requiredValue) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("ALTER SEQUENCE movements_seq RESTART WITH " + requiredValue);
+                    }
+                    System.out.println("INIT - Sequenza movimenti riallineata a " + requiredValue);
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("INIT - Impossibile allineare la sequenza movimenti: " + e.getMessage());
+        }
+    }
+
     public static void shutdown() {
         if (sessionFactory != null) {
             try {
@@ -0,0 +1,82 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.loadtest;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Opzioni "--nome valore" degli strumenti a riga di comando; un'opzione non prevista e' un errore,
+// cosi' un refuso non fa partire silenziosamente una generazione con i valori di default
+class CommandLineOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    CommandLineOptions(String[] args, Set<String> allowed) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argomento non valido: " + arg);
+            }
+            String name = arg.substring(2);
+            String value = "true";
+            int separator = name.indexOf('=');
+            if (separator >= 0) {
+                value = name.substring(separator + 1);
+                name = name.substring(0, separator);
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                value = args[++i];
+            }
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Opzione sconosciuta: --" + name + " (ammesse: " + allowed + ")");
+            }
+            values.put(name, value);
+        }
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue, int min) {
+        int value = values.containsKey(name) ? parse(name, Integer::parseInt) : defaultValue;
+        if (value < min) {
+            throw new IllegalArgumentException("--" + name + " deve essere >= " + min);
+        }
+        return value;
+    }
+
+    long getLong(String name, long defaultValue) {
+        return values.containsKey(name) ? parse(name, Long::parseLong) : defaultValue;
+    }
+
+    double getDouble(String name, double defaultValue, double min, double max) {
+        double value = values.containsKey(name) ? parse(name, Double::parseDouble) : defaultValue;
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("--" + name + " deve essere compreso tra " + min + " e " + max);
+        }
+        return value;
+    }
+
+    private <T> T parse(String name, Function<String, T> parser) {
+        try {
+            return parser.apply(values.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valore non numerico per --" + name + ": " + values.get(name));
+        }
+    }
+
+    // Database H2 su file scelto con --db: HibernateConfig lo legge da jbudget.database.url
+    void selectDatabase() {
+        if (has("db")) {
+            String file = Paths.get(getString("db", "")).toAbsolutePath().toString();
+            System.setProperty("jbudget.database.url", "jdbc:h2:file:" + file + ";AUTO_SERVER=TRUE;DB_CLOSE_DELAY=-1");
+        }
+        System.out.println("LOADTEST - Database: " +
+                System.getProperty("jbudget.database.url", "configurato in application.properties"));
+    }
+}
@@ -0,0 +1,391 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.loadtest;
+
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.ScheduledExpenseService;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.AmortizationPlan;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Budget;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurrenceType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.MovementRepository;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.loadtest.HouseholdProfile.CategoryTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Riempie il database con N anni di dati sintetici di una famiglia: albero di categorie configurabile,
+// periodi mensili con budget, movimenti, serie di spese ricorrenti e piani di ammortamento.
+// Con lo stesso seme e la stessa --end genera sempre gli stessi movimenti.
+//
+// Uso: DatasetGenerator --db ./data/loadtest --years 3 --monthly-expenses 150 --seed 7
+public final class DatasetGenerator {
+
+    private static final Set<String> OPTIONS = Set.of("db", "seed", "years", "end", "monthly-expenses", "earners",
+            "root-categories", "subcategories", "depth", "scheduled-series", "amortization-plans", "help");
+
+    private static final int CHUNK_SIZE = 5_000;
+    private static final int SALARY_DAY = 27;
+    private static final double SECOND_CATEGORY_PROBABILITY = 0.05;
+    private static final double REFUND_PROBABILITY = 0.3;
+
+    private static final String[] SERIES_NAMES = {
+            "Affitto", "Bolletta luce", "Bolletta gas", "Internet", "Abbonamento palestra", "Assicurazione auto",
+            "Streaming", "Canone TV", "Retta scuola", "Abbonamento trasporti", "Telefono", "Condominio"
+    };
+
+    // Foglia dell'albero con la quota di spese e l'importo mediano ereditati dalla categoria principale
+    private static final class Leaf {
+        final Category category;
+        final Category root;
+        final double weight;
+        final double medianAmount;
+
+        Leaf(Category category, Category root, double weight, double medianAmount) {
+            this.category = category;
+            this.root = root;
+            this.weight = weight;
+            this.medianAmount = medianAmount;
+        }
+    }
+
+    private final Random random;
+    private final int years;
+    private final LocalDate lastDay;
+    private final int monthlyExpenses;
+    private final int earners;
+    private final int rootCategories;
+    private final int subcategories;
+    private final int depth;
+    private final int scheduledSeries;
+    private final int amortizationPlans;
+
+    private final List<Category> roots = new ArrayList<>();
+    private final List<Leaf> leaves = new ArrayList<>();
+    private double[] cumulativeWeights;
+
+    private int movementCount;
+    private int budgetCount;
+
+    private DatasetGenerator(CommandLineOptions options) {
+        this.random = new Random(options.getLong("seed", 42L));
+        this.years = options.getInt("years", 2, 1);
+        this.lastDay = lastDay(options.getString("end", null));
+        this.monthlyExpenses = options.getInt("monthly-expenses", 120, 0);
+        this.earners = options.getInt("earners", 2, 0);
+        this.rootCategories = options.getInt("root-categories", 8, 1);
+        this.subcategories = options.getInt("subcategories", 3, 1);
+        this.depth = options.getInt("depth", 1, 0);
+        this.scheduledSeries = options.getInt("scheduled-series", 10, 0);
+        this.amortizationPlans = options.getInt("amortization-plans", 2, 0);
+    }
+
+    private static LocalDate lastDay(String end) {
+        if (end == null) {
+            return LocalDate.now();
+        }
+        try {
+            return YearMonth.parse(end).atEndOfMonth();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("--end deve avere il formato AAAA-MM: " + end);
+        }
+    }
+
+    public static void main(String[] args) {
+        CommandLineOptions options;
+        try {
+            options = new CommandLineOptions(args, OPTIONS);
+        } catch (IllegalArgumentException e) {
+            System.err.println("LOADTEST - " + e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+        if (options.has("help")) {
+            printUsage();
+            return;
+        }
+
+        int exitCode = 0;
+        try {
+            DatasetGenerator generator = new DatasetGenerator(options);
+            options.selectDatabase();
+            generator.generate();
+        } catch (Exception e) {
+            System.err.println("LOADTEST - Generazione non riuscita: " + e.getMessage());
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            ApplicationConfig.shutdown();
+        }
+        System.exit(exitCode);
+    }
+
+    private static void printUsage() {
+        System.out.println("Uso: DatasetGenerator [opzioni]");
+        System.out.println("  --db <percorso>             database H2 su file (default: quello di application.properties)");
+        System.out.println("  --seed <n>                  seme dei numeri casuali (default 42)");
+        System.out.println("  --years <n>                 anni di movimenti fino a --end (default 2)");
+        System.out.println("  --end <AAAA-MM>             ultimo mese generato (default: fino a oggi)");
+        System.out.println("  --monthly-expenses <n>      spese medie al mese (default 120)");
+        System.out.println("  --earners <n>               stipendi mensili (default 2)");
+        System.out.println("  --root-categories <n>       categorie principali (default 8)");
+        System.out.println("  --subcategories <n>         sottocategorie per livello (default 3)");
+        System.out.println("  --depth <n>                 livelli sotto le categorie principali (default 1)");
+        System.out.println("  --scheduled-series <n>      serie di spese ricorrenti (default 10)");
+        System.out.println("  --amortization-plans <n>    piani di ammortamento (default 2)");
+    }
+
+    private void generate() {
+        long start = System.nanoTime();
+
+        MovementRepository movementRepository = ApplicationConfig.getMovementRepository();
+        if (movementRepository.count() > 0) {
+            throw new RuntimeException("Il database contiene gia' movimenti: usare --db con un nuovo percorso");
+        }
+
+        YearMonth firstMonth = YearMonth.from(lastDay).minusYears(years).plusMonths(1);
+        YearMonth lastMonth = YearMonth.from(lastDay);
+
+        createCategories();
+        createPeriodsAndBudgets(firstMonth, lastMonth);
+        createMovements(firstMonth, lastMonth, movementRepository);
+        createScheduledSeries(firstMonth);
+        createAmortizationPlans(firstMonth, lastMonth);
+
+        // Le rate dei piani sono salvate in cascata: i totali mensili e i budget si allineano alla fine
+        movementRepository.rebuildMonthlyTotals();
+        ApplicationConfig.getBudgetService().updateAllBudgetsWithRealMovements();
+
+        System.out.println("LOADTEST - Dataset generato in " + (System.nanoTime() - start) / 1_000_000 + " ms: " +
+                leaves.size() + " categorie foglia, " + budgetCount + " budget, " + movementCount + " movimenti (" +
+                firstMonth + " - " + lastMonth + ")");
+    }
+
+    private void createCategories() {
+        CategoryService categoryService = ApplicationConfig.getCategoryService();
+
+        for (int i = 0; i < rootCategories; i++) {
+            CategoryTemplate template = HouseholdProfile.template(i);
+            String name = HouseholdProfile.templateName(i);
+            Category root = categoryService.createCategory(name, "Generata", null);
+            roots.add(root);
+            createChildren(categoryService, template, root, root, 1, template.weight, template.medianAmount);
+        }
+
+        cumulativeWeights = new double[leaves.size()];
+        double total = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            total += leaves.get(i).weight;
+            cumulativeWeights[i] = total;
+        }
+        System.out.println("LOADTEST - Create " + roots.size() + " categorie principali e " + leaves.size() + " foglie");
+    }
+
+    private void createChildren(CategoryService categoryService, CategoryTemplate template, Category root,
+                                Category parent, int level, double weight, double medianAmount) {
+        if (level > depth) {
+            leaves.add(new Leaf(parent, root, weight, medianAmount));
+            return;
+        }
+        for (int i = 0; i < subcategories; i++) {
+            String name = HouseholdProfile.childName(template, parent.getName(), i, level);
+            Category child = categoryService.createCategory(name, "Generata", parent.getId());
+            // Sottocategorie con importi diversi attorno alla mediana della principale
+            double childMedian = medianAmount * (0.6 + 0.8 * random.nextDouble());
+            createChildren(categoryService, template, root, child, level + 1, weight / subcategories, childMedian);
+        }
+    }
+
+    private void createPeriodsAndBudgets(YearMonth firstMonth, YearMonth lastMonth) {
+        PeriodRepository periodRepository = ApplicationConfig.getPeriodRepository();
+        double totalWeight = cumulativeWeights.length > 0 ? cumulativeWeights[cumulativeWeights.length - 1] : 1;
+
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            String name = HouseholdProfile.periodName(month);
+            YearMonth current = month;
+            Period period = periodRepository.findByName(name)
+                    .orElseGet(() -> periodRepository.save(new Period(name, current.atDay(1), current.atEndOfMonth())));
+
+            double expectedExpenses = 0;
+            for (Category root : roots) {
+                double rootExpenses = 0;
+                for (Leaf leaf : leaves) {
+                    if (leaf.root.equals(root)) {
+                        rootExpenses += monthlyExpenses * HouseholdProfile.seasonalFactor(month)
+                                * leaf.weight / totalWeight * HouseholdProfile.expectedAmount(leaf.medianAmount);
+                    }
+                }
+                expectedExpenses += rootExpenses;
+                saveBudget(period, root, BigDecimal.ZERO, roundToTens(rootExpenses));
+            }
+            saveBudget(period, null, roundToTens(expectedSalaries(month)), roundToTens(expectedExpenses));
+        }
+        System.out.println("LOADTEST - Creati " + budgetCount + " budget mensili");
+    }
+
+    private void saveBudget(Period period, Category category, BigDecimal plannedIncome, BigDecimal plannedExpenses) {
+        ApplicationConfig.getBudgetRepository().save(new Budget(period, category, plannedIncome, plannedExpenses));
+        budgetCount++;
+    }
+
+    private double expectedSalaries(YearMonth month) {
+        double total = 0;
+        for (int earner = 0; earner < earners; earner++) {
+            total += salaryMean(earner) * (month.getMonthValue() == 12 ? 2 : 1);
+        }
+        return total;
+    }
+
+    private static double salaryMean(int earner) {
+        return 1_700 + 450 * earner;
+    }
+
+    private static BigDecimal roundToTens(double amount) {
+        return BigDecimal.valueOf(amount).divide(BigDecimal.TEN, 0, RoundingMode.HALF_UP).multiply(BigDecimal.TEN);
+    }
+
+    private void createMovements(YearMonth firstMonth, YearMonth lastMonth, MovementRepository movementRepository) {
+        List<Movement> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            addIncome(month, chunk);
+
+            int expenses = HouseholdProfile.poisson(random, monthlyExpenses * HouseholdProfile.seasonalFactor(month));
+            for (int i = 0; i < expenses && !leaves.isEmpty(); i++) {
+                chunk.add(randomExpense(month));
+                if (chunk.size() == CHUNK_SIZE) {
+                    flush(chunk, movementRepository);
+                }
+            }
+        }
+        flush(chunk, movementRepository);
+    }
+
+    private void addIncome(YearMonth month, List<Movement> chunk) {
+        LocalDate salaryDay = month.atDay(Math.min(SALARY_DAY, month.lengthOfMonth()));
+        if (!salaryDay.isAfter(lastDay)) {
+            for (int earner = 0; earner < earners; earner++) {
+                chunk.add(new Movement("Stipendio " + (earner + 1),
+                        HouseholdProfile.normalAmount(random, salaryMean(earner), 120), MovementType.INCOME, salaryDay));
+                if (month.getMonthValue() == 12) {
+                    chunk.add(new Movement("Tredicesima " + (earner + 1),
+                            HouseholdProfile.normalAmount(random, salaryMean(earner), 50), MovementType.INCOME, salaryDay));
+                }
+            }
+        }
+        if (random.nextDouble() < REFUND_PROBABILITY) {
+            chunk.add(new Movement("Rimborso", HouseholdProfile.logNormalAmount(random, 60), MovementType.INCOME,
+                    HouseholdProfile.randomDay(random, month, lastDay)));
+        }
+    }
+
+    private Movement randomExpense(YearMonth month) {
+        Leaf leaf = randomLeaf();
+        Movement movement = new Movement(leaf.category.getName(), HouseholdProfile.logNormalAmount(random, leaf.medianAmount),
+                MovementType.EXPENSE, HouseholdProfile.randomDay(random, month, lastDay));
+        movement.addCategory(leaf.category);
+        if (random.nextDouble() < SECOND_CATEGORY_PROBABILITY) {
+            movement.addCategory(randomLeaf().category);
+        }
+        return movement;
+    }
+
+    // Scelta pesata per quota di spese: ricerca binaria sui pesi cumulati
+    private Leaf randomLeaf() {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return leaves.get(low);
+    }
+
+    private void flush(List<Movement> chunk, MovementRepository movementRepository) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        movementRepository.saveAll(chunk);
+        movementCount += chunk.size();
+        chunk.clear();
+        System.out.println("LOADTEST - Inseriti " + movementCount + " movimenti");
+    }
+
+    private void createScheduledSeries(YearMonth firstMonth) {
+        if (scheduledSeries == 0) {
+            return;
+        }
+        ScheduledExpenseService scheduledExpenseService = ApplicationConfig.getScheduledExpenseService();
+
+        for (int i = 0; i < scheduledSeries; i++) {
+            RecurrenceType type = randomRecurrence();
+            ScheduledExpense expense = new ScheduledExpense(SERIES_NAMES[i % SERIES_NAMES.length],
+                    HouseholdProfile.logNormalAmount(random, type == RecurrenceType.YEARLY ? 400 : 60),
+                    MovementType.EXPENSE, firstMonth.atDay(1 + random.nextInt(28)));
+            expense.setRecurrenceType(type);
+            expense.setRecurrenceInterval(1);
+            if (!leaves.isEmpty()) {
+                expense.addCategory(randomLeaf().category);
+            }
+            scheduledExpenseService.createScheduledExpense(expense);
+        }
+
+        // Occorrenze fino a oggi come le genera lo scheduler; quelle gia' scadute risultano pagate
+        scheduledExpenseService.processRecurringExpenses();
+        int completed = 0;
+        for (ScheduledExpense expense : scheduledExpenseService.getAllScheduledExpenses()) {
+            if (!expense.isCompleted() && expense.getDueDate().isBefore(lastDay)) {
+                scheduledExpenseService.markAsCompleted(expense.getId());
+                completed++;
+            }
+        }
+        System.out.println("LOADTEST - Create " + scheduledSeries + " serie ricorrenti, " + completed + " occorrenze pagate");
+    }
+
+    private RecurrenceType randomRecurrence() {
+        double value = random.nextDouble();
+        if (value < 0.6) {
+            return RecurrenceType.MONTHLY;
+        }
+        return value < 0.75 ? RecurrenceType.WEEKLY : RecurrenceType.YEARLY;
+    }
+
+    private void createAmortizationPlans(YearMonth firstMonth, YearMonth lastMonth) {
+        int months = (int) firstMonth.until(lastMonth, ChronoUnit.MONTHS) + 1;
+
+        for (int i = 0; i < amortizationPlans; i++) {
+            boolean mortgage = i % 2 == 0;
+            AmortizationPlan plan = new AmortizationPlan(
+                    (mortgage ? "Mutuo " : "Finanziamento ") + (i + 1),
+                    HouseholdProfile.logNormalAmount(random, mortgage ? 140_000 : 15_000),
+                    new BigDecimal(mortgage ? "0.035" : "0.065"),
+                    mortgage ? 240 : 60,
+                    firstMonth.plusMonths(random.nextInt(months)).atDay(5));
+            plan.generateInstallments();
+            ApplicationConfig.getAmortizationPlanRepository().save(plan);
+            movementCount += plan.getNumberOfInstallments();
+        }
+        if (amortizationPlans > 0) {
+            System.out.println("LOADTEST - Creati " + amortizationPlans + " piani di ammortamento");
+        }
+    }
+}
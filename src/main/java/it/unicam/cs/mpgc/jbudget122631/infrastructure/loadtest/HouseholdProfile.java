@@ -0,0 +1,129 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.Random;
+
+// Distribuzioni di una famiglia tipo: spese con importi log-normali attorno alla mediana della categoria,
+// piu' frequenti nel fine settimana e a dicembre/agosto; stipendi mensili con tredicesima
+final class HouseholdProfile {
+
+    // Categorie principali: nome, sottocategorie suggerite, importo mediano, peso sul numero di spese
+    static final class CategoryTemplate {
+        final String name;
+        final String[] children;
+        final double medianAmount;
+        final double weight;
+
+        CategoryTemplate(String name, String[] children, double medianAmount, double weight) {
+            this.name = name;
+            this.children = children;
+            this.medianAmount = medianAmount;
+            this.weight = weight;
+        }
+    }
+
+    static final CategoryTemplate[] TEMPLATES = {
+            new CategoryTemplate("Alimentari", new String[]{"Supermercato", "Mercato", "Panetteria"}, 35, 30),
+            new CategoryTemplate("Casa", new String[]{"Bollette", "Manutenzione", "Arredamento"}, 70, 8),
+            new CategoryTemplate("Trasporti", new String[]{"Carburante", "Mezzi pubblici", "Manutenzione auto"}, 40, 14),
+            new CategoryTemplate("Ristoranti", new String[]{"Pranzi", "Cene", "Bar"}, 25, 14),
+            new CategoryTemplate("Salute", new String[]{"Farmacia", "Visite", "Dentista"}, 30, 5),
+            new CategoryTemplate("Svago", new String[]{"Cinema", "Abbonamenti", "Sport"}, 20, 9),
+            new CategoryTemplate("Abbigliamento", new String[]{"Adulti", "Bambini", "Scarpe"}, 45, 5),
+            new CategoryTemplate("Istruzione", new String[]{"Libri", "Corsi", "Materiale scolastico"}, 30, 3),
+            new CategoryTemplate("Viaggi", new String[]{"Alloggi", "Voli", "Escursioni"}, 120, 2),
+            new CategoryTemplate("Regali", new String[]{"Compleanni", "Festivita'", "Beneficenza"}, 35, 3)
+    };
+
+    private static final double AMOUNT_SIGMA = 0.7;
+    private static final double WEEKEND_FACTOR = 1.6;
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.50");
+
+    private HouseholdProfile() {}
+
+    static String templateName(int index) {
+        return index < TEMPLATES.length ? TEMPLATES[index].name : "Categoria " + (index + 1);
+    }
+
+    static CategoryTemplate template(int index) {
+        return TEMPLATES[index % TEMPLATES.length];
+    }
+
+    static String childName(CategoryTemplate template, String parentName, int index, int depth) {
+        if (depth == 1 && index < template.children.length) {
+            return template.children[index];
+        }
+        return parentName + " " + (index + 1);
+    }
+
+    // Stesso formato dei periodi creati dai budget (es. "Marzo 2025")
+    static String periodName(YearMonth month) {
+        String name = month.getMonth().getDisplayName(TextStyle.FULL, Locale.ITALIAN);
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + " " + month.getYear();
+    }
+
+    static double seasonalFactor(YearMonth month) {
+        switch (month.getMonth()) {
+            case DECEMBER:
+                return 1.35;
+            case AUGUST:
+                return 1.2;
+            case JANUARY:
+            case FEBRUARY:
+                return 0.9;
+            default:
+                return 1.0;
+        }
+    }
+
+    // Numero di eventi con media assegnata: Poisson esatta per medie piccole, approssimazione normale altrimenti
+    static int poisson(Random random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        if (mean > 60) {
+            return (int) Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    static BigDecimal logNormalAmount(Random random, double median) {
+        double amount = median * Math.exp(AMOUNT_SIGMA * random.nextGaussian());
+        BigDecimal value = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+        return value.compareTo(MIN_AMOUNT) < 0 ? MIN_AMOUNT : value;
+    }
+
+    // Valore atteso della log-normale, per stimare gli importi pianificati dei budget
+    static double expectedAmount(double median) {
+        return median * Math.exp(AMOUNT_SIGMA * AMOUNT_SIGMA / 2);
+    }
+
+    static BigDecimal normalAmount(Random random, double mean, double deviation) {
+        return BigDecimal.valueOf(Math.max(1, mean + deviation * random.nextGaussian())).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Giorno del mese con i fine settimana piu' probabili; nel mese corrente non oltre la data indicata
+    static LocalDate randomDay(Random random, YearMonth month, LocalDate lastDay) {
+        int days = month.equals(YearMonth.from(lastDay)) ? lastDay.getDayOfMonth() : month.lengthOfMonth();
+        while (true) {
+            LocalDate date = month.atDay(1 + random.nextInt(days));
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (weekend || random.nextDouble() * WEEKEND_FACTOR < 1) {
+                return date;
+            }
+        }
+    }
+}
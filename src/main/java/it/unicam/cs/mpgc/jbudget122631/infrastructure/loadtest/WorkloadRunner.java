@@ -0,0 +1,355 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.loadtest;
+
+import it.unicam.cs.mpgc.jbudget122631.application.dto.BudgetDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetSyncQueue;
+import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.MovementService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.ScheduledExpenseService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.StatisticsService;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics.OperationSnapshot;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics.OperationStats;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Carico misto di letture e scritture sulle interfacce di application.service, eseguito da piu' thread
+// su un database popolato da DatasetGenerator. Dopo il riscaldamento misura throughput e percentili di
+// latenza per operazione. I movimenti modificati o eliminati sono solo quelli creati dal carico stesso.
+//
+// Uso: WorkloadRunner --db ./data/loadtest --threads 8 --duration 60 --read-ratio 0.9
+public final class WorkloadRunner {
+
+    private static final Set<String> OPTIONS = Set.of("db", "threads", "duration", "warmup", "read-ratio", "seed", "help");
+
+    private static final int PAGE_SIZE = 50;
+    private static final String[] SEARCH_TERMS = {"Supermercato", "Bolletta", "Stipendio", "Farmacia", "Ristorante", "Affitto"};
+
+    private interface Action {
+        void run(Random random);
+    }
+
+    private static final class Operation {
+        final String name;
+        final boolean write;
+        final double weight;
+        final Action action;
+        final OperationStats stats;
+
+        Operation(String name, boolean write, double weight, Action action) {
+            this.name = name;
+            this.write = write;
+            this.weight = weight;
+            this.action = action;
+            this.stats = new OperationStats(name);
+        }
+    }
+
+    private final int threads;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final double readRatio;
+    private final long seed;
+
+    private MovementService movementService;
+    private BudgetService budgetService;
+    private StatisticsService statisticsService;
+    private CategoryService categoryService;
+    private ScheduledExpenseService scheduledExpenseService;
+
+    private List<Period> periods;
+    private List<Long> leafCategoryIds;
+    private long movementCount;
+    private final ConcurrentLinkedDeque<Long> createdMovementIds = new ConcurrentLinkedDeque<>();
+
+    private final List<Operation> operations = new ArrayList<>();
+    private double[] cumulativeWeights;
+    private volatile boolean measuring;
+    private volatile boolean running;
+
+    private WorkloadRunner(CommandLineOptions options) {
+        this.threads = options.getInt("threads", 8, 1);
+        this.durationSeconds = options.getLong("duration", 60L);
+        this.warmupSeconds = options.getLong("warmup", 10L);
+        this.readRatio = options.getDouble("read-ratio", 0.8, 0, 1);
+        this.seed = options.getLong("seed", 42L);
+        if (durationSeconds <= 0 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("--duration deve essere > 0 e --warmup >= 0");
+        }
+    }
+
+    public static void main(String[] args) {
+        CommandLineOptions options;
+        WorkloadRunner runner;
+        try {
+            options = new CommandLineOptions(args, OPTIONS);
+            runner = new WorkloadRunner(options);
+        } catch (IllegalArgumentException e) {
+            System.err.println("LOADTEST - " + e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+        if (options.has("help")) {
+            printUsage();
+            return;
+        }
+
+        int exitCode = 0;
+        try {
+            options.selectDatabase();
+            runner.run();
+        } catch (Exception e) {
+            System.err.println("LOADTEST - Carico di prova non riuscito: " + e.getMessage());
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            // Con le metriche attive lo shutdown scrive anche i tempi di repository e servizi
+            ApplicationConfig.shutdown();
+        }
+        System.exit(exitCode);
+    }
+
+    private static void printUsage() {
+        System.out.println("Uso: WorkloadRunner [opzioni]");
+        System.out.println("  --db <percorso>        database H2 su file popolato con DatasetGenerator");
+        System.out.println("  --threads <n>          thread concorrenti (default 8)");
+        System.out.println("  --duration <s>         secondi di misura (default 60)");
+        System.out.println("  --warmup <s>           secondi di riscaldamento non misurati (default 10)");
+        System.out.println("  --read-ratio <0..1>    quota di operazioni in lettura (default 0.8)");
+        System.out.println("  --seed <n>             seme dei numeri casuali (default 42)");
+    }
+
+    private void run() throws InterruptedException {
+        movementService = ApplicationConfig.getMovementService();
+        budgetService = ApplicationConfig.getBudgetService();
+        statisticsService = ApplicationConfig.getStatisticsService();
+        categoryService = ApplicationConfig.getCategoryService();
+        scheduledExpenseService = ApplicationConfig.getScheduledExpenseService();
+
+        loadReferenceData();
+        defineOperations();
+
+        System.out.println("LOADTEST - " + threads + " thread, " + warmupSeconds + " s di riscaldamento, " +
+                durationSeconds + " s di misura, letture " + Math.round(readRatio * 100) + "%");
+
+        running = true;
+        CountDownLatch finished = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Random random = new Random(seed + i);
+            Thread worker = new Thread(() -> {
+                try {
+                    workLoop(random);
+                } finally {
+                    finished.countDown();
+                }
+            }, "loadtest-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        // Le metriche di repository e servizi ripartono insieme a quelle del carico
+        operations.forEach(operation -> operation.stats.reset());
+        ApplicationConfig.getMetricsRegistry().reset();
+        measuring = true;
+        long start = System.nanoTime();
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        running = false;
+
+        if (!finished.await(30, TimeUnit.SECONDS)) {
+            System.err.println("LOADTEST - Alcuni thread non hanno terminato l'operazione in corso");
+        }
+        // Report stampato a sincronizzazione budget finita, per non mescolarlo con il suo output
+        BudgetSyncQueue syncQueue = ApplicationConfig.getBudgetSyncQueue();
+        if (!syncQueue.awaitVersion(syncQueue.getPublishedVersion(), 60, TimeUnit.SECONDS)) {
+            System.err.println("LOADTEST - Sincronizzazione budget ancora in corso: " + syncQueue.getPendingCount() + " modifiche");
+        }
+        printReport(elapsed);
+    }
+
+    private void loadReferenceData() {
+        periods = ApplicationConfig.getPeriodRepository().findAll();
+        movementCount = movementService.getTotalMovementsCount();
+        if (periods.isEmpty() || movementCount == 0) {
+            throw new RuntimeException("Database vuoto: generare prima i dati con DatasetGenerator");
+        }
+
+        leafCategoryIds = new ArrayList<>();
+        for (Category category : categoryService.getActiveCategories()) {
+            if (categoryService.getChildCategories(category.getId()).isEmpty()) {
+                leafCategoryIds.add(category.getId());
+            }
+        }
+        System.out.println("LOADTEST - Dati di partenza: " + movementCount + " movimenti, " + periods.size() +
+                " periodi, " + leafCategoryIds.size() + " categorie foglia");
+    }
+
+    // I pesi di ciascun gruppo sono relativi: la quota fra letture e scritture la decide --read-ratio
+    private void defineOperations() {
+        List<Operation> reads = new ArrayList<>();
+        reads.add(new Operation("movimenti.pagina", false, 30, random -> {
+            int offset = (int) (random.nextDouble() * Math.max(0, movementCount - PAGE_SIZE));
+            movementService.getMovementsPage(MovementQuery.all(), offset, PAGE_SIZE);
+        }));
+        reads.add(new Operation("movimenti.ricerca", false, 10, random ->
+                movementService.searchMovements(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)])));
+        reads.add(new Operation("statistiche.mese", false, 20, random -> {
+            Period period = randomPeriod(random);
+            statisticsService.getStatisticsForPeriod(period.getStartDate(), period.getEndDate());
+        }));
+        reads.add(new Operation("statistiche.intervallo", false, 10, random -> {
+            // Intervallo non allineato ai mesi: parte del calcolo non usa i totali mensili
+            Period period = randomPeriod(random);
+            LocalDate startDate = period.getStartDate().plusDays(random.nextInt(10));
+            statisticsService.getStatisticsForPeriod(startDate, startDate.plusDays(30 + random.nextInt(60)));
+        }));
+        reads.add(new Operation("budget.tutti", false, 8, random -> budgetService.getAllBudgets()));
+        reads.add(new Operation("budget.periodo", false, 12, random ->
+                budgetService.getBudgetsByPeriod(randomPeriod(random).getId())));
+        reads.add(new Operation("categorie.attive", false, 5, random -> categoryService.getActiveCategories()));
+        reads.add(new Operation("scadenze.attenzione", false, 5, random ->
+                scheduledExpenseService.getExpensesRequiringAttention()));
+
+        List<Operation> writes = new ArrayList<>();
+        writes.add(new Operation("movimenti.crea", true, 60, random -> {
+            MovementDTO created = movementService.createMovement(randomMovement(random));
+            createdMovementIds.addLast(created.getId());
+        }));
+        writes.add(new Operation("movimenti.modifica", true, 25, random -> {
+            // Preso in esclusiva: due thread non modificano mai lo stesso movimento, come un solo utente
+            Long id = createdMovementIds.pollLast();
+            if (id != null) {
+                try {
+                    movementService.updateMovement(id, randomMovement(random));
+                } finally {
+                    createdMovementIds.addLast(id);
+                }
+            }
+        }));
+        writes.add(new Operation("movimenti.elimina", true, 12, random -> {
+            Long id = createdMovementIds.pollFirst();
+            if (id != null) {
+                movementService.deleteMovement(id);
+            }
+        }));
+        writes.add(new Operation("budget.ricalcola", true, 3, random -> {
+            List<BudgetDTO> budgets = budgetService.getBudgetsByPeriod(randomPeriod(random).getId());
+            if (!budgets.isEmpty()) {
+                budgetService.updateBudgetWithRealMovements(budgets.get(random.nextInt(budgets.size())).getId());
+            }
+        }));
+
+        addGroup(reads, readRatio);
+        addGroup(writes, 1 - readRatio);
+
+        cumulativeWeights = new double[operations.size()];
+        double total = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            total += operations.get(i).weight;
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Nessuna operazione da eseguire");
+        }
+    }
+
+    private void addGroup(List<Operation> group, double share) {
+        double groupWeight = group.stream().mapToDouble(operation -> operation.weight).sum();
+        for (Operation operation : group) {
+            operations.add(new Operation(operation.name, operation.write,
+                    share * operation.weight / groupWeight, operation.action));
+        }
+    }
+
+    private void workLoop(Random random) {
+        while (running) {
+            Operation operation = nextOperation(random);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                operation.action.run(random);
+                failed = false;
+            } catch (Exception e) {
+                if (measuring) {
+                    System.err.println("LOADTEST - Errore in " + operation.name + ": " + e.getMessage());
+                }
+            } finally {
+                if (measuring) {
+                    operation.stats.record(System.nanoTime() - start, failed, -1);
+                }
+            }
+        }
+    }
+
+    private Operation nextOperation(Random random) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (target < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private Period randomPeriod(Random random) {
+        return periods.get(random.nextInt(periods.size()));
+    }
+
+    private MovementDTO randomMovement(Random random) {
+        Period period = randomPeriod(random);
+        int days = (int) period.getDurationInDays();
+        LocalDate date = period.getStartDate().plusDays(random.nextInt(Math.max(1, days)));
+        MovementDTO dto = new MovementDTO("Carico di prova", HouseholdProfile.logNormalAmount(random, 30),
+                MovementType.EXPENSE, date);
+        if (!leafCategoryIds.isEmpty()) {
+            dto.setCategoryIds(Collections.singletonList(leafCategoryIds.get(random.nextInt(leafCategoryIds.size()))));
+        }
+        return dto;
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long totalCalls = 0;
+        long totalErrors = 0;
+
+        System.out.println();
+        System.out.printf("%-24s %3s %9s %7s %9s %10s %10s %10s %10s %11s %11s%n",
+                "operazione", "r/w", "chiamate", "errori", "op/s", "media us", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Operation operation : operations) {
+            OperationSnapshot snapshot = operation.stats.snapshot();
+            if (snapshot.getCalls() == 0) {
+                continue;
+            }
+            totalCalls += snapshot.getCalls();
+            totalErrors += snapshot.getErrors();
+            System.out.printf("%-24s %3s %9d %7d %9.1f %10.1f %10.1f %10.1f %10.1f %11.1f %11.1f%n",
+                    operation.name, operation.write ? "w" : "r", snapshot.getCalls(), snapshot.getErrors(),
+                    snapshot.getCalls() / seconds, snapshot.getMeanMicros(), snapshot.getP50Micros(),
+                    operation.stats.percentileMicros(0.90), snapshot.getP99Micros(),
+                    operation.stats.percentileMicros(0.999), snapshot.getMaxMicros());
+        }
+        System.out.printf("%-24s %3s %9d %7d %9.1f%n", "totale", "", totalCalls, totalErrors, totalCalls / seconds);
+        System.out.println();
+        // I movimenti rimasti restano per i lanci successivi: le pagine a offset casuale li includono
+        System.out.println("LOADTEST - Movimenti creati dal carico ancora presenti: " + createdMovementIds.size());
+    }
+}
@@ -0,0 +1,73 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Istogramma delle durate a bucket logaritmici: quattro bucket per ogni potenza di due, quindi un
+// percentile e' stimato con un errore massimo di circa il 19%. Registrare costa un incremento atomico.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int SUB_BUCKET_BITS = 2;
+    // Fino a 2^42 ns (oltre un'ora); le durate maggiori finiscono nell'ultimo bucket
+    private static final int MAX_EXPONENT = 42;
+    private static final int BUCKETS = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketFor(nanos));
+    }
+
+    // Limite superiore del bucket che contiene il percentile richiesto (0 < quantile <= 1)
+    public long percentile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int bucketFor(long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        // I due bit successivi al piu' significativo scelgono il sotto-bucket
+        int sub = exponent >= SUB_BUCKET_BITS
+                ? (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1)
+                : 0;
+        return exponent * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        if (exponent < SUB_BUCKET_BITS) {
+            return (2L << exponent) - 1;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,18 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics;
+
+import java.util.List;
+
+// Metriche di repository e servizi consultabili da JConsole/VisualVM
+public interface MetricsMXBean {
+
+    // Operazioni ordinate per tempo totale decrescente
+    List<OperationSnapshot> getOperations();
+
+    String getReport();
+
+    long getTotalCalls();
+
+    String dumpToFile(String path);
+
+    void reset();
+}
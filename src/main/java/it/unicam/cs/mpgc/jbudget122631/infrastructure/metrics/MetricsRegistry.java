@@ -0,0 +1,176 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Strumentazione di repository e servizi: ogni interfaccia viene avvolta in un proxy che misura durata,
+// esito e righe restituite di ogni chiamata. I contatori sono esportati via JMX e scrivibili su file.
+public class MetricsRegistry implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "it.unicam.cs.mpgc.jbudget122631:type=Metrics";
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private ObjectName registeredName;
+
+    // Il nome del componente distingue, ad esempio, un repository dalla cache che lo precede
+    @SuppressWarnings("unchecked")
+    public <T> T instrument(Class<T> type, String component, T target) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException("Strumentabili solo le interfacce: " + type.getName());
+        }
+
+        // Contatori risolti una volta per metodo: nessuna costruzione di nomi durante le chiamate
+        Map<Method, OperationStats> statsByMethod = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            statsByMethod.put(method, operations.computeIfAbsent(component + "." + operationName(method), OperationStats::new));
+        }
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            OperationStats stats = statsByMethod.get(method);
+            if (stats == null) {
+                // equals, hashCode e toString di Object
+                return invokeTarget(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = invokeTarget(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                stats.record(System.nanoTime() - start, failed, rowCount(result));
+            }
+        };
+
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            // Il chiamante riceve l'eccezione originale, come senza proxy
+            throw e.getCause();
+        }
+    }
+
+    // Metodi sovraccarichi distinti dal numero di parametri
+    private static String operationName(Method method) {
+        return method.getName() + "/" + method.getParameterCount();
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+            System.out.println("METRICS - Metriche esportate via JMX come " + OBJECT_NAME);
+        } catch (Exception e) {
+            System.err.println("METRICS - Registrazione JMX non riuscita: " + e.getMessage());
+        }
+    }
+
+    public void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (Exception e) {
+            System.err.println("METRICS - Rimozione JMX non riuscita: " + e.getMessage());
+        }
+        registeredName = null;
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        return operations.values().stream()
+                .map(OperationStats::snapshot)
+                .filter(snapshot -> snapshot.getCalls() > 0)
+                .sorted(Comparator.comparingDouble(OperationSnapshot::getTotalMillis).reversed()
+                        .thenComparing(OperationSnapshot::getName))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long getTotalCalls() {
+        return getOperations().stream().mapToLong(OperationSnapshot::getCalls).sum();
+    }
+
+    @Override
+    public String getReport() {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+
+        out.println("# Metriche JBudget - " + LocalDateTime.now().withNano(0));
+        out.printf("%-62s %9s %6s %11s %10s %10s %10s %11s %9s %8s%n",
+                "operazione", "chiamate", "errori", "totale ms", "media us", "p50 us", "p99 us", "max us", "righe", "righe/ch");
+        for (OperationSnapshot op : getOperations()) {
+            out.printf("%-62s %9d %6d %11.1f %10.1f %10.1f %10.1f %11.1f %9d %8.1f%n",
+                    op.getName(), op.getCalls(), op.getErrors(), op.getTotalMillis(), op.getMeanMicros(),
+                    op.getP50Micros(), op.getP99Micros(), op.getMaxMicros(), op.getRows(), op.getRowsPerCall());
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    @Override
+    public String dumpToFile(String path) {
+        Path file = Paths.get(path).toAbsolutePath();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, getReport().getBytes(StandardCharsets.UTF_8));
+            System.out.println("METRICS - Metriche scritte in " + file);
+            return file.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Errore scrittura metriche su " + file, e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(OperationStats::reset);
+    }
+}
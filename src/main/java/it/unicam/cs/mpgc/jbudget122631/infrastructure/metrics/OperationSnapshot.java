@@ -0,0 +1,45 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics;
+
+import java.beans.ConstructorProperties;
+
+// Valori di un'operazione in un istante; tipo esportato via JMX, quindi solo getter di tipi semplici
+public class OperationSnapshot {
+
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final double totalMillis;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double maxMicros;
+    private final long rows;
+    private final double rowsPerCall;
+
+    @ConstructorProperties({"name", "calls", "errors", "totalMillis", "meanMicros",
+            "p50Micros", "p99Micros", "maxMicros", "rows", "rowsPerCall"})
+    public OperationSnapshot(String name, long calls, long errors, double totalMillis, double meanMicros,
+                             double p50Micros, double p99Micros, double maxMicros, long rows, double rowsPerCall) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.totalMillis = totalMillis;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.rows = rows;
+        this.rowsPerCall = rowsPerCall;
+    }
+
+    public String getName() { return name; }
+    public long getCalls() { return calls; }
+    public long getErrors() { return errors; }
+    public double getTotalMillis() { return totalMillis; }
+    public double getMeanMicros() { return meanMicros; }
+    public double getP50Micros() { return p50Micros; }
+    public double getP99Micros() { return p99Micros; }
+    public double getMaxMicros() { return maxMicros; }
+    public long getRows() { return rows; }
+    public double getRowsPerCall() { return rowsPerCall; }
+}
@@ -0,0 +1,72 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contatori di un singolo metodo strumentato, aggiornati senza lock dai thread chiamanti
+public class OperationStats {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder callsWithRows = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, boolean failed, long rowCount) {
+        calls.increment();
+        totalNanos.add(nanos);
+        latencies.record(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        if (failed) {
+            errors.increment();
+        }
+        // -1: il metodo non restituisce righe (es. salvataggi, totali)
+        if (rowCount >= 0) {
+            rows.add(rowCount);
+            callsWithRows.increment();
+        }
+    }
+
+    public OperationSnapshot snapshot() {
+        long count = calls.sum();
+        long total = totalNanos.sum();
+        long rowCalls = callsWithRows.sum();
+        long max = maxNanos.get();
+        // Il limite superiore del bucket non supera mai la durata massima osservata
+        return new OperationSnapshot(
+                name,
+                count,
+                errors.sum(),
+                total / 1_000_000.0,
+                count > 0 ? total / 1_000.0 / count : 0,
+                Math.min(latencies.percentile(0.50), max) / 1_000.0,
+                Math.min(latencies.percentile(0.99), max) / 1_000.0,
+                max / 1_000.0,
+                rows.sum(),
+                rowCalls > 0 ? (double) rows.sum() / rowCalls : 0);
+    }
+
+    // Percentili diversi da p50/p99 per i report del carico di prova
+    public double percentileMicros(double quantile) {
+        return Math.min(latencies.percentile(quantile), maxNanos.get()) / 1_000.0;
+    }
+
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        totalNanos.reset();
+        rows.reset();
+        callsWithRows.reset();
+        maxNanos.set(0);
+        latencies.reset();
+    }
+
+    public String getName() { return name; }
+}
@@ -0,0 +1,205 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.migration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class SchemaMigrator {
+
+    private static final String MIGRATION_PATH = "db/migration/";
+
+    // Script applicati in ordine di versione: ogni nuova migrazione va aggiunta in coda
+    private static final String[] MIGRATIONS = {
+            "V1__initial_schema.sql",
+            "V2__movement_sequence.sql",
+            "V3__movement_indexes.sql",
+            "V4__movement_monthly_totals.sql",
+            "V5__category_closure.sql",
+            "V6__recurring_series.sql",
+            "V7__movement_sort_indexes.sql",
+            "V8__recurring_series_start.sql"
+    };
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    public SchemaMigrator(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    public void migrate() {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            ensureVersionTable(connection);
+            Map<Integer, Long> applied = loadAppliedVersions(connection);
+
+            if (applied.isEmpty() && tableExists(connection, "MOVEMENTS")) {
+                // Database creato in precedenza da hbm2ddl: lo schema iniziale e' gia' presente
+                Migration baseline = loadMigration(MIGRATIONS[0]);
+                recordMigration(connection, baseline);
+                applied.put(baseline.version, baseline.checksum);
+                System.out.println("MIGRATION - Database esistente, baseline alla versione " + baseline.version);
+            }
+
+            int executed = 0;
+            for (String script : MIGRATIONS) {
+                Migration migration = loadMigration(script);
+                Long appliedChecksum = applied.get(migration.version);
+
+                if (appliedChecksum == null) {
+                    apply(connection, migration);
+                    executed++;
+                } else if (appliedChecksum != migration.checksum) {
+                    throw new IllegalStateException("Migrazione " + script + " modificata dopo l'applicazione");
+                }
+            }
+
+            System.out.println("MIGRATION - Schema aggiornato (" + executed + " migrazioni eseguite)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Errore durante la migrazione dello schema", e);
+        }
+    }
+
+    private void ensureVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "script VARCHAR(255) NOT NULL, " +
+                    "checksum BIGINT NOT NULL, " +
+                    "installed_on TIMESTAMP NOT NULL)");
+        }
+    }
+
+    private Map<Integer, Long> loadAppliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private boolean tableExists(Connection connection, String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getTables(null, null, tableName, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        System.out.println("MIGRATION - Applicazione " + migration.script);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements) {
+                statement.execute(sql);
+            }
+            recordMigration(connection, migration);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Errore nella migrazione " + migration.script + ": " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void recordMigration(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_version (version, script, checksum, installed_on) VALUES (?, ?, ?, ?)")) {
+            statement.setInt(1, migration.version);
+            statement.setString(2, migration.script);
+            statement.setLong(3, migration.checksum);
+            statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+        }
+    }
+
+    private Migration loadMigration(String script) {
+        String content = readScript(script);
+
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+
+        return new Migration(parseVersion(script), script, crc.getValue(), splitStatements(content));
+    }
+
+    private String readScript(String script) {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(MIGRATION_PATH + script)) {
+            if (in == null) {
+                throw new IllegalStateException("Script di migrazione non trovato: " + script);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Errore lettura script di migrazione " + script, e);
+        }
+    }
+
+    private static int parseVersion(String script) {
+        // Formato atteso: V<versione>__<descrizione>.sql
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2) {
+            throw new IllegalStateException("Nome script di migrazione non valido: " + script);
+        }
+        return Integer.parseInt(script.substring(1, separator));
+    }
+
+    private static List<String> splitStatements(String content) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : content.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String script;
+        private final long checksum;
+        private final List<String> statements;
+
+        private Migration(int version, String script, long checksum, List<String> statements) {
+            this.version = version;
+            this.script = script;
+            this.checksum = checksum;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.BoundedCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+public class CachedCategoryRepository implements CategoryRepository {
+
+    private static final int DEFAULT_ENTITY_CACHE_SIZE = 500;
+    private static final int DEFAULT_QUERY_CACHE_SIZE = 100;
+
+    private final CategoryRepository delegate;
+    private final BoundedCache<Long, Category> byId;
+    private final BoundedCache<String, List<Category>> queries;
+    private final BoundedCache<Long, List<Long>> descendantIds;
+    // Avvisati dopo ogni scrittura, per le cache costruite sopra questo repository
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    public CachedCategoryRepository(CategoryRepository delegate) {
+        this(delegate, DEFAULT_ENTITY_CACHE_SIZE, DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    public CachedCategoryRepository(CategoryRepository delegate, int entityCacheSize, int queryCacheSize) {
+        this.delegate = delegate;
+        this.byId = new BoundedCache<>("categorie", entityCacheSize);
+        this.queries = new BoundedCache<>("query categorie", queryCacheSize);
+        this.descendantIds = new BoundedCache<>("sottoalberi categorie", queryCacheSize);
+    }
+
+    @Override
+    public Category save(Category category) {
+        Category saved = delegate.save(category);
+        // Write-through: l'entita' aggiornata sostituisce quella in cache, le query vanno ricalcolate
+        queries.invalidateAll();
+        descendantIds.invalidateAll();
+        if (saved.getId() != null) {
+            byId.put(saved.getId(), saved.copy());
+        }
+        fireChanged();
+        return saved;
+    }
+
+    @Override
+    public Category saveWithParent(Category category, Long parentId) {
+        Category saved = delegate.saveWithParent(category, parentId);
+        // Il parent acquista un figlio e i sottoalberi degli antenati cambiano
+        invalidateAll();
+        fireChanged();
+        return saved;
+    }
+
+    @Override
+    public Optional<Category> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.get(id, key -> delegate.findById(key).orElse(null))).map(Category::copy);
+    }
+
+    @Override
+    public List<Category> findAll() {
+        return cachedQuery("all", () -> delegate.findAll());
+    }
+
+    @Override
+    public void delete(Category category) {
+        delegate.delete(category);
+        // La cancellazione si propaga alle sottocategorie: si svuota tutto
+        invalidateAll();
+        fireChanged();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        delegate.deleteById(id);
+        invalidateAll();
+        fireChanged();
+    }
+
+    @Override
+    public List<Category> findByName(String name) {
+        return cachedQuery("name:" + (name != null ? name.toLowerCase() : null), () -> delegate.findByName(name));
+    }
+
+    @Override
+    public List<Category> findByParent(Category parent) {
+        return cachedQuery("parent:" + idOf(parent), () -> delegate.findByParent(parent));
+    }
+
+    @Override
+    public List<Category> findRootCategories() {
+        return cachedQuery("roots", () -> delegate.findRootCategories());
+    }
+
+    @Override
+    public List<Category> findActiveCategories() {
+        return cachedQuery("active", () -> delegate.findActiveCategories());
+    }
+
+    @Override
+    public List<Category> findDescendants(Category category) {
+        return cachedQuery("descendants:" + idOf(category), () -> delegate.findDescendants(category));
+    }
+
+    @Override
+    public List<Category> findAncestors(Category category) {
+        return cachedQuery("ancestors:" + idOf(category), () -> delegate.findAncestors(category));
+    }
+
+    @Override
+    public List<Long> findDescendantIds(Long categoryId) {
+        return new ArrayList<>(descendantIds.get(categoryId, key -> delegate.findDescendantIds(key)));
+    }
+
+    @Override
+    public void moveInHierarchy(Long categoryId, Long newParentId) {
+        delegate.moveInHierarchy(categoryId, newParentId);
+        // Cambiano parent, percorsi e sottoalberi: le entita' in cache non sono piu' valide
+        invalidateAll();
+        fireChanged();
+    }
+
+    @Override
+    public boolean existsByNameAndParent(String name, Category parent) {
+        return delegate.existsByNameAndParent(name, parent);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        queries.invalidateAll();
+        descendantIds.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return byId.getHitCount() + queries.getHitCount() + descendantIds.getHitCount();
+    }
+
+    public long getMissCount() {
+        return byId.getMissCount() + queries.getMissCount() + descendantIds.getMissCount();
+    }
+
+    public String getCacheStatistics() {
+        return byId + ", " + queries + ", " + descendantIds;
+    }
+
+    private List<Category> cachedQuery(String key, Supplier<List<Category>> loader) {
+        // Copia difensiva di lista ed elementi: i chiamanti possono ordinarla o modificare una categoria
+        // prima di salvarla senza alterare quella in cache
+        return Category.copyAll(queries.get(key, k -> loader.get()));
+    }
+
+    private static Object idOf(Category category) {
+        return category != null ? category.getId() : null;
+    }
+}
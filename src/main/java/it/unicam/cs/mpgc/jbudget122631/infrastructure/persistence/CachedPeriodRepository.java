@@ -0,0 +1,150 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
+import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.DataVersion;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.PeriodIntervalIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachedPeriodRepository implements PeriodRepository {
+
+    private final PeriodRepository delegate;
+
+    // Tutti i periodi in memoria: sono poche righe e ogni movimento va associato ai periodi che lo contengono
+    private volatile PeriodIntervalIndex index;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public CachedPeriodRepository(PeriodRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Period save(Period period) {
+        Period saved = delegate.save(period);
+        // Le date possono essere cambiate: l'indice viene ricostruito alla prossima lettura
+        periodsChanged();
+        return saved;
+    }
+
+    @Override
+    public Optional<Period> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return index().byId(id);
+    }
+
+    @Override
+    public List<Period> findAll() {
+        return index().all();
+    }
+
+    @Override
+    public void delete(Period period) {
+        delegate.delete(period);
+        periodsChanged();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        delegate.deleteById(id);
+        periodsChanged();
+    }
+
+    @Override
+    public Optional<Period> findByName(String name) {
+        return index().byName(name);
+    }
+
+    @Override
+    public List<Period> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return index().overlapping(startDate, endDate);
+    }
+
+    @Override
+    public Optional<Period> findPeriodContaining(LocalDate date) {
+        List<Period> periods = index().containing(date);
+        return periods.isEmpty() ? Optional.empty() : Optional.of(periods.get(0));
+    }
+
+    @Override
+    public List<Period> findPeriodsContaining(LocalDate date) {
+        return index().containing(date);
+    }
+
+    @Override
+    public List<Period> findOverlappingPeriods(LocalDate startDate, LocalDate endDate) {
+        return index().overlapping(startDate, endDate);
+    }
+
+    @Override
+    public List<Period> findCurrentPeriods() {
+        return index().containing(LocalDate.now());
+    }
+
+    @Override
+    public List<Period> findFuturePeriods() {
+        return index().startingAfter(LocalDate.now());
+    }
+
+    @Override
+    public List<Period> findPastPeriods() {
+        return index().endingBefore(LocalDate.now());
+    }
+
+    @Override
+    public long count() {
+        return index().size();
+    }
+
+    // Sincronizzato con la ricostruzione: un indice letto prima di una scrittura non sopravvive ad essa
+    public synchronized void invalidateAll() {
+        index = null;
+    }
+
+    // Nuova versione dopo aver scartato l'indice: le statistiche calcolate tra il commit e l'invalidazione
+    // con i periodi precedenti restano legate alla versione del commit e non vengono piu' servite
+    private void periodsChanged() {
+        invalidateAll();
+        DataVersion.increment();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return rebuilds.get();
+    }
+
+    public String getCacheStatistics() {
+        PeriodIntervalIndex current = index;
+        return String.format("Indice periodi: %d periodi, %d letture, %d ricostruzioni",
+                current != null ? current.size() : 0, getHitCount(), getMissCount());
+    }
+
+    private PeriodIntervalIndex index() {
+        PeriodIntervalIndex current = index;
+        if (current != null) {
+            hits.incrementAndGet();
+            return current;
+        }
+
+        synchronized (this) {
+            if (index == null) {
+                index = new PeriodIntervalIndex(delegate.findAll());
+                rebuilds.incrementAndGet();
+                System.out.println("REPOSITORY - Indice periodi ricostruito: " + index.size() + " periodi");
+            } else {
+                hits.incrementAndGet();
+            }
+            return index;
+        }
+    }
+}
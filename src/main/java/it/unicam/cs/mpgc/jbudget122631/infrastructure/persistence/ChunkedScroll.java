@@ -0,0 +1,60 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+// Lettura completa in streaming: cursore forward-only sui soli ID, entita' caricate a blocchi e
+// contesto di persistenza svuotato dopo ogni blocco, cosi' la memoria non cresce con la tabella
+final class ChunkedScroll {
+
+    static final int CHUNK_SIZE = 500;
+
+    private ChunkedScroll() {}
+
+    // idQuery seleziona i soli ID nell'ordine di consegna; loadChunk carica le entita' di un blocco in quell'ordine
+    static <T> void forEach(SessionFactory sessionFactory, String idQuery,
+                            BiFunction<Session, List<Long>, List<T>> loadChunk,
+                            Consumer<T> action, String errorMessage) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            // Il cursore resta aperto solo all'interno di una transazione: senza, Hibernate
+            // rilascerebbe le risorse JDBC dopo la prima query eseguita durante la lettura
+            transaction = session.beginTransaction();
+            try (ScrollableResults ids = session.createQuery(idQuery)
+                         .setFetchSize(CHUNK_SIZE)
+                         .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<Long> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (ids.next()) {
+                    chunk.add((Long) ids.get(0));
+                    if (chunk.size() == CHUNK_SIZE) {
+                        deliver(session, chunk, loadChunk, action);
+                    }
+                }
+                deliver(session, chunk, loadChunk, action);
+            }
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+
+    private static <T> void deliver(Session session, List<Long> chunk,
+                                    BiFunction<Session, List<Long>, List<T>> loadChunk, Consumer<T> action) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        loadChunk.apply(session, chunk).forEach(action);
+        chunk.clear();
+        session.clear();
+    }
+}
@@ -4,6 +4,7 @@ import it.unicam.cs.mpgc.jbudget122631.domain.model.Budget;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.BudgetRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.DataVersion;
 import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
 
 import org.hibernate.Session;
@@ -11,8 +12,12 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class JpaBudgetRepository implements BudgetRepository {
 
@@ -41,6 +46,7 @@ public class JpaBudgetRepository implements BudgetRepository {
             System.out.println("  - Budget actualExpenses: €" + budget.getActualExpenses());
 
             transaction.commit();
+            DataVersion.increment();
 
             System.out.println("REPOSITORY - AFTER COMMIT:");
             System.out.println("  - Budget ID: " + budget.getId());
@@ -112,6 +118,18 @@ public class JpaBudgetRepository implements BudgetRepository {
         }
     }
 
+    @Override
+    public void scrollAll(Consumer<Budget> action) {
+        ChunkedScroll.forEach(sessionFactory, "SELECT b.id FROM Budget b ORDER BY b.id",
+                (session, ids) -> session.createQuery(
+                                "SELECT b FROM Budget b JOIN FETCH b.period LEFT JOIN FETCH b.category " +
+                                        "WHERE b.id IN (:ids) ORDER BY b.id",
+                                Budget.class)
+                        .setParameterList("ids", ids)
+                        .getResultList(),
+                action, "Errore lettura in streaming dei budget");
+    }
+
     @Override
     public void delete(Budget budget) {
         Transaction transaction = null;
@@ -119,6 +137,7 @@ public class JpaBudgetRepository implements BudgetRepository {
             transaction = session.beginTransaction();
             session.delete(budget);
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione budget", e);
@@ -135,6 +154,7 @@ public class JpaBudgetRepository implements BudgetRepository {
                 session.delete(budget);
             }
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione budget per ID", e);
@@ -261,6 +281,49 @@ public class JpaBudgetRepository implements BudgetRepository {
         }
     }
 
+    @Override
+    public List<Budget> findByDate(LocalDate date) {
+        try (Session session = sessionFactory.openSession()) {
+            Query<Budget> query = session.createQuery(
+                    "SELECT DISTINCT b FROM Budget b " +
+                            "JOIN FETCH b.period p " +
+                            "LEFT JOIN FETCH b.category " +
+                            "WHERE p.startDate <= :date AND p.endDate >= :date",
+                    Budget.class);
+            query.setParameter("date", date);
+            return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca budget per data", e);
+        }
+    }
+
+    @Override
+    public void updateActuals(Long budgetId, BigDecimal actualIncome, BigDecimal actualExpenses) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+
+            // Il ricalcolo non riscrive l'intera entity letta prima del calcolo
+            session.createQuery(
+                            "UPDATE Budget b SET " +
+                                    "b.actualIncome = :actualIncome, " +
+                                    "b.actualExpenses = :actualExpenses, " +
+                                    "b.updatedAt = :updatedAt " +
+                                    "WHERE b.id = :id")
+                    .setParameter("actualIncome", actualIncome)
+                    .setParameter("actualExpenses", actualExpenses)
+                    .setParameter("updatedAt", LocalDateTime.now())
+                    .setParameter("id", budgetId)
+                    .executeUpdate();
+
+            transaction.commit();
+            DataVersion.increment();
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            throw new RuntimeException("Errore aggiornamento valori reali budget", e);
+        }
+    }
+
     @Override
     public long count() {
         try (Session session = sessionFactory.openSession()) {
@@ -2,6 +2,7 @@ package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
 
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.CategoryRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.DataVersion;
 import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
 
 import org.hibernate.Session;
@@ -9,8 +10,10 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class JpaCategoryRepository implements CategoryRepository {
 
@@ -27,6 +30,27 @@ public class JpaCategoryRepository implements CategoryRepository {
             transaction = session.beginTransaction();
             session.saveOrUpdate(category);
             transaction.commit();
+            DataVersion.increment();
+            return category;
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            throw new RuntimeException("Errore salvataggio categoria", e);
+        }
+    }
+
+    // Categoria e righe della gerarchia nella stessa transazione: nessuna radice orfana se la seconda fallisce
+    @Override
+    public Category saveWithParent(Category category, Long parentId) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            session.saveOrUpdate(category);
+            session.flush();
+            if (parentId != null) {
+                attachToParent(session, category.getId(), parentId);
+            }
+            transaction.commit();
+            DataVersion.increment();
             return category;
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
@@ -59,8 +83,10 @@ public class JpaCategoryRepository implements CategoryRepository {
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
+            removeFromHierarchy(session, category.getId());
             session.delete(category);
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione categoria", e);
@@ -74,9 +100,11 @@ public class JpaCategoryRepository implements CategoryRepository {
             transaction = session.beginTransaction();
             Category category = session.get(Category.class, id);
             if (category != null) {
+                removeFromHierarchy(session, id);
                 session.delete(category);
             }
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione categoria per ID", e);
@@ -131,21 +159,128 @@ public class JpaCategoryRepository implements CategoryRepository {
 
     @Override
     public List<Category> findDescendants(Category category) {
-        return findByParent(category);
+        try (Session session = sessionFactory.openSession()) {
+            // Tutti i livelli del sottoalbero con un solo join sulla tabella di chiusura
+            return session.createNativeQuery(
+                            "SELECT c.* FROM categories c " +
+                                    "JOIN category_closure cc ON cc.descendant_id = c.id " +
+                                    "WHERE cc.ancestor_id = :categoryId ORDER BY cc.depth, c.name",
+                            Category.class)
+                    .setParameter("categoryId", category.getId())
+                    .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca discendenti categoria", e);
+        }
     }
 
     @Override
     public List<Category> findAncestors(Category category) {
         try (Session session = sessionFactory.openSession()) {
-            if (category.getParent() != null) {
-                return List.of(category.getParent());
-            }
-            return List.of();
+            // Dalla radice al parent diretto, nello stesso ordine di Category.getPath()
+            return session.createNativeQuery(
+                            "SELECT c.* FROM categories c " +
+                                    "JOIN category_closure cc ON cc.ancestor_id = c.id " +
+                                    "WHERE cc.descendant_id = :categoryId ORDER BY cc.depth DESC",
+                            Category.class)
+                    .setParameter("categoryId", category.getId())
+                    .getResultList();
         } catch (Exception e) {
             throw new RuntimeException("Errore ricerca antenati categoria", e);
         }
     }
 
+    @Override
+    public List<Long> findDescendantIds(Long categoryId) {
+        try (Session session = sessionFactory.openSession()) {
+            return descendantIds(session, categoryId);
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca ID discendenti categoria", e);
+        }
+    }
+
+    @Override
+    public void moveInHierarchy(Long categoryId, Long newParentId) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+
+            List<Long> subtree = new ArrayList<>();
+            subtree.add(categoryId);
+            subtree.addAll(descendantIds(session, categoryId));
+            if (newParentId != null && subtree.contains(newParentId)) {
+                throw new IllegalArgumentException("Ciclo nella gerarchia non ammesso");
+            }
+
+            // Si scollega il sottoalbero dai vecchi antenati, lasciando intatti i legami interni
+            session.createNativeQuery(
+                            "DELETE FROM category_closure " +
+                                    "WHERE descendant_id IN (:subtree) AND ancestor_id NOT IN (:subtree)")
+                    .setParameterList("subtree", subtree)
+                    .executeUpdate();
+
+            if (newParentId != null) {
+                attachToParent(session, categoryId, newParentId);
+            } else {
+                session.createNativeQuery("UPDATE categories SET parent_id = NULL WHERE id = :categoryId")
+                        .setParameter("categoryId", categoryId)
+                        .executeUpdate();
+            }
+
+            transaction.commit();
+            DataVersion.increment();
+        } catch (IllegalArgumentException e) {
+            if (transaction != null) transaction.rollback();
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            throw new RuntimeException("Errore aggiornamento gerarchia categorie", e);
+        }
+    }
+
+    // Imposta il parent e collega la categoria (con il suo sottoalbero) agli antenati del nuovo parent
+    private void attachToParent(Session session, Long categoryId, Long parentId) {
+        session.createNativeQuery("UPDATE categories SET parent_id = :parentId WHERE id = :categoryId")
+                .setParameter("parentId", parentId)
+                .setParameter("categoryId", categoryId)
+                .executeUpdate();
+
+        // Prodotto cartesiano tra gli antenati del nuovo parent (parent incluso) e il sottoalbero
+        session.createNativeQuery(
+                        "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                                "SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1 FROM " +
+                                "(SELECT ancestor_id, depth FROM category_closure WHERE descendant_id = :parentId " +
+                                " UNION ALL SELECT CAST(:parentId AS BIGINT), 0) a CROSS JOIN " +
+                                "(SELECT descendant_id, depth FROM category_closure WHERE ancestor_id = :categoryId " +
+                                " UNION ALL SELECT CAST(:categoryId AS BIGINT), 0) d")
+                .setParameter("parentId", parentId)
+                .setParameter("categoryId", categoryId)
+                .executeUpdate();
+    }
+
+    // Righe della gerarchia che riguardano la categoria eliminata (il servizio ammette solo foglie)
+    private void removeFromHierarchy(Session session, Long categoryId) {
+        List<Long> subtree = new ArrayList<>();
+        subtree.add(categoryId);
+        subtree.addAll(descendantIds(session, categoryId));
+
+        session.createNativeQuery(
+                        "DELETE FROM category_closure " +
+                                "WHERE descendant_id IN (:subtree) OR ancestor_id IN (:subtree)")
+                .setParameterList("subtree", subtree)
+                .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> descendantIds(Session session, Long categoryId) {
+        List<Object> ids = session.createNativeQuery(
+                        "SELECT descendant_id FROM category_closure WHERE ancestor_id = :categoryId ORDER BY depth")
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+        return ids.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+    }
+
     @Override
     public boolean existsByNameAndParent(String name, Category parent) {
         try (Session session = sessionFactory.openSession()) {
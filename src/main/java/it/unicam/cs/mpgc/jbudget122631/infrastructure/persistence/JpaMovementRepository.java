@@ -2,8 +2,12 @@ package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
 
 import it.unicam.cs.mpgc.jbudget122631.domain.model.*;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.MovementRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.DataVersion;
 import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.search.MovementSearchIndex;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -11,15 +15,47 @@ import org.hibernate.query.Query;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class JpaMovementRepository implements MovementRepository {
 
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final SessionFactory sessionFactory;
+    private final int batchSize;
+    private final MovementSearchIndex searchIndex = new MovementSearchIndex();
 
     public JpaMovementRepository() {
         this.sessionFactory = HibernateConfig.getSessionFactory();
+        this.batchSize = configuredBatchSize(sessionFactory);
+    }
+
+    public JpaMovementRepository(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Dimensione batch deve essere > 0");
+        }
+        this.sessionFactory = HibernateConfig.getSessionFactory();
+        this.batchSize = batchSize;
+    }
+
+    private static int configuredBatchSize(SessionFactory sessionFactory) {
+        Object value = sessionFactory.getProperties().get("hibernate.jdbc.batch_size");
+        try {
+            int size = value != null ? Integer.parseInt(value.toString().trim()) : DEFAULT_BATCH_SIZE;
+            return size > 0 ? size : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
     }
 
     @Override
@@ -30,10 +66,20 @@ public class JpaMovementRepository implements MovementRepository {
 
             System.out.println("REPOSITORY - Salvando movement con " + movement.getCategories().size() + " categorie");
 
+            MonthlyTotalsRollup rollup = new MonthlyTotalsRollup();
+            if (movement.getId() != null) {
+                rollup.subtractStored(session, movement.getId());
+            }
+
             session.saveOrUpdate(movement);
             session.flush();
 
+            rollup.add(movement.getDate(), movement.getType(), movement.getAmount(), categoryIdsOf(movement));
+            rollup.apply(session);
+
             transaction.commit();
+            DataVersion.increment();
+            updateSearchIndex(List.of(movement));
 
             System.out.println("REPOSITORY - Movement salvato con ID: " + movement.getId());
 
@@ -46,6 +92,48 @@ public class JpaMovementRepository implements MovementRepository {
         }
     }
 
+    @Override
+    public List<Movement> saveAll(Collection<Movement> movements) {
+        List<Movement> saved = new ArrayList<>(movements);
+        if (saved.isEmpty()) {
+            return saved;
+        }
+
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(batchSize);
+            transaction = session.beginTransaction();
+
+            MonthlyTotalsRollup rollup = new MonthlyTotalsRollup();
+            int pending = 0;
+            for (Movement movement : saved) {
+                session.save(movement);
+                rollup.add(movement.getDate(), movement.getType(), movement.getAmount(), categoryIdsOf(movement));
+
+                // Flush a blocchi: un round-trip JDBC per batch e contesto di persistenza limitato
+                if (++pending == batchSize) {
+                    session.flush();
+                    session.clear();
+                    pending = 0;
+                }
+            }
+            session.flush();
+            rollup.apply(session);
+
+            transaction.commit();
+            DataVersion.increment();
+            updateSearchIndex(saved);
+
+            System.out.println("REPOSITORY - Inseriti " + saved.size() + " movimenti (batch " + batchSize + ")");
+            return saved;
+
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            System.err.println("REPOSITORY - Errore inserimento massivo: " + e.getMessage());
+            throw new RuntimeException("Errore inserimento massivo movimenti", e);
+        }
+    }
+
     @Override
     public Optional<Movement> findById(Long id) {
         try (Session session = sessionFactory.openSession()) {
@@ -83,8 +171,15 @@ public class JpaMovementRepository implements MovementRepository {
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
+
+            MonthlyTotalsRollup rollup = new MonthlyTotalsRollup();
+            rollup.subtractStored(session, movement.getId());
+
             session.delete(movement);
+            rollup.apply(session);
             transaction.commit();
+            DataVersion.increment();
+            removeFromSearchIndex(movement.getId());
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione movimento", e);
@@ -113,11 +208,17 @@ public class JpaMovementRepository implements MovementRepository {
                     session.update(scheduledExpense);
                 }
 
+                MonthlyTotalsRollup rollup = new MonthlyTotalsRollup();
+                rollup.subtractStored(session, id);
+
                 // Ora elimina il movimento
                 session.delete(movement);
+                rollup.apply(session);
             }
 
             transaction.commit();
+            DataVersion.increment();
+            removeFromSearchIndex(id);
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione movimento per ID", e);
@@ -175,6 +276,290 @@ public class JpaMovementRepository implements MovementRepository {
         return findByDateBetween(period.getStartDate(), period.getEndDate());
     }
 
+    @Override
+    public List<MovementSummary> findAllSummaries() {
+        try (Session session = sessionFactory.openSession()) {
+            return querySummaries(session, "", Map.of());
+        } catch (Exception e) {
+            throw new RuntimeException("Errore recupero elenco movimenti", e);
+        }
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByDateBetween(LocalDate startDate, LocalDate endDate) {
+        try (Session session = sessionFactory.openSession()) {
+            return querySummaries(session, "WHERE m.date BETWEEN :startDate AND :endDate",
+                    Map.of("startDate", startDate, "endDate", endDate));
+        } catch (Exception e) {
+            throw new RuntimeException("Errore elenco movimenti per intervallo date", e);
+        }
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByType(MovementType type) {
+        try (Session session = sessionFactory.openSession()) {
+            return querySummaries(session, "WHERE m.type = :type", Map.of("type", type));
+        } catch (Exception e) {
+            throw new RuntimeException("Errore elenco movimenti per tipo", e);
+        }
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByCategory(Long categoryId) {
+        try (Session session = sessionFactory.openSession()) {
+            // Filtro tramite sottoquery: la riga riporta comunque tutte le categorie del movimento
+            return querySummaries(session,
+                    "WHERE m.id IN (SELECT m2.id FROM Movement m2 JOIN m2.categories c2 WHERE c2.id = :categoryId)",
+                    Map.of("categoryId", categoryId));
+        } catch (Exception e) {
+            throw new RuntimeException("Errore elenco movimenti per categoria", e);
+        }
+    }
+
+    @Override
+    public List<MovementSummary> findSummariesByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            return summariesByIds(session, ids);
+        } catch (Exception e) {
+            throw new RuntimeException("Errore elenco movimenti per ID", e);
+        }
+    }
+
+    private List<MovementSummary> summariesByIds(Session session, List<Long> ids) {
+        Map<Long, MovementSummary> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            int to = Math.min(from + MAX_IDS_PER_QUERY, ids.size());
+            for (MovementSummary summary : querySummaries(session, "WHERE m.id IN (:ids)",
+                    Map.of("ids", ids.subList(from, to)))) {
+                byId.put(summary.getId(), summary);
+            }
+        }
+
+        // Restituisce le righe nell'ordine degli ID richiesti (es. ranking della ricerca)
+        List<MovementSummary> results = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            MovementSummary summary = byId.get(id);
+            if (summary != null) {
+                results.add(summary);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<MovementSummary> findSummaryPageAfter(MovementCursor cursor, int size) {
+        try (Session session = sessionFactory.openSession()) {
+            List<Long> ids = pageIdsAfter(session, cursor, size);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            return querySummaries(session, "WHERE m.id IN (:ids)", Map.of("ids", ids));
+        } catch (Exception e) {
+            throw new RuntimeException("Errore paginazione elenco movimenti per cursore", e);
+        }
+    }
+
+    @Override
+    public List<MovementSummary> findSummaryPage(MovementQuery query, int offset, int size) {
+        Map<String, Object> parameters = new HashMap<>();
+        String whereClause = filterClause(query, parameters);
+        if (whereClause == null) {
+            return List.of();
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            List<Map<String, Object>> chunks = textIdChunks(parameters);
+            if (chunks.size() > 1) {
+                return summaryPageOverChunks(session, query, whereClause, chunks, offset, size);
+            }
+
+            // LIMIT/OFFSET sui soli ID nell'ordinamento richiesto, poi le righe della finestra
+            Query<Long> idQuery = session.createQuery(
+                    "SELECT m.id FROM Movement m " + whereClause + orderBy(query), Long.class);
+            bindParameters(idQuery, parameters);
+            idQuery.setFirstResult(offset);
+            idQuery.setMaxResults(size);
+
+            List<Long> ids = idQuery.getResultList();
+            return ids.isEmpty() ? List.of() : summariesByIds(session, ids);
+        } catch (Exception e) {
+            throw new RuntimeException("Errore caricamento pagina movimenti", e);
+        }
+    }
+
+    // Ricerca testuale con molti risultati: ogni blocco di ID restituisce al massimo offset + size chiavi di
+    // ordinamento, che si fondono in memoria; delle righe si leggono solo quelle della finestra
+    private List<MovementSummary> summaryPageOverChunks(Session session, MovementQuery query, String whereClause,
+                                                       List<Map<String, Object>> chunks, int offset, int size) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, (long) offset + size);
+        List<Object[]> keys = new ArrayList<>();
+        for (Map<String, Object> chunk : chunks) {
+            Query<Object[]> keyQuery = session.createQuery(
+                    "SELECT m.id, " + sortColumn(query.getSortField()) + " FROM Movement m " + whereClause + orderBy(query),
+                    Object[].class);
+            bindParameters(keyQuery, chunk);
+            keyQuery.setMaxResults(limit);
+            keys.addAll(keyQuery.getResultList());
+        }
+
+        Comparator<Object[]> order = Comparator.<Object[], Object>comparing(row -> row[1], JpaMovementRepository::compareSortKeys)
+                .thenComparing(row -> (Long) row[0]);
+        keys.sort(query.isAscending() ? order : order.reversed());
+
+        List<Long> ids = keys.subList(Math.min(offset, keys.size()), Math.min(limit, keys.size())).stream()
+                .map(row -> (Long) row[0])
+                .collect(Collectors.toList());
+        return ids.isEmpty() ? List.of() : summariesByIds(session, ids);
+    }
+
+    // Stesso confronto del database: il tipo e' salvato come stringa
+    @SuppressWarnings("unchecked")
+    private static int compareSortKeys(Object a, Object b) {
+        if (a instanceof Enum) {
+            return ((Enum<?>) a).name().compareTo(((Enum<?>) b).name());
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    @Override
+    public long countMatching(MovementQuery query) {
+        Map<String, Object> parameters = new HashMap<>();
+        String whereClause = filterClause(query, parameters);
+        if (whereClause == null) {
+            return 0;
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            // I blocchi di ID della ricerca sono disgiunti: i conteggi si sommano
+            long count = 0;
+            for (Map<String, Object> chunk : textIdChunks(parameters)) {
+                Query<Long> countQuery = session.createQuery(
+                        "SELECT COUNT(m.id) FROM Movement m " + whereClause, Long.class);
+                bindParameters(countQuery, chunk);
+                count += countQuery.getSingleResult();
+            }
+            return count;
+        } catch (Exception e) {
+            throw new RuntimeException("Errore conteggio movimenti filtrati", e);
+        }
+    }
+
+    private String orderBy(MovementQuery query) {
+        String direction = query.isAscending() ? "ASC" : "DESC";
+        return " ORDER BY " + sortColumn(query.getSortField()) + " " + direction + ", m.id " + direction;
+    }
+
+    // Parametri per blocchi di al massimo MAX_IDS_PER_QUERY ID della ricerca testuale: un IN con centinaia
+    // di migliaia di parametri peserebbe su driver e cache delle query. Senza testo, un solo blocco.
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> textIdChunks(Map<String, Object> parameters) {
+        List<Long> ids = (List<Long>) parameters.get("ids");
+        if (ids == null || ids.size() <= MAX_IDS_PER_QUERY) {
+            return List.of(parameters);
+        }
+
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            Map<String, Object> chunk = new HashMap<>(parameters);
+            chunk.put("ids", ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size())));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    // Clausola WHERE dei filtri, oppure null se la ricerca testuale non trova nulla
+    private String filterClause(MovementQuery query, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+
+        if (query.hasText()) {
+            // Il testo passa dall'indice di ricerca: al database arrivano solo gli ID corrispondenti,
+            // a blocchi se sono molti (textIdChunks)
+            List<Long> ids = searchIds(query.getText());
+            if (ids.isEmpty()) {
+                return null;
+            }
+            conditions.add("m.id IN (:ids)");
+            parameters.put("ids", ids);
+        }
+        if (query.getType() != null) {
+            conditions.add("m.type = :type");
+            parameters.put("type", query.getType());
+        }
+        if (query.getStartDate() != null) {
+            conditions.add("m.date >= :startDate");
+            parameters.put("startDate", query.getStartDate());
+        }
+        if (query.getEndDate() != null) {
+            conditions.add("m.date <= :endDate");
+            parameters.put("endDate", query.getEndDate());
+        }
+        if (query.getCategoryId() != null) {
+            conditions.add("m.id IN (SELECT m2.id FROM Movement m2 JOIN m2.categories c2 WHERE c2.id = :categoryId)");
+            parameters.put("categoryId", query.getCategoryId());
+        }
+        if (query.getMinAmount() != null) {
+            conditions.add("m.amount >= :minAmount");
+            parameters.put("minAmount", query.getMinAmount());
+        }
+        if (query.getMaxAmount() != null) {
+            conditions.add("m.amount <= :maxAmount");
+            parameters.put("maxAmount", query.getMaxAmount());
+        }
+
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    private String sortColumn(MovementQuery.SortField sortField) {
+        switch (sortField) {
+            case DESCRIPTION:
+                return "m.description";
+            case AMOUNT:
+                return "m.amount";
+            case TYPE:
+                return "m.type";
+            default:
+                return "m.date";
+        }
+    }
+
+    private void bindParameters(Query<?> query, Map<String, Object> parameters) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            if (parameter.getValue() instanceof Collection) {
+                query.setParameterList(parameter.getKey(), (Collection<?>) parameter.getValue());
+            } else {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+    }
+
+    private List<MovementSummary> querySummaries(Session session, String whereClause, Map<String, Object> parameters) {
+        // Una riga per coppia (movimento, categoria): gli ID categoria vengono raccolti sulla stessa riga di riepilogo
+        Query<Object[]> query = session.createQuery(
+                "SELECT m.id, m.description, m.amount, m.type, m.date, m.notes, m.scheduled, c.id " +
+                        "FROM Movement m LEFT JOIN m.categories c " + whereClause +
+                        " ORDER BY m.date DESC, m.id DESC",
+                Object[].class);
+        bindParameters(query, parameters);
+        query.setReadOnly(true);
+
+        Map<Long, MovementSummary> summaries = new LinkedHashMap<>();
+        for (Object[] row : query.getResultList()) {
+            Long id = (Long) row[0];
+            MovementSummary summary = summaries.get(id);
+            if (summary == null) {
+                summary = new MovementSummary(id, (String) row[1], (BigDecimal) row[2], (MovementType) row[3],
+                        (LocalDate) row[4], (String) row[5], Boolean.TRUE.equals(row[6]));
+                summaries.put(id, summary);
+            }
+            summary.addCategoryId((Long) row[7]);
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
     @Override
     public BigDecimal getTotalByTypeAndDateRange(MovementType type, LocalDate startDate, LocalDate endDate) {
         try (Session session = sessionFactory.openSession()) {
@@ -207,18 +592,242 @@ public class JpaMovementRepository implements MovementRepository {
     }
 
     @Override
-    public List<Movement> findByDescriptionContaining(String description) {
+    public List<CategoryTypeTotal> getTotalsByCategoryAndType(LocalDate startDate, LocalDate endDate) {
         try (Session session = sessionFactory.openSession()) {
-            Query<Movement> query = session.createQuery(
-                    "SELECT DISTINCT m FROM Movement m LEFT JOIN FETCH m.categories WHERE LOWER(m.description) LIKE LOWER(:description) ORDER BY m.date DESC",
-                    Movement.class);
-            query.setParameter("description", "%" + description + "%");
+            // Un solo GROUP BY sulla tabella movement_categories invece di una query per categoria
+            Query<CategoryTypeTotal> query = session.createQuery(
+                    "SELECT new it.unicam.cs.mpgc.jbudget122631.domain.model.CategoryTypeTotal(c.id, m.type, SUM(m.amount)) " +
+                            "FROM Movement m JOIN m.categories c " +
+                            "WHERE m.date BETWEEN :startDate AND :endDate " +
+                            "GROUP BY c.id, m.type",
+                    CategoryTypeTotal.class);
+            query.setParameter("startDate", startDate);
+            query.setParameter("endDate", endDate);
             return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore calcolo totali per categoria e tipo", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CategoryTypeTotal> getSubtreeTotalsByType(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        try (Session session = sessionFactory.openSession()) {
+            // Semi-join sulla tabella di chiusura: la categoria stessa piu' tutti i discendenti a qualsiasi profondita'
+            List<Object[]> rows = session.createNativeQuery(
+                            "SELECT m.type, SUM(m.amount) FROM movements m " +
+                                    "WHERE m.date BETWEEN :startDate AND :endDate AND m.id IN (" +
+                                    "SELECT mc.movement_id FROM movement_categories mc " +
+                                    "LEFT JOIN category_closure cc " +
+                                    "ON cc.descendant_id = mc.category_id AND cc.ancestor_id = :categoryId " +
+                                    "WHERE mc.category_id = :categoryId OR cc.ancestor_id IS NOT NULL) " +
+                                    "GROUP BY m.type")
+                    .setParameter("startDate", startDate)
+                    .setParameter("endDate", endDate)
+                    .setParameter("categoryId", categoryId)
+                    .getResultList();
+
+            List<CategoryTypeTotal> totals = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                totals.add(new CategoryTypeTotal(categoryId, MovementType.valueOf((String) row[0]), (BigDecimal) row[1]));
+            }
+            return totals;
+        } catch (Exception e) {
+            throw new RuntimeException("Errore calcolo totali sottoalbero categoria", e);
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotalsByType(LocalDate startDate, LocalDate endDate) {
+        try (Session session = sessionFactory.openSession()) {
+            Query<MonthlyTotal> query = session.createQuery(
+                    "SELECT new it.unicam.cs.mpgc.jbudget122631.domain.model.MonthlyTotal(" +
+                            "YEAR(m.date), MONTH(m.date), m.type, SUM(m.amount)) " +
+                            "FROM Movement m " +
+                            "WHERE m.date BETWEEN :startDate AND :endDate " +
+                            "GROUP BY YEAR(m.date), MONTH(m.date), m.type",
+                    MonthlyTotal.class);
+            query.setParameter("startDate", startDate);
+            query.setParameter("endDate", endDate);
+            return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore calcolo serie mensile per tipo", e);
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getMonthlyTotalsByCategory(Category category, LocalDate startDate, LocalDate endDate) {
+        try (Session session = sessionFactory.openSession()) {
+            Query<MonthlyTotal> query = session.createQuery(
+                    "SELECT new it.unicam.cs.mpgc.jbudget122631.domain.model.MonthlyTotal(" +
+                            "YEAR(m.date), MONTH(m.date), m.type, SUM(m.amount)) " +
+                            "FROM Movement m JOIN m.categories c " +
+                            "WHERE c = :category AND m.date BETWEEN :startDate AND :endDate " +
+                            "GROUP BY YEAR(m.date), MONTH(m.date), m.type",
+                    MonthlyTotal.class);
+            query.setParameter("category", category);
+            query.setParameter("startDate", startDate);
+            query.setParameter("endDate", endDate);
+            return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore calcolo serie mensile per categoria", e);
+        }
+    }
+
+    @Override
+    public List<MonthlyTotal> getRollupTotalsByType(YearMonth from, YearMonth to) {
+        return loadRollupSeries(MonthlyTotalsRollup.ALL_CATEGORIES, from, to);
+    }
+
+    @Override
+    public List<MonthlyTotal> getRollupTotalsByCategory(Long categoryId, YearMonth from, YearMonth to) {
+        return loadRollupSeries(categoryId, from, to);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CategoryTypeTotal> getRollupTotalsByCategoryAndType(YearMonth from, YearMonth to) {
+        try (Session session = sessionFactory.openSession()) {
+            List<Object[]> rows = session.createNativeQuery(
+                    "SELECT category_id, type, SUM(total) FROM movement_monthly_totals " +
+                            "WHERE category_id > :allCategories AND year_month BETWEEN :fromMonth AND :toMonth " +
+                            "GROUP BY category_id, type")
+                    .setParameter("allCategories", MonthlyTotalsRollup.ALL_CATEGORIES)
+                    .setParameter("fromMonth", MonthlyTotalsRollup.encode(from))
+                    .setParameter("toMonth", MonthlyTotalsRollup.encode(to))
+                    .getResultList();
+
+            return rows.stream()
+                    .map(row -> new CategoryTypeTotal(
+                            ((Number) row[0]).longValue(),
+                            MovementType.valueOf((String) row[1]),
+                            (BigDecimal) row[2]))
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new RuntimeException("Errore lettura totali mensili per categoria", e);
+        }
+    }
+
+    @Override
+    public void rebuildMonthlyTotals() {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            MonthlyTotalsRollup.rebuild(session);
+            transaction.commit();
+            DataVersion.increment();
+            System.out.println("REPOSITORY - Totali mensili ricostruiti");
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            throw new RuntimeException("Errore ricostruzione totali mensili", e);
+        }
+    }
+
+    // Il totale di tutte le categorie e' la somma delle sue righe (category_id da 0 a -(SLOTS-1))
+    @SuppressWarnings("unchecked")
+    private List<MonthlyTotal> loadRollupSeries(Long categoryId, YearMonth from, YearMonth to) {
+        boolean allCategories = categoryId == MonthlyTotalsRollup.ALL_CATEGORIES;
+        try (Session session = sessionFactory.openSession()) {
+            List<Object[]> rows = session.createNativeQuery(
+                    "SELECT year_month, type, SUM(total) FROM movement_monthly_totals " +
+                            "WHERE category_id BETWEEN :firstCategory AND :lastCategory " +
+                            "AND year_month BETWEEN :fromMonth AND :toMonth GROUP BY year_month, type")
+                    .setParameter("firstCategory", allCategories ? 1L - MonthlyTotalsRollup.ALL_CATEGORIES_SLOTS : categoryId)
+                    .setParameter("lastCategory", categoryId)
+                    .setParameter("fromMonth", MonthlyTotalsRollup.encode(from))
+                    .setParameter("toMonth", MonthlyTotalsRollup.encode(to))
+                    .getResultList();
+
+            return rows.stream()
+                    .map(row -> {
+                        YearMonth yearMonth = MonthlyTotalsRollup.decode(((Number) row[0]).intValue());
+                        return new MonthlyTotal(yearMonth.getYear(), yearMonth.getMonthValue(),
+                                MovementType.valueOf((String) row[1]), (BigDecimal) row[2]);
+                    })
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new RuntimeException("Errore lettura totali mensili", e);
+        }
+    }
+
+    private static List<Long> categoryIdsOf(Movement movement) {
+        return movement.getCategories().stream()
+                .map(Category::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Movement> findByDescriptionContaining(String description) {
+        List<Long> rankedIds = searchIds(description);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            List<Movement> results = new ArrayList<>(rankedIds.size());
+            for (int from = 0; from < rankedIds.size(); from += MAX_IDS_PER_QUERY) {
+                int to = Math.min(from + MAX_IDS_PER_QUERY, rankedIds.size());
+                results.addAll(fetchWithCategories(session, rankedIds.subList(from, to)));
+            }
+            results.sort(Comparator.comparing(m -> rank.get(m.getId())));
+            return results;
         } catch (Exception e) {
             throw new RuntimeException("Errore ricerca movimenti per descrizione", e);
         }
     }
 
+    @Override
+    public List<Long> searchIds(String query) {
+        ensureSearchIndex();
+        return searchIndex.search(query);
+    }
+
+    // Le scritture passano dallo stesso monitor della costruzione iniziale: se questa e' in corso
+    // attendono che finisca, cosi' una riga letta prima del commit non sovrascrive il dato nuovo
+    private void updateSearchIndex(Collection<Movement> movements) {
+        synchronized (searchIndex) {
+            movements.forEach(m -> searchIndex.index(m.getId(), m.getDescription(), m.getNotes()));
+        }
+    }
+
+    private void removeFromSearchIndex(Long id) {
+        synchronized (searchIndex) {
+            searchIndex.remove(id);
+        }
+    }
+
+    private void ensureSearchIndex() {
+        if (searchIndex.isBuilt()) {
+            return;
+        }
+
+        synchronized (searchIndex) {
+            if (searchIndex.isBuilt()) {
+                return;
+            }
+
+            // Costruzione iniziale in streaming: solo id e testi, senza caricare le entita'
+            try (Session session = sessionFactory.openSession();
+                 ScrollableResults rows = session.createQuery(
+                         "SELECT m.id, m.description, m.notes FROM Movement m")
+                         .setFetchSize(MAX_IDS_PER_QUERY)
+                         .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    searchIndex.index((Long) rows.get(0), (String) rows.get(1), (String) rows.get(2));
+                }
+                searchIndex.markBuilt();
+                System.out.println("REPOSITORY - Indice di ricerca costruito: " + searchIndex.size() + " movimenti");
+            } catch (Exception e) {
+                throw new RuntimeException("Errore costruzione indice di ricerca movimenti", e);
+            }
+        }
+    }
+
     @Override
     public List<Movement> findScheduledMovements() {
         try (Session session = sessionFactory.openSession()) {
@@ -247,17 +856,62 @@ public class JpaMovementRepository implements MovementRepository {
     @Override
     public List<Movement> findAllPaginated(int page, int size) {
         try (Session session = sessionFactory.openSession()) {
-            Query<Movement> query = session.createQuery(
-                    "SELECT DISTINCT m FROM Movement m LEFT JOIN FETCH m.categories ORDER BY m.date DESC",
-                    Movement.class);
-            query.setFirstResult(page * size);
-            query.setMaxResults(size);
-            return query.getResultList();
+            // Prima fase: LIMIT/OFFSET sui soli ID, eseguito dal database
+            Query<Long> idQuery = session.createQuery(
+                    "SELECT m.id FROM Movement m ORDER BY m.date DESC, m.id DESC",
+                    Long.class);
+            idQuery.setFirstResult(page * size);
+            idQuery.setMaxResults(size);
+
+            return fetchWithCategories(session, idQuery.getResultList());
         } catch (Exception e) {
             throw new RuntimeException("Errore paginazione movimenti", e);
         }
     }
 
+    @Override
+    public List<Movement> findPageAfter(MovementCursor cursor, int size) {
+        try (Session session = sessionFactory.openSession()) {
+            return fetchWithCategories(session, pageIdsAfter(session, cursor, size));
+        } catch (Exception e) {
+            throw new RuntimeException("Errore paginazione movimenti per cursore", e);
+        }
+    }
+
+    private List<Long> pageIdsAfter(Session session, MovementCursor cursor, int size) {
+        Query<Long> idQuery;
+        if (cursor == null) {
+            idQuery = session.createQuery(
+                    "SELECT m.id FROM Movement m ORDER BY m.date DESC, m.id DESC",
+                    Long.class);
+        } else {
+            // Seek su (date, id): costo costante indipendentemente dalla profondita' della pagina
+            idQuery = session.createQuery(
+                    "SELECT m.id FROM Movement m " +
+                            "WHERE m.date < :cursorDate OR (m.date = :cursorDate AND m.id < :cursorId) " +
+                            "ORDER BY m.date DESC, m.id DESC",
+                    Long.class);
+            idQuery.setParameter("cursorDate", cursor.getDate());
+            idQuery.setParameter("cursorId", cursor.getId());
+        }
+        idQuery.setMaxResults(size);
+        return idQuery.getResultList();
+    }
+
+    private List<Movement> fetchWithCategories(Session session, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Seconda fase: categorie caricate solo per gli ID della pagina
+        Query<Movement> query = session.createQuery(
+                "SELECT DISTINCT m FROM Movement m LEFT JOIN FETCH m.categories " +
+                        "WHERE m.id IN (:ids) ORDER BY m.date DESC, m.id DESC",
+                Movement.class);
+        query.setParameterList("ids", ids);
+        return query.getResultList();
+    }
+
     @Override
     public long count() {
         try (Session session = sessionFactory.openSession()) {
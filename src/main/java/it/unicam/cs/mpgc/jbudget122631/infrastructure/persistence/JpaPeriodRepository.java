@@ -2,6 +2,7 @@ package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
 
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Period;
 import it.unicam.cs.mpgc.jbudget122631.domain.repository.PeriodRepository;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.cache.DataVersion;
 import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
 
 import org.hibernate.Session;
@@ -28,6 +29,7 @@ public class JpaPeriodRepository implements PeriodRepository {
             transaction = session.beginTransaction();
             session.saveOrUpdate(period);
             transaction.commit();
+            DataVersion.increment();
             return period;
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
@@ -63,6 +65,7 @@ public class JpaPeriodRepository implements PeriodRepository {
             transaction = session.beginTransaction();
             session.delete(period);
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione periodo", e);
@@ -79,6 +82,7 @@ public class JpaPeriodRepository implements PeriodRepository {
                 session.delete(period);
             }
             transaction.commit();
+            DataVersion.increment();
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
             throw new RuntimeException("Errore eliminazione periodo per ID", e);
@@ -125,6 +129,18 @@ public class JpaPeriodRepository implements PeriodRepository {
         }
     }
 
+    @Override
+    public List<Period> findPeriodsContaining(LocalDate date) {
+        try (Session session = sessionFactory.openSession()) {
+            Query<Period> query = session.createQuery(
+                    "FROM Period WHERE startDate <= :date AND endDate >= :date ORDER BY startDate ASC", Period.class);
+            query.setParameter("date", date);
+            return query.getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca periodi contenenti data", e);
+        }
+    }
+
     @Override
     public List<Period> findOverlappingPeriods(LocalDate startDate, LocalDate endDate) {
         return findByDateRange(startDate, endDate);
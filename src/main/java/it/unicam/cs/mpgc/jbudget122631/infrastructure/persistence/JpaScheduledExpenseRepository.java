@@ -7,14 +7,26 @@ import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.HibernateConfig;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.query.Query;
 
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class JpaScheduledExpenseRepository implements ScheduledExpenseRepository {
 
+    private static final int GENERATION_FLUSH_SIZE = 50;
+    private static final String DUPLICATE_KEY = "23505";
+    private static final String SERIES_DUE_INDEX = "UX_SCHEDULED_EXPENSES_SERIES_DUE";
+
     private final SessionFactory sessionFactory;
 
     public JpaScheduledExpenseRepository() {
@@ -27,6 +39,7 @@ public class JpaScheduledExpenseRepository implements ScheduledExpenseRepository
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
             session.saveOrUpdate(scheduledExpense);
+            assignSeries(scheduledExpense);
             transaction.commit();
             return scheduledExpense;
         } catch (Exception e) {
@@ -35,6 +48,140 @@ public class JpaScheduledExpenseRepository implements ScheduledExpenseRepository
         }
     }
 
+    // Una spesa creata dall'utente apre una nuova serie identificata dal proprio ID
+    private void assignSeries(ScheduledExpense scheduledExpense) {
+        if (scheduledExpense.getSeriesId() == null && scheduledExpense.getId() != null) {
+            scheduledExpense.setSeriesId(scheduledExpense.getId());
+        }
+    }
+
+    @Override
+    public List<RecurringSeries> findSeriesDueBy(LocalDate date) {
+        try (Session session = sessionFactory.openSession()) {
+            // Ultima occorrenza di ogni serie (a parita' di data vale l'ID maggiore)
+            Query<ScheduledExpense> query = session.createQuery(
+                    "SELECT se FROM ScheduledExpense se LEFT JOIN FETCH se.categories " +
+                            "WHERE se.active = true AND se.recurrenceType <> :none AND se.dueDate <= :date " +
+                            "AND (se.recurrenceEndDate IS NULL OR se.recurrenceEndDate > se.dueDate) " +
+                            "AND NOT EXISTS (SELECT n.id FROM ScheduledExpense n WHERE n.seriesId = se.seriesId " +
+                            "AND (n.dueDate > se.dueDate OR (n.dueDate = se.dueDate AND n.id > se.id))) " +
+                            "ORDER BY se.id",
+                    ScheduledExpense.class);
+            query.setParameter("none", RecurrenceType.NONE);
+            query.setParameter("date", date);
+
+            // Il fetch delle categorie ripete la riga per ogni categoria
+            Map<Long, RecurringSeries> series = new LinkedHashMap<>();
+            for (ScheduledExpense latest : query.getResultList()) {
+                series.putIfAbsent(latest.getId(), new RecurringSeries(latest));
+            }
+            return new ArrayList<>(series.values());
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca serie ricorrenti scadute", e);
+        }
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDueDateInSeries(Long seriesId) {
+        try (Session session = sessionFactory.openSession()) {
+            Query<LocalDate> query = session.createQuery(
+                    "SELECT MAX(se.dueDate) FROM ScheduledExpense se WHERE se.seriesId = :seriesId",
+                    LocalDate.class);
+            query.setParameter("seriesId", seriesId);
+            return Optional.ofNullable(query.getSingleResult());
+        } catch (Exception e) {
+            throw new RuntimeException("Errore ricerca ultima occorrenza della serie", e);
+        }
+    }
+
+    @Override
+    public boolean saveOccurrenceIfAbsent(ScheduledExpense occurrence) {
+        try (Session session = sessionFactory.openSession()) {
+            // Rollback prima della chiusura della sessione: il duplicato e' un esito atteso, non un errore
+            Transaction transaction = session.beginTransaction();
+            try {
+                session.save(occurrence);
+                assignSeries(occurrence);
+                transaction.commit();
+                return true;
+            } catch (Exception e) {
+                transaction.rollback();
+                if (isDuplicateOccurrence(e)) {
+                    return false;
+                }
+                throw new RuntimeException("Errore salvataggio occorrenza ricorrente", e);
+            }
+        }
+    }
+
+    // Violazione dell'indice univoco (serie, data) di V6, da un altro thread o da un altro processo
+    private static boolean isDuplicateOccurrence(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                ConstraintViolationException violation = (ConstraintViolationException) cause;
+                String constraint = violation.getConstraintName();
+                return DUPLICATE_KEY.equals(violation.getSQLState())
+                        && constraint != null && constraint.toUpperCase().contains(SERIES_DUE_INDEX);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void saveGeneratedOccurrences(Collection<ScheduledExpense> occurrences, String job, LocalDate processedThrough) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+
+            int count = 0;
+            for (ScheduledExpense occurrence : occurrences) {
+                session.save(occurrence);
+                assignSeries(occurrence);
+                if (++count % GENERATION_FLUSH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+
+            int updated = session.createNativeQuery(
+                            "UPDATE job_watermarks SET processed_through = :processedThrough, updated_at = :now WHERE job = :job")
+                    .setParameter("processedThrough", Date.valueOf(processedThrough))
+                    .setParameter("now", Timestamp.valueOf(LocalDateTime.now()))
+                    .setParameter("job", job)
+                    .executeUpdate();
+            if (updated == 0) {
+                session.createNativeQuery(
+                                "INSERT INTO job_watermarks (job, processed_through, updated_at) VALUES (:job, :processedThrough, :now)")
+                        .setParameter("job", job)
+                        .setParameter("processedThrough", Date.valueOf(processedThrough))
+                        .setParameter("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .executeUpdate();
+            }
+
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null) transaction.rollback();
+            throw new RuntimeException("Errore salvataggio occorrenze ricorrenti generate", e);
+        }
+    }
+
+    @Override
+    public Optional<LocalDate> findProcessedThrough(String job) {
+        try (Session session = sessionFactory.openSession()) {
+            List<?> results = session.createNativeQuery(
+                            "SELECT processed_through FROM job_watermarks WHERE job = :job")
+                    .setParameter("job", job)
+                    .getResultList();
+            if (results.isEmpty() || results.get(0) == null) {
+                return Optional.empty();
+            }
+            Object value = results.get(0);
+            return Optional.of(value instanceof Date ? ((Date) value).toLocalDate() : (LocalDate) value);
+        } catch (Exception e) {
+            throw new RuntimeException("Errore lettura avanzamento processo " + job, e);
+        }
+    }
+
     @Override
     public Optional<ScheduledExpense> findByCreatedMovement(Movement movement) {
         try (Session session = sessionFactory.openSession()) {
@@ -0,0 +1,211 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.persistence;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Accumula le variazioni dei totali mensili prodotte da una scrittura e le applica
+// alla tabella movement_monthly_totals nella stessa transazione del movimento
+class MonthlyTotalsRollup {
+
+    static final long ALL_CATEGORIES = 0L;
+    // Il totale di tutte le categorie e' diviso su piu' righe (category_id 0, -1, ... -(SLOTS-1)) che le
+    // letture sommano: ogni scrittura ne aggiorna una, cosi' le scritture dello stesso mese non si
+    // mettono tutte in coda sulla stessa riga
+    static final int ALL_CATEGORIES_SLOTS = 8;
+
+    private static final String MERGE_SQL =
+            "MERGE INTO movement_monthly_totals t USING (VALUES (CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), " +
+                    "CAST(? AS BIGINT), CAST(? AS NUMERIC(19, 2)), CAST(? AS BIGINT))) " +
+                    "s(year_month, type, category_id, total, movement_count) " +
+                    "ON t.year_month = s.year_month AND t.type = s.type AND t.category_id = s.category_id " +
+                    "WHEN MATCHED THEN UPDATE SET total = t.total + s.total, movement_count = t.movement_count + s.movement_count " +
+                    "WHEN NOT MATCHED THEN INSERT (year_month, type, category_id, total, movement_count) " +
+                    "VALUES (s.year_month, s.type, s.category_id, s.total, s.movement_count)";
+
+    // Le righe di una singola categoria spariscono con l'ultimo movimento; quelle dei totali solo se azzerate
+    // del tutto, perche' una riga del totale puo' avere conteggio negativo compensato da un'altra
+    private static final String PURGE_SQL =
+            "DELETE FROM movement_monthly_totals WHERE year_month = ? AND type = ? AND category_id = ? " +
+                    "AND ((category_id > 0 AND movement_count <= 0) OR (movement_count = 0 AND total = 0))";
+
+    private static final String DUPLICATE_KEY = "23505";
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final Map<Key, Change> changes = new TreeMap<>();
+    private final long allCategoriesRow = -ThreadLocalRandom.current().nextInt(ALL_CATEGORIES_SLOTS);
+
+    static int encode(YearMonth yearMonth) {
+        return yearMonth.getYear() * 100 + yearMonth.getMonthValue();
+    }
+
+    static YearMonth decode(int yearMonth) {
+        return YearMonth.of(yearMonth / 100, yearMonth % 100);
+    }
+
+    void add(LocalDate date, MovementType type, BigDecimal amount, Collection<Long> categoryIds) {
+        record(date, type, amount, categoryIds, 1);
+    }
+
+    void subtract(LocalDate date, MovementType type, BigDecimal amount, Collection<Long> categoryIds) {
+        record(date, type, amount.negate(), categoryIds, -1);
+    }
+
+    // Rimuove dal rollup lo stato del movimento attualmente salvato nel database
+    void subtractStored(Session session, Long movementId) {
+        List<Object[]> rows = session.createQuery(
+                "SELECT m.date, m.type, m.amount FROM Movement m WHERE m.id = :id", Object[].class)
+                .setParameter("id", movementId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<Long> categoryIds = session.createQuery(
+                "SELECT c.id FROM Movement m JOIN m.categories c WHERE m.id = :id", Long.class)
+                .setParameter("id", movementId)
+                .getResultList();
+
+        Object[] row = rows.get(0);
+        subtract((LocalDate) row[0], (MovementType) row[1], (BigDecimal) row[2], categoryIds);
+    }
+
+    // Righe aggiornate in ordine di chiave: due scritture concorrenti bloccano le stesse righe nello stesso
+    // ordine e non possono andare in deadlock. L'upsert e' un solo MERGE; se un'altra transazione inserisce
+    // la stessa chiave nel frattempo, H2 segnala la chiave duplicata e il MERGE ripetuto la trova e la somma.
+    void apply(Session session) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_SQL);
+                 PreparedStatement purge = connection.prepareStatement(PURGE_SQL)) {
+                for (Map.Entry<Key, Change> entry : changes.entrySet()) {
+                    Key key = entry.getKey();
+                    Change change = entry.getValue();
+                    if (change.count == 0 && change.total.signum() == 0) {
+                        continue;
+                    }
+                    merge(connection, merge, key, change);
+                    if (change.count < 0) {
+                        purge.setInt(1, key.yearMonth);
+                        purge.setString(2, key.type.name());
+                        purge.setLong(3, key.categoryId);
+                        purge.executeUpdate();
+                    }
+                }
+            }
+        });
+        changes.clear();
+    }
+
+    private static void merge(Connection connection, PreparedStatement merge, Key key, Change change) throws SQLException {
+        merge.setInt(1, key.yearMonth);
+        merge.setString(2, key.type.name());
+        merge.setLong(3, key.categoryId);
+        merge.setBigDecimal(4, change.total);
+        merge.setLong(5, change.count);
+
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                merge.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                return;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (!DUPLICATE_KEY.equals(e.getSQLState()) || attempt >= MAX_MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static void rebuild(Session session) {
+        session.createNativeQuery("DELETE FROM movement_monthly_totals").executeUpdate();
+        session.createNativeQuery(
+                "INSERT INTO movement_monthly_totals (year_month, type, category_id, total, movement_count) " +
+                        "SELECT YEAR(date) * 100 + MONTH(date), type, " + ALL_CATEGORIES + ", SUM(amount), COUNT(*) " +
+                        "FROM movements GROUP BY YEAR(date) * 100 + MONTH(date), type")
+                .executeUpdate();
+        session.createNativeQuery(
+                "INSERT INTO movement_monthly_totals (year_month, type, category_id, total, movement_count) " +
+                        "SELECT YEAR(m.date) * 100 + MONTH(m.date), m.type, mc.category_id, SUM(m.amount), COUNT(*) " +
+                        "FROM movements m JOIN movement_categories mc ON mc.movement_id = m.id " +
+                        "GROUP BY YEAR(m.date) * 100 + MONTH(m.date), m.type, mc.category_id")
+                .executeUpdate();
+    }
+
+    private void record(LocalDate date, MovementType type, BigDecimal amount,
+                        Collection<Long> categoryIds, int count) {
+        int yearMonth = encode(YearMonth.from(date));
+
+        change(new Key(yearMonth, type, allCategoriesRow)).plus(amount, count);
+        for (Long categoryId : categoryIds) {
+            change(new Key(yearMonth, type, categoryId)).plus(amount, count);
+        }
+    }
+
+    private Change change(Key key) {
+        return changes.computeIfAbsent(key, k -> new Change());
+    }
+
+    // Ordine (anno-mese, tipo, categoria), lo stesso della chiave primaria
+    private static class Key implements Comparable<Key> {
+        private final int yearMonth;
+        private final MovementType type;
+        private final long categoryId;
+
+        private Key(int yearMonth, MovementType type, long categoryId) {
+            this.yearMonth = yearMonth;
+            this.type = type;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return yearMonth == key.yearMonth && categoryId == key.categoryId && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(yearMonth, type, categoryId);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Integer.compare(yearMonth, other.yearMonth);
+            if (result == 0) {
+                result = type.name().compareTo(other.type.name());
+            }
+            return result != 0 ? result : Long.compare(categoryId, other.categoryId);
+        }
+    }
+
+    private static class Change {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long count;
+
+        private void plus(BigDecimal amount, int delta) {
+            total = total.add(amount);
+            count += delta;
+        }
+    }
+}
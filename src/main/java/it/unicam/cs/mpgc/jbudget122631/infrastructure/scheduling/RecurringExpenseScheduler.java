@@ -0,0 +1,97 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.scheduling;
+
+import it.unicam.cs.mpgc.jbudget122631.application.service.ScheduledExpenseService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Genera in background le occorrenze ricorrenti scadute su un unico thread daemon, fuori dal thread JavaFX
+public class RecurringExpenseScheduler {
+
+    private static final long DEFAULT_INITIAL_DELAY_SECONDS = 5;
+    private static final long DEFAULT_PERIOD_MINUTES = 60;
+
+    private final ScheduledExpenseService scheduledExpenseService;
+    private final long initialDelaySeconds;
+    private final long periodMinutes;
+
+    private ScheduledExecutorService executor;
+    private volatile Runnable onOccurrencesGenerated;
+
+    public RecurringExpenseScheduler(ScheduledExpenseService scheduledExpenseService) {
+        this(scheduledExpenseService, DEFAULT_INITIAL_DELAY_SECONDS, DEFAULT_PERIOD_MINUTES);
+    }
+
+    public RecurringExpenseScheduler(ScheduledExpenseService scheduledExpenseService,
+                                     long initialDelaySeconds, long periodMinutes) {
+        if (periodMinutes <= 0) {
+            throw new IllegalArgumentException("Intervallo di esecuzione deve essere > 0");
+        }
+        this.scheduledExpenseService = scheduledExpenseService;
+        this.initialDelaySeconds = initialDelaySeconds;
+        this.periodMinutes = periodMinutes;
+    }
+
+    // Chiamato dal thread dello scheduler dopo un'esecuzione che ha aggiornato le spese programmate
+    public void setOnOccurrencesGenerated(Runnable listener) {
+        this.onOccurrencesGenerated = listener;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recurring-expenses");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runOnce,
+                TimeUnit.SECONDS.toMillis(initialDelaySeconds),
+                TimeUnit.MINUTES.toMillis(periodMinutes),
+                TimeUnit.MILLISECONDS);
+
+        System.out.println("SCHEDULER - Processo spese ricorrenti avviato ogni " + periodMinutes + " minuti");
+    }
+
+    // Un'eccezione non gestita annullerebbe le esecuzioni successive
+    private void runOnce() {
+        try {
+            if (!scheduledExpenseService.processRecurringExpensesIfNeeded()) {
+                System.out.println("SCHEDULER - Spese ricorrenti gia' aggiornate");
+                return;
+            }
+            Runnable listener = onOccurrencesGenerated;
+            if (listener != null) {
+                listener.run();
+            }
+        } catch (Exception e) {
+            System.err.println("SCHEDULER - Errore processo spese ricorrenti: " + e.getMessage());
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+
+        System.out.println("SCHEDULER - Processo spese ricorrenti arrestato");
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,155 @@
+package it.unicam.cs.mpgc.jbudget122631.infrastructure.search;
+
+import it.unicam.cs.mpgc.jbudget122631.domain.model.SearchTerms;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+public class MovementSearchIndex {
+
+    // La descrizione pesa piu' delle note; una corrispondenza esatta piu' di un prefisso
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int NOTES_WEIGHT = 1;
+    private static final int EXACT_MATCH_BONUS = 2;
+
+    // token -> (id movimento -> peso), ordinato per consentire la ricerca per prefisso
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> tokensById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean built = false;
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public void index(Long id, String description, String notes) {
+        if (id == null) {
+            return;
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        tokenize(notes).forEach(token -> weights.merge(token, NOTES_WEIGHT, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            weights.forEach((token, weight) ->
+                    postings.computeIfAbsent(token, t -> new HashMap<>()).put(id, weight));
+            tokensById.put(id, weights.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markBuilt() {
+        built = true;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensById.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tokensById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ogni termine della query va trovato come prefisso di una parola (AND fra i termini);
+    // i risultati sono ordinati per punteggio e, a parita', dal movimento piu' recente
+    public List<Long> search(String query) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue(Collections.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey(Collections.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        return SearchTerms.tokenize(text);
+    }
+
+    private Map<Long, Integer> scoreTerm(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Map<String, Map<Long, Integer>> matches = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+
+        for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+            int bonus = match.getKey().equals(term) ? EXACT_MATCH_BONUS : 1;
+            match.getValue().forEach((id, weight) -> scores.merge(id, weight * bonus, Math::max));
+        }
+        return scores;
+    }
+
+    private void removeInternal(Long id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+
+        for (String token : tokens) {
+            Map<Long, Integer> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
@@ -3,8 +3,18 @@ package it.unicam.cs.mpgc.jbudget122631.presentation.controller;
 import it.unicam.cs.mpgc.jbudget122631.application.dto.BudgetDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget122631.application.service.BudgetSyncQueue;
+import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryNameResolver;
 import it.unicam.cs.mpgc.jbudget122631.application.service.MovementService;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.BudgetChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.CategoryChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeEvent;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.MovementChanged;
+
+import javafx.application.Platform;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -19,13 +29,24 @@ import javafx.scene.layout.GridPane;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class BudgetController implements Initializable {
 
+    private static final long SYNC_WAIT_SECONDS = 30;
+
     @FXML private TableView<BudgetDTO> budgetsTable;
     @FXML private TableColumn<BudgetDTO, String> periodColumn;
     @FXML private TableColumn<BudgetDTO, String> categoryColumn;
@@ -54,6 +75,13 @@ public class BudgetController implements Initializable {
     private final BudgetService budgetService;
     private final MovementService movementService;
     private final ObservableList<BudgetDTO> budgets = FXCollections.observableArrayList();
+    private final CategoryNameResolver categoryNames = ApplicationConfig.getCategoryNameResolver();
+    private final ChangeBus changeBus = ApplicationConfig.getChangeBus();
+    private final BudgetSyncQueue budgetSync = ApplicationConfig.getBudgetSyncQueue();
+    // Incrementata a ogni rilettura: una risposta arrivata dopo una piu' recente viene scartata
+    private long refreshGeneration;
+    private CompletableFuture<Long> pendingSync;
+    private CompletableFuture<Void> budgetPatches = CompletableFuture.completedFuture(null);
 
     public BudgetController(BudgetService budgetService, MovementService movementService) {
         this.budgetService = budgetService;
@@ -73,6 +101,10 @@ public class BudgetController implements Initializable {
             setupFilters();
             setupButtons();
             loadBudgets();
+
+            changeBus.subscribe(this, BudgetChanged.class, this::onBudgetsChanged);
+            changeBus.subscribe(this, MovementChanged.class, event -> refreshDisplayedBudgets());
+            changeBus.subscribe(this, CategoryChanged.class, event -> refreshDisplayedBudgets());
             System.out.println("BudgetController init COMPLETE");
         } catch (Exception e) {
             System.err.println("Errore inizializzazione BudgetController: " + e.getMessage());
@@ -213,9 +245,7 @@ public class BudgetController implements Initializable {
             System.out.println("BUDGET_CONTROLLER - Inizio caricamento budget...");
 
             if (budgetService != null) {
-                System.out.println("BUDGET_CONTROLLER - Aggiornamento valori reali...");
-                budgetService.updateAllBudgetsWithRealMovements();
-
+                // I valori reali li mantiene la sincronizzazione in background: qui si leggono soltanto
                 List<BudgetDTO> allBudgets = budgetService.getAllBudgets();
                 budgets.setAll(allBudgets);
 
@@ -248,8 +278,8 @@ public class BudgetController implements Initializable {
 
         try {
             System.out.println("BUDGET_CONTROLLER - Aggiornamento manuale valori reali...");
-            budgetService.updateAllBudgetsWithRealMovements();
-            loadBudgets();
+            // Eseguito dal thread di sincronizzazione, in coda alle modifiche gia' pubblicate
+            refreshDisplayedBudgets(budgetSync.requestFullRecalculation());
         } catch (Exception e) {
             showError("Errore aggiornamento budget", "Errore durante l'aggiornamento dei valori reali: " + e.getMessage());
         }
@@ -317,17 +347,7 @@ public class BudgetController implements Initializable {
     }
 
     private String getCategoryNameById(Long categoryId) {
-        if (categoryId == null) return "N/A";
-
-        switch (categoryId.intValue()) {
-            case 1: return "Alimentari";
-            case 2: return "Trasporti";
-            case 3: return "Utenze";
-            case 4: return "Svago";
-            case 5: return "Stipendio";
-            case 6: return "Salute";
-            default: return "N/A";
-        }
+        return categoryNames.nameOrDefault(categoryId, "N/A");
     }
 
     private void updateSummaryLabels() {
@@ -391,19 +411,9 @@ public class BudgetController implements Initializable {
                 filteredBudgets = budgets.stream().collect(Collectors.toList());
             }
 
-            String selectedPeriod = periodFilter.getValue();
-            if (selectedPeriod != null && !"Tutti i periodi".equals(selectedPeriod)) {
-                filteredBudgets = filteredBudgets.stream()
-                        .filter(b -> selectedPeriod.equals(b.getPeriodName()))
-                        .collect(Collectors.toList());
-            }
-
-            String selectedCategory = categoryFilter.getValue();
-            if (selectedCategory != null && !"Tutte le categorie".equals(selectedCategory)) {
-                filteredBudgets = filteredBudgets.stream()
-                        .filter(b -> selectedCategory.equals(b.getCategoryName()))
-                        .collect(Collectors.toList());
-            }
+            filteredBudgets = filteredBudgets.stream()
+                    .filter(currentFilter())
+                    .collect(Collectors.toList());
 
             budgets.setAll(filteredBudgets);
             updateSummaryLabels();
@@ -413,6 +423,159 @@ public class BudgetController implements Initializable {
         }
     }
 
+    // Filtri correnti come predicato, per valutare anche un singolo budget modificato
+    private Predicate<BudgetDTO> currentFilter() {
+        String selectedPeriod = periodFilter != null ? periodFilter.getValue() : null;
+        String selectedCategory = categoryFilter != null ? categoryFilter.getValue() : null;
+        boolean allPeriods = selectedPeriod == null || "Tutti i periodi".equals(selectedPeriod);
+        boolean allCategories = selectedCategory == null || "Tutte le categorie".equals(selectedCategory);
+
+        return budget -> (allPeriods || selectedPeriod.equals(budget.getPeriodName()))
+                && (allCategories || selectedCategory.equals(budget.getCategoryName()));
+    }
+
+    // Solo i budget indicati vengono riletti in background e poi sostituiti, aggiunti o tolti dalla tabella.
+    // Le riletture sono in coda una dopo l'altra: un evento piu' vecchio non sovrascrive uno piu' recente.
+    private void onBudgetsChanged(BudgetChanged event) {
+        if (budgetService == null) {
+            return;
+        }
+        if (event.affectsAll()) {
+            refreshDisplayedBudgets();
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(event.getIds());
+        boolean deleted = event.getKind() == ChangeEvent.Kind.DELETED;
+        budgetPatches = budgetPatches
+                .thenRunAsync(() -> {
+                    Map<Long, BudgetDTO> current = new HashMap<>();
+                    if (!deleted) {
+                        for (Long id : ids) {
+                            budgetService.getBudgetById(id).ifPresent(budget -> current.put(id, budget));
+                        }
+                    }
+                    Platform.runLater(() -> applyBudgetChanges(ids, current));
+                }, ApplicationConfig.getBackgroundExecutor())
+                .exceptionally(e -> {
+                    System.err.println("BUDGET_CONTROLLER - Errore lettura budget modificati: " + e.getMessage());
+                    return null;
+                });
+    }
+
+    // Sul thread JavaFX: i budget assenti da current sono stati eliminati
+    private void applyBudgetChanges(List<Long> ids, Map<Long, BudgetDTO> current) {
+        Predicate<BudgetDTO> filter = currentFilter();
+        for (Long id : ids) {
+            BudgetDTO budget = current.get(id);
+            int index = indexOfBudget(id);
+
+            if (budget != null && filter.test(budget)) {
+                if (index >= 0) {
+                    budgets.set(index, budget);
+                } else {
+                    budgets.add(budget);
+                }
+            } else if (index >= 0) {
+                budgets.remove(index);
+            }
+        }
+        updateSummaryLabels();
+    }
+
+    private void refreshDisplayedBudgets() {
+        refreshDisplayedBudgets(budgetSync.getPublishedVersion());
+    }
+
+    // Quando la sincronizzazione ha elaborato le modifiche fino alla versione indicata si rileggono i budget
+    // in background e si sostituiscono solo le righe visibili i cui valori sono cambiati. L'attesa non occupa
+    // thread del pool; una nuova richiesta annulla quella precedente, che coprirebbe meno modifiche.
+    private void refreshDisplayedBudgets(long version) {
+        if (budgetService == null) {
+            return;
+        }
+
+        long generation = ++refreshGeneration;
+        if (pendingSync != null) {
+            pendingSync.cancel(false);
+        }
+        CompletableFuture<Long> sync = budgetSync.whenSynced(version).orTimeout(SYNC_WAIT_SECONDS, TimeUnit.SECONDS);
+        pendingSync = sync;
+
+        sync.handle((synced, error) -> {
+                    if (error instanceof CancellationException) {
+                        return false;
+                    }
+                    if (error != null) {
+                        System.out.println("BUDGET_CONTROLLER - Sincronizzazione budget in ritardo, valori letti alla versione "
+                                + budgetSync.getSyncedVersion() + " di " + version);
+                    }
+                    return true;
+                })
+                .thenAcceptAsync(read -> {
+                    if (!read) {
+                        return;
+                    }
+                    List<BudgetDTO> current = budgetService.getAllBudgets();
+                    Platform.runLater(() -> {
+                        if (generation == refreshGeneration) {
+                            patchBudgets(current);
+                        }
+                    });
+                }, ApplicationConfig.getBackgroundExecutor())
+                .exceptionally(e -> {
+                    System.err.println("BUDGET_CONTROLLER - Errore aggiornamento budget: " + e.getMessage());
+                    return null;
+                });
+    }
+
+    private void patchBudgets(List<BudgetDTO> current) {
+        Map<Long, BudgetDTO> byId = current.stream()
+                .collect(Collectors.toMap(BudgetDTO::getId, Function.identity()));
+        Predicate<BudgetDTO> filter = currentFilter();
+
+        int changed = 0;
+        for (int i = budgets.size() - 1; i >= 0; i--) {
+            BudgetDTO shown = budgets.get(i);
+            BudgetDTO fresh = byId.get(shown.getId());
+            if (fresh == null || !filter.test(fresh)) {
+                budgets.remove(i);
+                changed++;
+            } else if (!sameValues(shown, fresh)) {
+                budgets.set(i, fresh);
+                changed++;
+            }
+        }
+
+        if (changed > 0) {
+            updateSummaryLabels();
+        }
+        System.out.println("BUDGET_CONTROLLER - Righe aggiornate: " + changed);
+    }
+
+    private int indexOfBudget(Long id) {
+        for (int i = 0; i < budgets.size(); i++) {
+            if (Objects.equals(budgets.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameValues(BudgetDTO a, BudgetDTO b) {
+        return sameAmount(a.getActualIncome(), b.getActualIncome())
+                && sameAmount(a.getActualExpenses(), b.getActualExpenses())
+                && sameAmount(a.getPlannedIncome(), b.getPlannedIncome())
+                && sameAmount(a.getPlannedExpenses(), b.getPlannedExpenses())
+                && Objects.equals(a.getPeriodName(), b.getPeriodName())
+                && Objects.equals(a.getCategoryName(), b.getCategoryName())
+                && Objects.equals(a.getNotes(), b.getNotes());
+    }
+
+    private boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
     private void clearFilters() {
         periodFilter.setValue("Tutti i periodi");
         categoryFilter.setValue("Tutte le categorie");
@@ -484,8 +647,8 @@ public class BudgetController implements Initializable {
             result.ifPresent(budgetDTO -> {
                 try {
                     if (budgetService != null) {
-                        budgetService.createBudget(budgetDTO);
-                        loadBudgets();
+                        BudgetDTO created = budgetService.createBudget(budgetDTO);
+                        changeBus.publish(BudgetChanged.created(created.getId()));
                     } else {
                         budgetDTO.setId(System.currentTimeMillis());
                         budgetDTO.setActualIncome(BigDecimal.ZERO);
@@ -570,7 +733,7 @@ public class BudgetController implements Initializable {
                 try {
                     if (budgetService != null) {
                         budgetService.updateBudget(budgetDTO.getId(), budgetDTO);
-                        loadBudgets();
+                        changeBus.publish(BudgetChanged.updated(budgetDTO.getId()));
                     } else {
                         int index = budgets.indexOf(selected);
                         if (index >= 0) {
@@ -605,7 +768,7 @@ public class BudgetController implements Initializable {
             try {
                 if (budgetService != null) {
                     budgetService.deleteBudget(selected.getId());
-                    loadBudgets();
+                    changeBus.publish(BudgetChanged.deleted(List.of(selected.getId())));
                 } else {
                     budgets.remove(selected);
                 }
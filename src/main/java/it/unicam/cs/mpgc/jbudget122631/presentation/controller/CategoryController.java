@@ -2,6 +2,9 @@ package it.unicam.cs.mpgc.jbudget122631.presentation.controller;
 
 import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryService;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Category;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.CategoryChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -12,6 +15,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.stream.Collectors;
@@ -43,6 +47,7 @@ public class CategoryController implements Initializable {
 
     private final CategoryService categoryService;
     private final ObservableList<Category> categories = FXCollections.observableArrayList();
+    private final ChangeBus changeBus = ApplicationConfig.getChangeBus();
 
     public CategoryController(CategoryService categoryService) {
         this.categoryService = categoryService;
@@ -308,6 +313,7 @@ public class CategoryController implements Initializable {
         try {
             Long parentId = parent != null ? parent.getId() : null;
             Category newCategory = categoryService.createCategory(name, description, parentId);
+            changeBus.publish(CategoryChanged.created(newCategory.getId()));
 
             newCategoryNameField.clear();
             if (newCategoryDescriptionField != null) newCategoryDescriptionField.clear();
@@ -349,6 +355,7 @@ public class CategoryController implements Initializable {
             try {
                 if (categoryService != null) {
                     categoryService.deleteCategory(selected.getId());
+                    changeBus.publish(CategoryChanged.deleted(Collections.singletonList(selected.getId())));
                 }
                 loadCategories();
                 loadParentCategories();
@@ -364,6 +371,7 @@ public class CategoryController implements Initializable {
         if (selected != null && categoryService != null) {
             try {
                 categoryService.activateCategory(selected.getId());
+                changeBus.publish(CategoryChanged.updated(selected.getId()));
                 loadCategories();
                 showInfo("Categoria attivata", "Categoria attivata con successo");
             } catch (Exception e) {
@@ -377,6 +385,7 @@ public class CategoryController implements Initializable {
         if (selected != null && categoryService != null) {
             try {
                 categoryService.deactivateCategory(selected.getId());
+                changeBus.publish(CategoryChanged.updated(selected.getId()));
                 loadCategories();
                 showInfo("Categoria disattivata", "Categoria disattivata con successo");
             } catch (Exception e) {
@@ -1,8 +1,15 @@
 package it.unicam.cs.mpgc.jbudget122631.presentation.controller;
 
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.dto.StatisticsDTO;
 import it.unicam.cs.mpgc.jbudget122631.application.service.*;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.BudgetChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.CategoryChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.MovementChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ScheduledExpenseChanged;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -23,6 +30,10 @@ import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public class DashboardController implements Initializable {
@@ -44,6 +55,10 @@ public class DashboardController implements Initializable {
     private StatisticsService statisticsService;
     private ScheduledExpenseService scheduledExpenseService;
 
+    // Caricamento in corso: uno nuovo annulla il precedente, i cui risultati non vengono piu' applicati
+    private CompletableFuture<DashboardSnapshot> currentLoad;
+    private List<CompletableFuture<?>> loadParts = List.of();
+
     private enum PeriodType {
         CURRENT_MONTH("Mese Corrente"),
         LAST_3_MONTHS("Ultimi 3 Mesi"),
@@ -78,6 +93,13 @@ public class DashboardController implements Initializable {
         System.out.println("initialize() chiamato - caricamento dashboard...");
         setupPeriodSelector();
         loadDashboardData();
+
+        // Statistiche e grafici sono aggregati: si ricaricano, e un caricamento in corso viene sostituito
+        ChangeBus changeBus = ApplicationConfig.getChangeBus();
+        changeBus.subscribe(this, MovementChanged.class, event -> loadDashboardData());
+        changeBus.subscribe(this, BudgetChanged.class, event -> loadDashboardData());
+        changeBus.subscribe(this, CategoryChanged.class, event -> loadDashboardData());
+        changeBus.subscribe(this, ScheduledExpenseChanged.class, event -> loadDashboardData());
     }
 
     private void setupPeriodSelector() {
@@ -91,10 +113,7 @@ public class DashboardController implements Initializable {
 
             periodSelectorCombo.setValue(PeriodType.LAST_6_MONTHS.getDisplayName());
 
-            periodSelectorCombo.setOnAction(e -> {
-                loadDashboardData();
-                Platform.runLater(() -> forceChartLayout());
-            });
+            periodSelectorCombo.setOnAction(e -> loadDashboardData());
         }
 
         if (refreshButton != null) {
@@ -103,27 +122,94 @@ public class DashboardController implements Initializable {
     }
 
     private void loadDashboardData() {
-        try {
-            PeriodDates dates = getSelectedPeriodDates();
-
-            if (statisticsService != null) {
-                System.out.println("Caricamento dati reali dal servizio per periodo: " +
-                        dates.startDate + " - " + dates.endDate);
-                StatisticsDTO stats = statisticsService.getStatisticsForPeriod(dates.startDate, dates.endDate);
+        if (statisticsService == null) {
+            System.out.println("Servizi non disponibili");
+            return;
+        }
 
-                updateSummaryLabels(stats);
-                updateExpensesByCategoryChart(stats);
-                updateMonthlyTrendChart(dates.startDate, dates.endDate);
+        PeriodDates dates = getSelectedPeriodDates();
+        System.out.println("Caricamento dati reali dal servizio per periodo: " +
+                dates.startDate + " - " + dates.endDate);
+
+        cancelLoading();
+
+        // Statistiche, scadenze e ultimi movimenti sono query indipendenti, eseguite in parallelo sul pool;
+        // il risultato si compone quando arrivano tutte, senza thread fermi ad aspettare le altre
+        Executor executor = ApplicationConfig.getBackgroundExecutor();
+        CompletableFuture<StatisticsDTO> stats = CompletableFuture.supplyAsync(() ->
+                statisticsService.getStatisticsForPeriod(dates.startDate, dates.endDate), executor);
+        CompletableFuture<List<ScheduledExpense>> scheduledExpenses = CompletableFuture.supplyAsync(() ->
+                scheduledExpenseService != null ? scheduledExpenseService.getAllScheduledExpenses() : null, executor);
+        CompletableFuture<List<MovementDTO>> recentMovements = CompletableFuture.supplyAsync(() ->
+                // Prima pagina ordinata per (data, id) decrescenti: solo 5 righe dal database
+                movementService != null ? movementService.getMovementsAfter(null, 5) : null, executor);
+
+        CompletableFuture<DashboardSnapshot> load = stats
+                .thenCombine(orNullOnError(scheduledExpenses, "spese programmate"),
+                        (statistics, expenses) -> new DashboardSnapshot(statistics, expenses, null))
+                .thenCombine(orNullOnError(recentMovements, "movimenti recenti"),
+                        (partial, movements) -> new DashboardSnapshot(partial.stats, partial.scheduledExpenses, movements));
+
+        currentLoad = load;
+        loadParts = List.of(stats, scheduledExpenses, recentMovements);
+
+        load.whenComplete((snapshot, error) -> Platform.runLater(() -> {
+            if (load != currentLoad) {
+                return;
+            }
+            currentLoad = null;
+            loadParts = List.of();
+            if (error == null) {
+                applySnapshot(snapshot);
             } else {
-                System.out.println("Servizi non disponibili");
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("Errore caricamento dashboard: " + cause.getMessage());
+                cause.printStackTrace();
             }
+        }));
+    }
 
-            updateUpcomingExpenses();
-            updateRecentMovements();
+    // Le query non ancora avviate vengono saltate; quelle in corso terminano ma il risultato viene ignorato
+    public void cancelLoading() {
+        if (currentLoad != null) {
+            loadParts.forEach(part -> part.cancel(false));
+            currentLoad.cancel(false);
+            currentLoad = null;
+            loadParts = List.of();
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Errore caricamento dashboard: " + e.getMessage());
-            e.printStackTrace();
+    // Un riquadro che non si carica non deve impedire l'aggiornamento del resto della dashboard
+    private <T> CompletableFuture<T> orNullOnError(CompletableFuture<T> part, String description) {
+        return part.exceptionally(error -> {
+            if (!(error instanceof CancellationException)) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("Errore caricamento " + description + ": " + cause.getMessage());
+            }
+            return null;
+        });
+    }
+
+    // Un solo aggiornamento sul thread JavaFX con tutti i risultati
+    private void applySnapshot(DashboardSnapshot snapshot) {
+        updateSummaryLabels(snapshot.stats, snapshot.scheduledExpenses);
+        updateExpensesByCategoryChart(snapshot.stats);
+        updateMonthlyTrendChart(snapshot.stats.getMonthlyTrend());
+        updateUpcomingExpenses(snapshot.scheduledExpenses);
+        updateRecentMovements(snapshot.recentMovements);
+        forceChartLayout();
+    }
+
+    private static class DashboardSnapshot {
+        final StatisticsDTO stats;
+        final List<ScheduledExpense> scheduledExpenses;
+        final List<MovementDTO> recentMovements;
+
+        DashboardSnapshot(StatisticsDTO stats, List<ScheduledExpense> scheduledExpenses,
+                          List<MovementDTO> recentMovements) {
+            this.stats = stats;
+            this.scheduledExpenses = scheduledExpenses;
+            this.recentMovements = recentMovements;
         }
     }
 
@@ -167,7 +253,7 @@ public class DashboardController implements Initializable {
 
 
 
-    private void updateSummaryLabels(StatisticsDTO stats) {
+    private void updateSummaryLabels(StatisticsDTO stats, List<ScheduledExpense> scheduledExpenses) {
         if (totalIncomeLabel != null) totalIncomeLabel.setText(String.format("\u20AC %.2f", stats.getTotalIncome()));
         if (totalExpensesLabel != null) totalExpensesLabel.setText(String.format("\u20AC %.2f", stats.getTotalExpenses()));
 
@@ -182,10 +268,13 @@ public class DashboardController implements Initializable {
             }
         }
 
-        if (scheduledExpenseService != null && overdueExpensesLabel != null) {
-            List<ScheduledExpense> overdueExpenses = scheduledExpenseService.getOverdueExpenses();
-            overdueExpensesLabel.setText(String.valueOf(overdueExpenses.size()));
-            if (!overdueExpenses.isEmpty()) {
+        if (scheduledExpenses != null && overdueExpensesLabel != null) {
+            // Stesso criterio di findOverdueExpenses, sulle spese gia' caricate
+            long overdueCount = scheduledExpenses.stream()
+                    .filter(ScheduledExpense::isOverdue)
+                    .count();
+            overdueExpensesLabel.setText(String.valueOf(overdueCount));
+            if (overdueCount > 0) {
                 overdueExpensesLabel.setStyle("-fx-text-fill: red; -fx-font-weight: normal; -fx-font-size: 24px;");
             }
         }
@@ -209,23 +298,15 @@ public class DashboardController implements Initializable {
         }
     }
 
-    private void updateMonthlyTrendChart(LocalDate startDate, LocalDate endDate) {
-        if (monthlyTrendChart == null || statisticsService == null) return;
+    private void updateMonthlyTrendChart(Map<String, BigDecimal> monthlyTrend) {
+        if (monthlyTrendChart == null) return;
 
         try {
-            //System.out.println("TREND - Caricamento trend da " + startDate + " a " + endDate);
-
-            Map<String, BigDecimal> monthlyTrend = statisticsService.getMonthlyIncomeExpensesTrend(startDate, endDate);
-
-            //System.out.println("TREND - Dati ricevuti: " + monthlyTrend.size() + " mesi");
-            monthlyTrend.forEach((k, v) -> System.out.println("  " + k + " = €" + v));
-
+            // La serie arriva gia' completa (mesi vuoti a zero) dalla query mensile unica delle statistiche
             XYChart.Series<String, Number> series = new XYChart.Series<>();
             series.setName("Bilancio Mensile");
 
-            Map<String, BigDecimal> completeMonthlyData = generateCompleteMonthlyData(startDate, endDate, monthlyTrend);
-
-            completeMonthlyData.entrySet().forEach(entry -> {
+            monthlyTrend.entrySet().forEach(entry -> {
                 //System.out.println("TREND - Aggiunta data point: " + entry.getKey() + " = " + entry.getValue());
                 String displayDate = formatMonthForDisplay(entry.getKey());
                 series.getData().add(new XYChart.Data<>(displayDate, entry.getValue().doubleValue()));
@@ -241,10 +322,6 @@ public class DashboardController implements Initializable {
                 xAxis.setGapStartAndEnd(true);
             }
 
-            Platform.runLater(() -> {
-                forceChartLayout();
-            });
-
             //System.out.println("TREND - Grafico aggiornato con " + series.getData().size() + " punti");
 
         } catch (Exception e) {
@@ -253,24 +330,6 @@ public class DashboardController implements Initializable {
         }
     }
 
-    private Map<String, BigDecimal> generateCompleteMonthlyData(LocalDate startDate, LocalDate endDate,
-                                                                Map<String, BigDecimal> actualData) {
-        Map<String, BigDecimal> completeData = new java.util.LinkedHashMap<>();
-
-        YearMonth start = YearMonth.from(startDate);
-        YearMonth end = YearMonth.from(endDate);
-
-        YearMonth current = start;
-        while (!current.isAfter(end)) {
-            String monthKey = current.toString();
-            BigDecimal value = actualData.getOrDefault(monthKey, BigDecimal.ZERO);
-            completeData.put(monthKey, value);
-            current = current.plusMonths(1);
-        }
-
-        return completeData;
-    }
-
     private String formatMonthForDisplay(String yearMonth) {
         try {
             YearMonth ym = YearMonth.parse(yearMonth);
@@ -295,12 +354,12 @@ public class DashboardController implements Initializable {
         }
     }
 
-    private void updateUpcomingExpenses() {
+    private void updateUpcomingExpenses(List<ScheduledExpense> scheduledExpenses) {
         if (upcomingExpensesBox == null) return;
 
         try {
-            if (scheduledExpenseService != null) {
-                List<ScheduledExpense> upcomingExpenses = scheduledExpenseService.getAllScheduledExpenses()
+            if (scheduledExpenses != null) {
+                List<ScheduledExpense> upcomingExpenses = scheduledExpenses
                         .stream()
                         .filter(expense -> !expense.isCompleted())
                         .filter(expense -> expense.getDaysUntilDue() >= 0 && expense.getDaysUntilDue() <= 7)
@@ -333,41 +392,18 @@ public class DashboardController implements Initializable {
         }
     }
 
-    private void updateRecentMovements() {
+    private void updateRecentMovements(List<MovementDTO> recentMovements) {
         if (recentMovementsBox == null) return;
 
         try {
             if (movementService != null) {
-                List<it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO> recentMovements = null;
-
-                try {
-                    List<it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO> allMovements =
-                            movementService.getAllMovements();
-
-                    if (allMovements != null && !allMovements.isEmpty()) {
-                        recentMovements = allMovements.stream()
-                                .sorted((m1, m2) -> {
-                                    int dateComparison = m2.getDate().compareTo(m1.getDate());
-                                    if (dateComparison == 0) {
-                                        return m2.getId().compareTo(m1.getId());
-                                    }
-                                    return dateComparison;
-                                })
-                                .limit(5)
-                                .collect(java.util.stream.Collectors.toList());
-                    }
-                } catch (Exception e) {
-                    System.out.println("Errore nel caricamento movimenti: " + e.getMessage());
-                    e.printStackTrace();
-                }
-
                 recentMovementsBox.getChildren().clear();
 
                 if (recentMovements == null || recentMovements.isEmpty()) {
                     recentMovementsBox.getChildren().add(new Label("Nessun movimento recente"));
                 } else {
                     for (int i = 0; i < recentMovements.size(); i++) {
-                        it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO movement = recentMovements.get(i);
+                        MovementDTO movement = recentMovements.get(i);
 
                         Label movementLabel = new Label(String.format("%s - \u20AC%.2f (%s)",
                                 movement.getDescription(),
@@ -394,17 +430,8 @@ public class DashboardController implements Initializable {
     }
 
     public void refreshDashboard() {
+        // Il layout dei grafici viene forzato quando arrivano i nuovi dati
         loadDashboardData();
-
-        Platform.runLater(() -> {
-            forceChartLayout();
-            Platform.runLater(() -> {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException ignored) {}
-                forceChartLayout();
-            });
-        });
     }
 
     public StatisticsService getStatisticsService() {
@@ -35,6 +35,7 @@ public class MainController implements Initializable {
     private final CategoryService categoryService;
 
     private final Map<String, Object> tabControllers = new HashMap<>();
+    private DashboardController dashboardController;
 
     public MainController() {
         this.movementService = ApplicationConfig.getMovementService();
@@ -87,9 +88,15 @@ public class MainController implements Initializable {
     private void showDashboard() {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/dashboard-view.fxml"));
+            // La dashboard sostituita non deve continuare a caricare dati
+            if (dashboardController != null) {
+                dashboardController.cancelLoading();
+                ApplicationConfig.getChangeBus().unsubscribeAll(dashboardController);
+            }
             DashboardController controller = new DashboardController(
                     movementService, budgetService, statisticsService, scheduledExpenseService);
             loader.setController(controller);
+            dashboardController = controller;
 
             Tab dashboardTab = contentTabPane.getTabs().get(0);
             dashboardTab.setContent(loader.load());
@@ -129,6 +136,11 @@ public class MainController implements Initializable {
 
             Tab newTab = new Tab(title);
             newTab.setContent(loader.load());
+            // Una tab chiusa non riceve piu' le notifiche di modifica
+            newTab.setOnClosed(e -> {
+                tabControllers.remove(title);
+                ApplicationConfig.getChangeBus().unsubscribeAll(controller);
+            });
             contentTabPane.getTabs().add(newTab);
             contentTabPane.getSelectionModel().select(newTab);
 
@@ -171,65 +183,6 @@ public class MainController implements Initializable {
         });
     }
 
-    private void refreshAllTabs() {
-        showDashboard();
-
-        for (Tab tab : contentTabPane.getTabs()) {
-            String tabName = tab.getText();
-            switch (tabName) {
-                case "Movimenti":
-                    refreshMovementsTab(tab);
-                    break;
-                case "Budget":
-                    refreshBudgetTab(tab);
-                    break;
-                case "Scadenzario":
-                    refreshScheduledTab(tab);
-                    break;
-            }
-        }
-    }
-
-    private void refreshMovementsTab(Tab tab) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/movements-view.fxml"));
-            MovementController newController = new MovementController(movementService, categoryService);
-            loader.setController(newController);
-            tab.setContent(loader.load());
-            tabControllers.put("Movimenti", newController);
-        } catch (IOException e) {
-            showError("Errore refresh movimenti", e.getMessage());
-        }
-    }
-
-    private void refreshBudgetTab(Tab tab) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/budgets-view.fxml"));
-            BudgetController newController = new BudgetController(budgetService, movementService);
-            loader.setController(newController);
-            tab.setContent(loader.load());
-            tabControllers.put("Budget", newController);
-        } catch (IOException e) {
-            showError("Errore refresh budget", e.getMessage());
-        }
-    }
-
-    private void refreshScheduledTab(Tab tab) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/scheduled-expenses-view.fxml"));
-            ScheduledExpenseController newController = new ScheduledExpenseController(scheduledExpenseService, categoryService);
-            loader.setController(newController);
-            tab.setContent(loader.load());
-            tabControllers.put("Scadenzario", newController);
-        } catch (IOException e) {
-            showError("Errore refresh scadenzario", e.getMessage());
-        }
-    }
-
-    public void refreshAllTabsFromExternal() {
-        Platform.runLater(this::refreshAllTabs);
-    }
-
     private void handleExit() {
         ApplicationConfig.shutdown();
         System.exit(0);
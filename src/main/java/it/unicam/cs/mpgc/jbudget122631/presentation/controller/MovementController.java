@@ -1,13 +1,24 @@
 package it.unicam.cs.mpgc.jbudget122631.presentation.controller;
 
 import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
+import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryNameResolver;
 import it.unicam.cs.mpgc.jbudget122631.application.service.CategoryService;
 import it.unicam.cs.mpgc.jbudget122631.application.service.MovementService;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.CategoryChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeEvent;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.MovementChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.table.MovementFilterEngine;
+import it.unicam.cs.mpgc.jbudget122631.presentation.table.PagedObservableList;
+
+import javafx.animation.PauseTransition;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -16,17 +27,26 @@ import javafx.scene.layout.GridPane;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
+import javafx.util.Duration;
 
 import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
 public class MovementController implements Initializable {
 
+    // Oltre questa soglia i filtri restano sul database: l'elenco completo non viene tenuto in memoria
+    private static final int IN_MEMORY_FILTER_MAX_ROWS = 200_000;
+    private static final long FRAME_BUDGET_NANOS = 16_000_000L;
+    private static final Duration TYPING_DEBOUNCE = Duration.millis(250);
+
     @FXML
     private TableView<MovementDTO> movementsTable;
     @FXML
@@ -49,6 +69,12 @@ public class MovementController implements Initializable {
     @FXML
     private DatePicker endDateFilter;
     @FXML
+    private ComboBox<CategoryOption> categoryFilter;
+    @FXML
+    private TextField minAmountFilter;
+    @FXML
+    private TextField maxAmountFilter;
+    @FXML
     private Button filterButton;
     @FXML
     private Button clearFilterButton;
@@ -62,9 +88,21 @@ public class MovementController implements Initializable {
     private Label totalMovementsLabel;
 
     private final MovementService movementService;
-    private BudgetController budgetController;
     private CategoryService categoryService;
-    private final ObservableList<MovementDTO> movements = FXCollections.observableArrayList();
+    private final ChangeBus changeBus = ApplicationConfig.getChangeBus();
+    // Solo le pagine vicine alla parte visibile restano in memoria; filtri e ordinamento li applica il database
+    private final PagedObservableList<MovementDTO> movements =
+            new PagedObservableList<>(ApplicationConfig.getBackgroundExecutor());
+    private MovementQuery currentQuery = MovementQuery.all();
+    private final CategoryNameResolver categoryNames = ApplicationConfig.getCategoryNameResolver();
+
+    // Disponibile quando l'elenco completo e' stato caricato; nel frattempo filtra il database
+    private MovementFilterEngine filterEngine;
+    private long filterEngineGeneration;
+    // Modifiche applicate all'indice in memoria una dopo l'altra, nell'ordine degli eventi
+    private CompletableFuture<Void> filterEnginePatches = CompletableFuture.completedFuture(null);
+    private final PauseTransition typingPause = new PauseTransition(TYPING_DEBOUNCE);
+    private boolean resettingFilters;
 
     public MovementController(MovementService movementService, CategoryService categoryService) {
         this.movementService = movementService;
@@ -75,10 +113,6 @@ public class MovementController implements Initializable {
         this.movementService = null;
     }
 
-    public void setBudgetController(BudgetController budgetController) {
-        this.budgetController = budgetController;
-    }
-
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupTable();
@@ -86,10 +120,8 @@ public class MovementController implements Initializable {
         setupButtons();
         loadMovements();
 
-        Platform.runLater(() -> {
-            movementsTable.refresh();
-            System.out.println("Tabella aggiornata - movimenti visibili: " + movements.size());
-        });
+        changeBus.subscribe(this, MovementChanged.class, this::onMovementsChanged);
+        changeBus.subscribe(this, CategoryChanged.class, event -> onCategoriesChanged());
     }
 
     private void setupTable() {
@@ -97,28 +129,22 @@ public class MovementController implements Initializable {
         descriptionColumn.setCellValueFactory(new PropertyValueFactory<>("description"));
         amountColumn.setCellValueFactory(new PropertyValueFactory<>("amount"));
 
-        typeColumn.setCellValueFactory(cellData ->
-                new SimpleStringProperty(cellData.getValue().getType().getDescription()));
+        // Le righe non ancora caricate valgono null e restano vuote fino all'arrivo della loro pagina
+        typeColumn.setCellValueFactory(cellData -> cellData.getValue() == null
+                ? new SimpleStringProperty(null)
+                : new SimpleStringProperty(cellData.getValue().getType().getDescription()));
 
         categoriesColumn.setCellValueFactory(cellData -> {
+            if (cellData.getValue() == null) {
+                return new SimpleStringProperty(null);
+            }
             List<Long> categoryIds = cellData.getValue().getCategoryIds();
             if (categoryIds == null || categoryIds.isEmpty()) {
                 return new SimpleStringProperty("-");
             }
 
-            if (categoryService != null) {
-                String categories = categoryIds.stream()
-                        .map(id -> categoryService.getCategoryById(id))
-                        .filter(opt -> opt.isPresent())
-                        .map(opt -> opt.get().getName())
-                        .collect(Collectors.joining(", "));
-                return new SimpleStringProperty(categories);
-            } else {
-                String categories = categoryIds.stream()
-                        .map(id -> getCategoryNameById(id))
-                        .collect(Collectors.joining(", "));
-                return new SimpleStringProperty(categories);
-            }
+            // Nomi gia' in memoria: nessuna query durante lo scorrimento della tabella
+            return new SimpleStringProperty(categoryNames.joinNames(categoryIds));
         });
 
         amountColumn.setCellFactory(column -> new TableCell<MovementDTO, BigDecimal>() {
@@ -147,6 +173,14 @@ public class MovementController implements Initializable {
         movementsTable.setItems(movements);
         movementsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
+        // L'ordinamento non riordina la lista in memoria: rilegge le pagine nell'ordine scelto
+        categoriesColumn.setSortable(false);
+        movementsTable.setSortPolicy(table -> {
+            applyQuery(currentQuery);
+            return true;
+        });
+        movements.addListener((ListChangeListener<MovementDTO>) change -> updateTotalMovementsLabel());
+
         ContextMenu contextMenu = new ContextMenu();
         MenuItem editItem = new MenuItem("Modifica");
         MenuItem deleteItem = new MenuItem("Elimina");
@@ -156,28 +190,59 @@ public class MovementController implements Initializable {
         movementsTable.setContextMenu(contextMenu);
     }
 
-    private String getCategoryNameById(Long id) {
-        switch (id.intValue()) {
-            case 1: return "Alimentari";
-            case 2: return "Trasporti";
-            case 3: return "Utenze";
-            case 4: return "Svago";
-            case 5: return "Stipendio";
-            case 6: return "Salute";
-            default: return "Generale";
-        }
-    }
-
     private void setupFilters() {
         typeFilter.setItems(FXCollections.observableArrayList(MovementType.INCOME, MovementType.EXPENSE));
         typeFilter.setPromptText("Tutti i tipi");
 
+        if (categoryFilter != null && categoryService != null) {
+            loadCategoryOptions();
+            categoryFilter.setPromptText("Tutte le categorie");
+        }
+
         endDateFilter.setValue(LocalDate.now());
         startDateFilter.setValue(LocalDate.now().minusMonths(1));
 
         filterButton.setOnAction(e -> applyFilters());
         clearFilterButton.setOnAction(e -> clearFilters());
-        searchField.setOnAction(e -> applyFilters());
+        searchField.setOnAction(e -> {
+            typingPause.stop();
+            applyFilters();
+        });
+
+        // Testo e importi si applicano quando si smette di digitare, le selezioni subito
+        typingPause.setOnFinished(e -> applyFilters());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> onTyping());
+        if (minAmountFilter != null) {
+            minAmountFilter.textProperty().addListener((observable, oldValue, newValue) -> onTyping());
+        }
+        if (maxAmountFilter != null) {
+            maxAmountFilter.textProperty().addListener((observable, oldValue, newValue) -> onTyping());
+        }
+        typeFilter.valueProperty().addListener((observable, oldValue, newValue) -> onSelectionChanged());
+        startDateFilter.valueProperty().addListener((observable, oldValue, newValue) -> onSelectionChanged());
+        endDateFilter.valueProperty().addListener((observable, oldValue, newValue) -> onSelectionChanged());
+        if (categoryFilter != null) {
+            categoryFilter.valueProperty().addListener((observable, oldValue, newValue) -> onSelectionChanged());
+        }
+    }
+
+    private void loadCategoryOptions() {
+        categoryFilter.setItems(FXCollections.observableArrayList(categoryService.getAllCategories().stream()
+                .map(category -> new CategoryOption(category.getId(), category.getName()))
+                .collect(Collectors.toList())));
+    }
+
+    private void onTyping() {
+        if (!resettingFilters) {
+            typingPause.playFromStart();
+        }
+    }
+
+    private void onSelectionChanged() {
+        if (!resettingFilters) {
+            typingPause.stop();
+            applyFilters();
+        }
     }
 
     private void setupButtons() {
@@ -192,72 +257,237 @@ public class MovementController implements Initializable {
     }
 
     private void loadMovements() {
-        try {
-            if (movementService != null) {
-                List<MovementDTO> allMovements = movementService.getAllMovements();
-                movements.setAll(allMovements);
+        applyQuery(MovementQuery.all());
+        rebuildFilterEngine();
+    }
+
+    // Filtri e ordinamento restano quelli correnti: si rileggono il conteggio e le pagine visibili
+    private void onMovementsChanged(MovementChanged event) {
+        if (movementService == null) {
+            return;
+        }
+
+        MovementFilterEngine engine = filterEngine;
+        if (engine == null || event.affectsAll()) {
+            // Indice non pronto o modifiche non elencate: fino alla ricostruzione si filtra sul database
+            rebuildFilterEngine();
+            movements.refresh(repositorySource(currentQuery));
+            return;
+        }
+
+        // Solo le righe indicate dall'evento vengono rilette e aggiornate nell'indice
+        filterEnginePatches = filterEnginePatches
+                .thenRunAsync(() -> patchFilterEngine(engine, event), ApplicationConfig.getBackgroundExecutor())
+                .handle((ignored, error) -> {
+                    Platform.runLater(() -> onFilterEnginePatched(engine, error));
+                    return null;
+                });
+    }
+
+    private void patchFilterEngine(MovementFilterEngine engine, MovementChanged event) {
+        if (event.getKind() == ChangeEvent.Kind.DELETED) {
+            engine.remove(event.getIds());
+            return;
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (Long id : event.getIds()) {
+            Optional<MovementDTO> movement = movementService.getMovementById(id);
+            if (movement.isPresent()) {
+                engine.upsert(movement.get());
+            } else {
+                // Eliminato nel frattempo
+                missing.add(id);
             }
-            updateTotalMovementsLabel();
-        } catch (Exception e) {
-            showError("Errore caricamento movimenti", e.getMessage());
         }
+        engine.remove(missing);
     }
 
-    private void updateTotalMovementsLabel() {
-        if (totalMovementsLabel != null) {
-            totalMovementsLabel.setText(String.valueOf(movements.size()));
+    private void onFilterEnginePatched(MovementFilterEngine engine, Throwable error) {
+        if (engine != filterEngine) {
+            // Nel frattempo sostituito da una ricostruzione completa
+            return;
+        }
+        if (error != null || engine.size() > IN_MEMORY_FILTER_MAX_ROWS) {
+            if (error != null) {
+                System.err.println("FILTER - Errore aggiornamento filtri in memoria: " + error.getMessage());
+            }
+            rebuildFilterEngine();
+            movements.refresh(repositorySource(currentQuery));
+            return;
         }
+        movements.refresh(inMemorySource(engine, currentQuery));
     }
 
-    private void applyFilters() {
-        try {
-            List<MovementDTO> filteredMovements;
+    // I nomi nelle celle arrivano dal resolver, che li ricarica in background: si ridisegnano quando arrivano
+    private void onCategoriesChanged() {
+        if (categoryFilter != null && categoryService != null) {
+            CategoryOption selected = categoryFilter.getValue();
+            resettingFilters = true;
+            try {
+                loadCategoryOptions();
+                categoryFilter.setValue(selected != null && categoryFilter.getItems().contains(selected) ? selected : null);
+            } finally {
+                resettingFilters = false;
+            }
+        }
+        categoryNames.whenCurrent().whenComplete((ignored, error) -> Platform.runLater(movementsTable::refresh));
+    }
 
-            LocalDate startDate = startDateFilter.getValue();
-            LocalDate endDate = endDateFilter.getValue();
+    private void applyQuery(MovementQuery query) {
+        currentQuery = withTableSort(query);
+        if (movementService == null) {
+            movements.setSource(null);
+            return;
+        }
 
-            if (startDate != null && endDate != null && movementService != null) {
-                filteredMovements = movementService.getMovementsByDateRange(startDate, endDate);
-            } else if (movementService != null) {
-                filteredMovements = movementService.getAllMovements();
-            } else {
-                filteredMovements = movements.stream().collect(Collectors.toList());
+        MovementQuery pageQuery = currentQuery;
+        movements.setSource(filterEngine != null
+                ? inMemorySource(filterEngine, pageQuery)
+                : repositorySource(pageQuery));
+    }
 
-                if (startDate != null && endDate != null) {
-                    filteredMovements = filteredMovements.stream()
-                            .filter(m -> !m.getDate().isBefore(startDate) && !m.getDate().isAfter(endDate))
-                            .collect(Collectors.toList());
-                }
+    private PagedObservableList.PageSource<MovementDTO> repositorySource(MovementQuery query) {
+        return new PagedObservableList.PageSource<MovementDTO>() {
+            @Override
+            public long count() {
+                return movementService.countMovements(query);
+            }
+
+            @Override
+            public List<MovementDTO> fetch(int offset, int size) {
+                return movementService.getMovementsPage(query, offset, size);
+            }
+        };
+    }
+
+    private PagedObservableList.PageSource<MovementDTO> inMemorySource(MovementFilterEngine engine, MovementQuery query) {
+        return new PagedObservableList.PageSource<MovementDTO>() {
+            private volatile List<MovementDTO> result;
+
+            @Override
+            public long count() {
+                return result().size();
             }
 
-            if (typeFilter.getValue() != null) {
-                filteredMovements = filteredMovements.stream()
-                        .filter(m -> m.getType() == typeFilter.getValue())
-                        .collect(Collectors.toList());
+            @Override
+            public List<MovementDTO> fetch(int offset, int size) {
+                List<MovementDTO> rows = result();
+                int from = Math.min(offset, rows.size());
+                return new ArrayList<>(rows.subList(from, Math.min(from + size, rows.size())));
             }
 
-            String searchText = searchField.getText();
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                String searchLower = searchText.toLowerCase().trim();
-                filteredMovements = filteredMovements.stream()
-                        .filter(m -> m.getDescription().toLowerCase().contains(searchLower))
-                        .collect(Collectors.toList());
+            private List<MovementDTO> result() {
+                List<MovementDTO> current = result;
+                if (current == null) {
+                    current = engine.filter(query);
+                    result = current;
+                    if (engine.getLastFilterNanos() > FRAME_BUDGET_NANOS) {
+                        System.out.println("FILTER - Filtro in memoria oltre il frame: " +
+                                engine.getLastFilterNanos() / 1_000_000 + " ms su " + engine.size() + " movimenti");
+                    }
+                }
+                return current;
             }
+        };
+    }
+
+    // Elenco completo caricato in background; fino ad allora (o se troppo grande) filtra il database
+    private void rebuildFilterEngine() {
+        filterEngine = null;
+        if (movementService == null) {
+            return;
+        }
 
-            movements.setAll(filteredMovements);
-            updateTotalMovementsLabel();
+        long generation = ++filterEngineGeneration;
+        ApplicationConfig.getBackgroundExecutor().execute(() -> {
+            try {
+                if (movementService.getTotalMovementsCount() > IN_MEMORY_FILTER_MAX_ROWS) {
+                    return;
+                }
+                MovementFilterEngine engine = new MovementFilterEngine(movementService.getAllMovements());
+                Platform.runLater(() -> {
+                    if (generation == filterEngineGeneration) {
+                        filterEngine = engine;
+                    }
+                });
+            } catch (Exception e) {
+                System.err.println("FILTER - Errore caricamento movimenti per i filtri: " + e.getMessage());
+            }
+        });
+    }
+
+    // Prima colonna dell'ordinamento della tabella; senza ordinamento, dal movimento piu' recente
+    private MovementQuery withTableSort(MovementQuery query) {
+        if (movementsTable == null || movementsTable.getSortOrder().isEmpty()) {
+            return query.sortedBy(MovementQuery.SortField.DATE, false);
+        }
+
+        TableColumn<MovementDTO, ?> column = movementsTable.getSortOrder().get(0);
+        boolean ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+        if (column == descriptionColumn) {
+            return query.sortedBy(MovementQuery.SortField.DESCRIPTION, ascending);
+        } else if (column == amountColumn) {
+            return query.sortedBy(MovementQuery.SortField.AMOUNT, ascending);
+        } else if (column == typeColumn) {
+            return query.sortedBy(MovementQuery.SortField.TYPE, ascending);
+        }
+        return query.sortedBy(MovementQuery.SortField.DATE, ascending);
+    }
+
+    private void updateTotalMovementsLabel() {
+        if (totalMovementsLabel != null) {
+            totalMovementsLabel.setText(String.valueOf(movements.size()));
+        }
+    }
 
+    private void applyFilters() {
+        try {
+            MovementQuery query = new MovementQuery(typeFilter.getValue(), startDateFilter.getValue(),
+                    endDateFilter.getValue(), searchField.getText(), currentQuery.getSortField(), currentQuery.isAscending());
+            if (categoryFilter != null && categoryFilter.getValue() != null) {
+                query = query.withCategory(categoryFilter.getValue().getId());
+            }
+            query = query.withAmountRange(parseAmount(minAmountFilter), parseAmount(maxAmountFilter));
+            applyQuery(query);
         } catch (Exception e) {
             showError("Errore applicazione filtri", e.getMessage());
         }
     }
 
+    // Un importo non (ancora) valido mentre si digita non filtra
+    private BigDecimal parseAmount(TextField field) {
+        if (field == null || field.getText() == null || field.getText().trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(field.getText().trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     private void clearFilters() {
-        searchField.clear();
-        typeFilter.setValue(null);
-        startDateFilter.setValue(LocalDate.now().minusMonths(1));
-        endDateFilter.setValue(LocalDate.now());
-        loadMovements();
+        resettingFilters = true;
+        try {
+            typingPause.stop();
+            searchField.clear();
+            typeFilter.setValue(null);
+            if (categoryFilter != null) {
+                categoryFilter.setValue(null);
+            }
+            if (minAmountFilter != null) {
+                minAmountFilter.clear();
+            }
+            if (maxAmountFilter != null) {
+                maxAmountFilter.clear();
+            }
+            startDateFilter.setValue(LocalDate.now().minusMonths(1));
+            endDateFilter.setValue(LocalDate.now());
+        } finally {
+            resettingFilters = false;
+        }
+        applyQuery(MovementQuery.all());
     }
 
     public void showAddNewMovementDialog() {
@@ -272,14 +502,9 @@ public class MovementController implements Initializable {
                     if (movementService != null) {
                         MovementDTO createdMovement = movementService.createMovement(movementDTO);
                         System.out.println("DOPO il service - DTO creato: " + createdMovement);
-                        loadMovements();
-                    } else {
-                        movementDTO.setId(System.currentTimeMillis());
-                        movements.add(movementDTO);
-                        updateTotalMovementsLabel();
+                        changeBus.publish(MovementChanged.created(createdMovement.getId()));
                     }
 
-                    notifyBudgetUpdate();
                     showInfo("Movimento aggiunto", "Il movimento e' stato aggiunto con successo.");
 
                 } catch (Exception e) {
@@ -309,16 +534,9 @@ public class MovementController implements Initializable {
                     if (movementService != null) {
                         MovementDTO saved = movementService.updateMovement(selectedMovement.getId(), updatedMovement);
                         System.out.println("EDIT - DTO salvato: " + saved);
-                        loadMovements();
-                    } else {
-                        updatedMovement.setId(selectedMovement.getId());
-                        int index = movements.indexOf(selectedMovement);
-                        if (index >= 0) {
-                            movements.set(index, updatedMovement);
-                        }
+                        changeBus.publish(MovementChanged.updated(selectedMovement.getId()));
                     }
 
-                    notifyBudgetUpdate();
                     showInfo("Movimento modificato", "Il movimento e' stato modificato con successo.");
                 } catch (Exception e) {
                     System.err.println("EDIT - Errore: " + e.getMessage());
@@ -332,7 +550,10 @@ public class MovementController implements Initializable {
     }
 
     private void deleteSelectedMovements() {
-        ObservableList<MovementDTO> selectedMovements = movementsTable.getSelectionModel().getSelectedItems();
+        // Le righe selezionate sono visibili, quindi gia' caricate; i segnaposto vuoti vengono ignorati
+        List<MovementDTO> selectedMovements = movementsTable.getSelectionModel().getSelectedItems().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
         if (selectedMovements.isEmpty()) return;
 
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
@@ -342,23 +563,20 @@ public class MovementController implements Initializable {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
+            List<Long> deletedIds = new ArrayList<>();
             try {
-                for (MovementDTO movement : selectedMovements) {
-                    if (movementService != null) {
+                if (movementService != null) {
+                    for (MovementDTO movement : selectedMovements) {
                         movementService.deleteMovement(movement.getId());
-                    } else {
-                        movements.remove(movement);
+                        deletedIds.add(movement.getId());
                     }
                 }
-                if (movementService != null) {
-                    loadMovements();
-                } else {
-                    updateTotalMovementsLabel();
-                }
 
-                notifyBudgetUpdate();
+                publishDeleted(deletedIds);
                 showInfo("Movimenti eliminati", "I movimenti selezionati sono stati eliminati.");
             } catch (Exception e) {
+                // Quelli eliminati prima dell'errore vanno comunque tolti dalle altre schermate
+                publishDeleted(deletedIds);
                 showError("Errore eliminazione movimenti", e.getMessage());
             }
         }
@@ -494,22 +712,9 @@ public class MovementController implements Initializable {
         return dialog;
     }
 
-    private void notifyBudgetUpdate() {
-        try {
-            if (budgetController != null) {
-                budgetController.updateBudgetWithRealMovements();
-                System.out.println("Budget aggiornati automaticamente dopo modifica movimento");
-            } else {
-                System.out.println("BudgetController non disponibile - impossibile aggiornare budget automaticamente");
-            }
-            it.unicam.cs.mpgc.jbudget122631.presentation.controller.MainController main =
-                    it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig.getMainController();
-            if (main != null) {
-                main.refreshAllTabsFromExternal();
-                System.out.println("Richiesto refresh globale delle tab (inclusa dashboard)");
-            }
-        } catch (Exception e) {
-            System.err.println("Errore durante notifica aggiornamento budget: " + e.getMessage());
+    private void publishDeleted(List<Long> deletedIds) {
+        if (!deletedIds.isEmpty()) {
+            changeBus.publish(MovementChanged.deleted(deletedIds));
         }
     }
 
@@ -6,7 +6,12 @@ import it.unicam.cs.mpgc.jbudget122631.domain.model.ScheduledExpense;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.Movement;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.RecurrenceType;
 import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementType;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig;
 import it.unicam.cs.mpgc.jbudget122631.presentation.dialog.AddScheduledExpenseDialog;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeBus;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ChangeEvent;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.MovementChanged;
+import it.unicam.cs.mpgc.jbudget122631.presentation.event.ScheduledExpenseChanged;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -22,8 +27,11 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
@@ -62,6 +70,7 @@ public class ScheduledExpenseController implements Initializable {
     private final ScheduledExpenseService scheduledExpenseService;
     private final CategoryService categoryService;
     private final ObservableList<ScheduledExpense> scheduledExpenses = FXCollections.observableArrayList();
+    private final ChangeBus changeBus = ApplicationConfig.getChangeBus();
 
     public ScheduledExpenseController(ScheduledExpenseService scheduledExpenseService, CategoryService categoryService) {
         this.scheduledExpenseService = scheduledExpenseService;
@@ -76,6 +85,8 @@ public class ScheduledExpenseController implements Initializable {
         loadScheduledExpenses();
         updateSummaryLabels();
         updateQuickActionsBoxes();
+
+        changeBus.subscribe(this, ScheduledExpenseChanged.class, this::onScheduledExpensesChanged);
     }
 
     private void setupTable() {
@@ -527,45 +538,9 @@ public class ScheduledExpenseController implements Initializable {
                 return;
             }
 
-            List<ScheduledExpense> filteredExpenses = scheduledExpenseService.getAllScheduledExpenses();
-
-            String statusFilterValue = statusFilter != null ? statusFilter.getValue() : "Solo attive";
-            if (statusFilterValue != null && !"Tutte".equals(statusFilterValue)) {
-                filteredExpenses = filteredExpenses.stream()
-                        .filter(expense -> {
-                            switch (statusFilterValue) {
-                                case "Tutte":
-                                    return true;
-                                case "Solo attive":
-                                    return !expense.isCompleted() && expense.isActive();
-                                case "In scadenza":
-                                    return expense.isDue() && !expense.isCompleted();
-                                case "Scadute":
-                                    return expense.isOverdue() && !expense.isCompleted();
-                                case "Completate":
-                                    return expense.isCompleted();
-                                case "Ricorrenti":
-                                    return expense.isRecurring();
-                                default:
-                                    return !expense.isCompleted();
-                            }
-                        })
-                        .collect(Collectors.toList());
-            }
-
-            RecurrenceType recurrenceFilterValue = recurrenceFilter != null ? recurrenceFilter.getValue() : null;
-            if (recurrenceFilterValue != null) {
-                filteredExpenses = filteredExpenses.stream()
-                        .filter(expense -> expense.getRecurrenceType() == recurrenceFilterValue)
-                        .collect(Collectors.toList());
-            }
-
-            LocalDate dateFilterValue = dueDateFilter != null ? dueDateFilter.getValue() : null;
-            if (dateFilterValue != null) {
-                filteredExpenses = filteredExpenses.stream()
-                        .filter(expense -> expense.getDueDate().equals(dateFilterValue))
-                        .collect(Collectors.toList());
-            }
+            List<ScheduledExpense> filteredExpenses = scheduledExpenseService.getAllScheduledExpenses().stream()
+                    .filter(currentFilter())
+                    .collect(Collectors.toList());
 
             scheduledExpenses.setAll(filteredExpenses);
             updateSummaryLabels();
@@ -576,6 +551,90 @@ public class ScheduledExpenseController implements Initializable {
         }
     }
 
+    // Filtri correnti come predicato, per valutare anche una singola spesa modificata
+    private Predicate<ScheduledExpense> currentFilter() {
+        String statusFilterValue = statusFilter != null ? statusFilter.getValue() : "Solo attive";
+        RecurrenceType recurrenceFilterValue = recurrenceFilter != null ? recurrenceFilter.getValue() : null;
+        LocalDate dateFilterValue = dueDateFilter != null ? dueDateFilter.getValue() : null;
+
+        return expense -> matchesStatus(expense, statusFilterValue)
+                && (recurrenceFilterValue == null || expense.getRecurrenceType() == recurrenceFilterValue)
+                && (dateFilterValue == null || expense.getDueDate().equals(dateFilterValue));
+    }
+
+    private boolean matchesStatus(ScheduledExpense expense, String statusFilterValue) {
+        if (statusFilterValue == null) {
+            return true;
+        }
+        switch (statusFilterValue) {
+            case "Tutte":
+                return true;
+            case "Solo attive":
+                return !expense.isCompleted() && expense.isActive();
+            case "In scadenza":
+                return expense.isDue() && !expense.isCompleted();
+            case "Scadute":
+                return expense.isOverdue() && !expense.isCompleted();
+            case "Completate":
+                return expense.isCompleted();
+            case "Ricorrenti":
+                return expense.isRecurring();
+            default:
+                return !expense.isCompleted();
+        }
+    }
+
+    // Solo le spese indicate vengono rilette e sostituite, aggiunte o tolte dall'elenco filtrato
+    private void onScheduledExpensesChanged(ScheduledExpenseChanged event) {
+        if (scheduledExpenseService == null) {
+            return;
+        }
+        if (event.affectsAll()) {
+            applyFilters();
+            return;
+        }
+
+        Predicate<ScheduledExpense> filter = currentFilter();
+        for (Long id : event.getIds()) {
+            Optional<ScheduledExpense> current = event.getKind() == ChangeEvent.Kind.DELETED
+                    ? Optional.empty()
+                    : scheduledExpenseService.getScheduledExpenseById(id);
+            int index = indexOfExpense(id);
+
+            if (current.isPresent() && filter.test(current.get())) {
+                if (index >= 0) {
+                    scheduledExpenses.set(index, current.get());
+                } else {
+                    scheduledExpenses.add(insertionIndex(current.get()), current.get());
+                }
+            } else if (index >= 0) {
+                scheduledExpenses.remove(index);
+            }
+        }
+
+        updateSummaryLabels();
+        updateQuickActionsBoxes();
+    }
+
+    private int indexOfExpense(Long id) {
+        for (int i = 0; i < scheduledExpenses.size(); i++) {
+            if (Objects.equals(scheduledExpenses.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Prima della prima spesa con scadenza successiva, come nell'ordine del repository
+    private int insertionIndex(ScheduledExpense expense) {
+        for (int i = 0; i < scheduledExpenses.size(); i++) {
+            if (scheduledExpenses.get(i).getDueDate().isAfter(expense.getDueDate())) {
+                return i;
+            }
+        }
+        return scheduledExpenses.size();
+    }
+
     private void clearFilters() {
         if (statusFilter != null) statusFilter.setValue("Solo attive");
         if (recurrenceFilter != null) recurrenceFilter.setValue(null);
@@ -596,7 +655,7 @@ public class ScheduledExpenseController implements Initializable {
                 if (scheduledExpenseService != null) {
                     ScheduledExpense savedExpense = scheduledExpenseService.createScheduledExpense(newExpense);
 
-                    applyFilters();
+                    changeBus.publish(ScheduledExpenseChanged.created(savedExpense.getId()));
 
                     showInfo("Spesa Creata",
                             "Spesa programmata '" + savedExpense.getDescription() + "' creata con successo!\n" +
@@ -640,7 +699,7 @@ public class ScheduledExpenseController implements Initializable {
 
                 if (scheduledExpenseService != null && selected.getId() != null) {
                     scheduledExpenseService.updateScheduledExpense(selected.getId(), updatedExpense);
-                    applyFilters();
+                    changeBus.publish(ScheduledExpenseChanged.updated(selected.getId()));
                     showInfo("Spesa Modificata", "Spesa programmata modificata con successo!");
                 } else {
                     int index = scheduledExpenses.indexOf(selected);
@@ -670,18 +729,25 @@ public class ScheduledExpenseController implements Initializable {
                 "Questa operazione non puo' essere annullata.", selected.size()));
 
         if (confirmation.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+            // Copia: la selezione cambia man mano che le righe vengono tolte
+            List<ScheduledExpense> toDelete = new ArrayList<>(selected);
+            List<Long> deletedIds = new ArrayList<>();
             try {
-                for (ScheduledExpense expense : selected) {
+                for (ScheduledExpense expense : toDelete) {
                     if (scheduledExpenseService != null) {
                         scheduledExpenseService.deleteScheduledExpense(expense.getId());
+                        deletedIds.add(expense.getId());
+                    } else {
+                        scheduledExpenses.remove(expense);
                     }
-                    scheduledExpenses.remove(expense);
                 }
+                publishDeleted(deletedIds);
                 updateSummaryLabels();
                 updateQuickActionsBoxes();
                 showInfo("Eliminazione completata",
-                        String.format("Eliminate %d spese programmate con successo", selected.size()));
+                        String.format("Eliminate %d spese programmate con successo", toDelete.size()));
             } catch (Exception e) {
+                publishDeleted(deletedIds);
                 showError("Errore eliminazione", e.getMessage());
             }
         }
@@ -714,16 +780,10 @@ public class ScheduledExpenseController implements Initializable {
                 if (scheduledExpenseService != null) {
                     Movement createdMovement = scheduledExpenseService.completeScheduledExpense(expense.getId());
 
-                    applyFilters();
-                    updateSummaryLabels();
-                    updateQuickActionsBoxes();
-
-                    try {
-                        if (it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig.getMainController() != null) {
-                            it.unicam.cs.mpgc.jbudget122631.infrastructure.config.ApplicationConfig.getMainController().refreshAllTabsFromExternal();
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Avviso: impossibile aggiornare altri tab: " + e.getMessage());
+                    // L'eventuale occorrenza successiva ha un ID non noto qui: lo scadenzario viene riletto
+                    changeBus.publish(ScheduledExpenseChanged.all());
+                    if (createdMovement != null) {
+                        changeBus.publish(MovementChanged.created(createdMovement.getId()));
                     }
 
                     String message = "Spesa '" + expense.getDescription() + "' completata con successo";
@@ -818,6 +878,12 @@ public class ScheduledExpenseController implements Initializable {
                         "- JSON (backup dati)");
     }
 
+    private void publishDeleted(List<Long> deletedIds) {
+        if (!deletedIds.isEmpty()) {
+            changeBus.publish(ScheduledExpenseChanged.deleted(deletedIds));
+        }
+    }
+
     private void showError(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Errore");
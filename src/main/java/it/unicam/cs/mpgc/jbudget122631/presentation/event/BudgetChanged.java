@@ -0,0 +1,29 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BudgetChanged extends ChangeEvent {
+
+    public BudgetChanged(Kind kind, Collection<Long> ids) {
+        super(kind, ids);
+    }
+
+    public static BudgetChanged created(Long id) {
+        return new BudgetChanged(Kind.CREATED, Collections.singletonList(id));
+    }
+
+    public static BudgetChanged updated(Long id) {
+        return new BudgetChanged(Kind.UPDATED, Collections.singletonList(id));
+    }
+
+    public static BudgetChanged deleted(Collection<Long> ids) {
+        return new BudgetChanged(Kind.DELETED, ids);
+    }
+
+    // Budget modificati in numero imprecisato: chi li mostra li rilegge tutti
+    public static BudgetChanged all() {
+        return new BudgetChanged(Kind.UPDATED, List.of());
+    }
+}
@@ -0,0 +1,29 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class CategoryChanged extends ChangeEvent {
+
+    public CategoryChanged(Kind kind, Collection<Long> ids) {
+        super(kind, ids);
+    }
+
+    public static CategoryChanged created(Long id) {
+        return new CategoryChanged(Kind.CREATED, Collections.singletonList(id));
+    }
+
+    public static CategoryChanged updated(Long id) {
+        return new CategoryChanged(Kind.UPDATED, Collections.singletonList(id));
+    }
+
+    public static CategoryChanged deleted(Collection<Long> ids) {
+        return new CategoryChanged(Kind.DELETED, ids);
+    }
+
+    // Categorie modificati in numero imprecisato: chi li mostra li rilegge tutti
+    public static CategoryChanged all() {
+        return new CategoryChanged(Kind.UPDATED, List.of());
+    }
+}
@@ -0,0 +1,65 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Notifiche delle modifiche tra le schermate aperte: chi salva pubblica un evento tipizzato e ogni
+// controller iscritto aggiorna le proprie righe ed etichette. Gli eventi sono consegnati sul thread JavaFX.
+public class ChangeBus {
+
+    private static class Subscription<E extends ChangeEvent> {
+        private final Object owner;
+        private final Class<E> type;
+        private final Consumer<? super E> handler;
+
+        Subscription(Object owner, Class<E> type, Consumer<? super E> handler) {
+            this.owner = owner;
+            this.type = type;
+            this.handler = handler;
+        }
+
+        void deliver(ChangeEvent event) {
+            if (type.isInstance(event)) {
+                handler.accept(type.cast(event));
+            }
+        }
+    }
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    public <E extends ChangeEvent> void subscribe(Object owner, Class<E> type, Consumer<? super E> handler) {
+        subscriptions.add(new Subscription<>(owner, type, handler));
+    }
+
+    // Da chiamare quando la schermata del controller viene chiusa o sostituita
+    public void unsubscribeAll(Object owner) {
+        subscriptions.removeIf(subscription -> subscription.owner == owner);
+    }
+
+    public void publish(ChangeEvent event) {
+        if (Platform.isFxApplicationThread()) {
+            deliver(event);
+        } else {
+            Platform.runLater(() -> deliver(event));
+        }
+    }
+
+    private void deliver(ChangeEvent event) {
+        System.out.println("EVENTI - " + event);
+        for (Subscription<?> subscription : subscriptions) {
+            // Un controller in errore non deve impedire l'aggiornamento degli altri
+            try {
+                subscription.deliver(event);
+            } catch (Exception e) {
+                System.err.println("EVENTI - Errore gestione " + event + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+}
@@ -0,0 +1,40 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+// Modifica salvata su un tipo di dato: chi mostra quei dati aggiorna solo le righe con gli ID indicati.
+// Senza ID la modifica riguarda un numero imprecisato di righe (es. generazione in background) e va riletto tutto.
+public abstract class ChangeEvent {
+
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    private final Kind kind;
+    private final Set<Long> ids;
+
+    protected ChangeEvent(Kind kind, Collection<Long> ids) {
+        this.kind = Objects.requireNonNull(kind, "Tipo modifica richiesto");
+        Set<Long> copy = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                copy.add(id);
+            }
+        }
+        this.ids = Collections.unmodifiableSet(copy);
+    }
+
+    public Kind getKind() { return kind; }
+    public Set<Long> getIds() { return ids; }
+
+    public boolean affectsAll() {
+        return ids.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + kind + (affectsAll() ? ", tutti" : ", ids=" + ids) + "}";
+    }
+}
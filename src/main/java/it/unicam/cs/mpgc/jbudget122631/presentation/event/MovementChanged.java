@@ -0,0 +1,29 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class MovementChanged extends ChangeEvent {
+
+    public MovementChanged(Kind kind, Collection<Long> ids) {
+        super(kind, ids);
+    }
+
+    public static MovementChanged created(Long id) {
+        return new MovementChanged(Kind.CREATED, Collections.singletonList(id));
+    }
+
+    public static MovementChanged updated(Long id) {
+        return new MovementChanged(Kind.UPDATED, Collections.singletonList(id));
+    }
+
+    public static MovementChanged deleted(Collection<Long> ids) {
+        return new MovementChanged(Kind.DELETED, ids);
+    }
+
+    // Movimenti modificati in numero imprecisato: chi li mostra li rilegge tutti
+    public static MovementChanged all() {
+        return new MovementChanged(Kind.UPDATED, List.of());
+    }
+}
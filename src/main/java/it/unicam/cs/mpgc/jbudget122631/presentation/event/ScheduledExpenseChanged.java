@@ -0,0 +1,29 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class ScheduledExpenseChanged extends ChangeEvent {
+
+    public ScheduledExpenseChanged(Kind kind, Collection<Long> ids) {
+        super(kind, ids);
+    }
+
+    public static ScheduledExpenseChanged created(Long id) {
+        return new ScheduledExpenseChanged(Kind.CREATED, Collections.singletonList(id));
+    }
+
+    public static ScheduledExpenseChanged updated(Long id) {
+        return new ScheduledExpenseChanged(Kind.UPDATED, Collections.singletonList(id));
+    }
+
+    public static ScheduledExpenseChanged deleted(Collection<Long> ids) {
+        return new ScheduledExpenseChanged(Kind.DELETED, ids);
+    }
+
+    // Spese programmate modificati in numero imprecisato: chi li mostra li rilegge tutti
+    public static ScheduledExpenseChanged all() {
+        return new ScheduledExpenseChanged(Kind.UPDATED, List.of());
+    }
+}
@@ -0,0 +1,321 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.table;
+
+import it.unicam.cs.mpgc.jbudget122631.application.dto.MovementDTO;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.MovementQuery;
+import it.unicam.cs.mpgc.jbudget122631.domain.model.SearchTerms;
+import it.unicam.cs.mpgc.jbudget122631.infrastructure.search.MovementSearchIndex;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// Filtri dell'elenco movimenti valutati in memoria, con gli stessi criteri e ordinamenti di
+// MovementRepository.findSummaryPage: il testo segue le regole dell'indice di ricerca (ogni termine
+// prefisso di una parola di descrizione o note, senza accenti). Gli indici ordinati per data e importo
+// restringono i candidati con una ricerca binaria; una query piu' restrittiva della precedente ne filtra
+// solo i risultati. Le modifiche di singoli movimenti aggiornano righe e indici senza ricostruirli.
+public class MovementFilterEngine {
+
+    // Posizioni delle righe ordinate per un campo (a parita', per ID), aggiornabili una riga alla volta
+    private final class SortedIndex {
+        private final Comparator<MovementDTO> comparator;
+        private int[] positions;
+        private int size;
+
+        SortedIndex(Comparator<MovementDTO> comparator) {
+            this.comparator = comparator;
+            Integer[] sorted = new Integer[slotCount];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, (a, b) -> comparator.compare(rows[a], rows[b]));
+            this.positions = Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+            this.size = positions.length;
+        }
+
+        int get(int k) {
+            return positions[k];
+        }
+
+        // Prima posizione dell'indice dopo le righe che precedono quella indicata
+        private int lowerBound(MovementDTO row) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(rows[positions[mid]], row) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        void insert(int slot) {
+            int at = lowerBound(rows[slot]);
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(16, size * 2));
+            }
+            System.arraycopy(positions, at, positions, at + 1, size - at);
+            positions[at] = slot;
+            size++;
+        }
+
+        // Da chiamare prima di modificare la riga: la posizione si trova con il suo valore attuale
+        void remove(int slot) {
+            int at = lowerBound(rows[slot]);
+            System.arraycopy(positions, at + 1, positions, at, size - at - 1);
+            size--;
+        }
+    }
+
+    // Righe per posizione; le posizioni dei movimenti eliminati restano vuote (null)
+    private MovementDTO[] rows;
+    // Parole ordinate di descrizione e note di ciascuna riga
+    private String[][] searchTokens;
+    private int slotCount;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private final SortedIndex byDate;
+    private final SortedIndex byAmount;
+    private final SortedIndex byDescription;
+    private final SortedIndex byType;
+
+    private MovementQuery lastQuery;
+    private BitSet lastMatches;
+    private long lastFilterNanos;
+
+    public MovementFilterEngine(Collection<MovementDTO> movements) {
+        this.rows = movements.toArray(new MovementDTO[0]);
+        this.slotCount = rows.length;
+
+        this.searchTokens = new String[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            searchTokens[i] = tokensOf(rows[i]);
+            slotById.put(rows[i].getId(), i);
+        }
+
+        Comparator<MovementDTO> byId = Comparator.comparing(MovementDTO::getId);
+        this.byDate = new SortedIndex(Comparator.comparing(MovementDTO::getDate).thenComparing(byId));
+        this.byAmount = new SortedIndex(Comparator.comparing(MovementDTO::getAmount).thenComparing(byId));
+        this.byDescription = new SortedIndex(Comparator.comparing(MovementDTO::getDescription).thenComparing(byId));
+        this.byType = new SortedIndex(Comparator.comparing((MovementDTO movement) -> movement.getType().name()).thenComparing(byId));
+    }
+
+    private static String[] tokensOf(MovementDTO row) {
+        return SearchTerms.sortedTokens(row.getDescription(), row.getNotes());
+    }
+
+    // Movimento creato o modificato: la riga esce dagli indici con i valori vecchi e rientra con i nuovi
+    public synchronized void upsert(MovementDTO movement) {
+        Integer slot = slotById.get(movement.getId());
+        if (slot != null) {
+            removeFromIndexes(slot);
+        } else {
+            slot = nextSlot();
+            slotById.put(movement.getId(), slot);
+        }
+        rows[slot] = movement;
+        searchTokens[slot] = tokensOf(movement);
+        byDate.insert(slot);
+        byAmount.insert(slot);
+        byDescription.insert(slot);
+        byType.insert(slot);
+        lastQuery = null;
+    }
+
+    public synchronized void remove(Collection<Long> ids) {
+        for (Long id : ids) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                removeFromIndexes(slot);
+                rows[slot] = null;
+                searchTokens[slot] = null;
+            }
+        }
+        lastQuery = null;
+    }
+
+    private void removeFromIndexes(int slot) {
+        byDate.remove(slot);
+        byAmount.remove(slot);
+        byDescription.remove(slot);
+        byType.remove(slot);
+    }
+
+    private int nextSlot() {
+        if (slotCount == rows.length) {
+            int capacity = Math.max(16, rows.length + rows.length / 2);
+            rows = Arrays.copyOf(rows, capacity);
+            searchTokens = Arrays.copyOf(searchTokens, capacity);
+        }
+        return slotCount++;
+    }
+
+    // Sincronizzato: chiamato dai thread in background del caricamento a pagine
+    public synchronized List<MovementDTO> filter(MovementQuery query) {
+        long start = System.nanoTime();
+
+        IntPredicate predicate = predicateFor(query);
+        BitSet matches;
+
+        if (lastQuery != null && query.refines(lastQuery)) {
+            // Raffinamento: si ricontrollano solo le righe che soddisfacevano la query precedente
+            matches = (BitSet) lastMatches.clone();
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (!predicate.test(i)) {
+                    matches.clear(i);
+                }
+            }
+        } else {
+            matches = new BitSet(slotCount);
+            // Senza filtri su data o importo si scorre tutto l'indice per data, che contiene solo righe presenti
+            SortedIndex candidates = candidates(query);
+            int[] range = candidateRange(query, candidates);
+            for (int k = range[0]; k < range[1]; k++) {
+                int i = candidates.get(k);
+                if (predicate.test(i)) {
+                    matches.set(i);
+                }
+            }
+        }
+
+        lastQuery = query;
+        lastMatches = matches;
+
+        List<MovementDTO> result = ordered(matches, query);
+        lastFilterNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Indice piu' selettivo tra data e importo
+    private SortedIndex candidates(MovementQuery query) {
+        boolean hasDateRange = query.getStartDate() != null || query.getEndDate() != null;
+        boolean hasAmountRange = query.getMinAmount() != null || query.getMaxAmount() != null;
+
+        if (hasDateRange && hasAmountRange) {
+            int[] dateRange = dateRange(query);
+            int[] amountRange = amountRange(query);
+            return dateRange[1] - dateRange[0] <= amountRange[1] - amountRange[0] ? byDate : byAmount;
+        }
+        return hasAmountRange ? byAmount : byDate;
+    }
+
+    private int[] candidateRange(MovementQuery query, SortedIndex candidates) {
+        return candidates == byAmount ? amountRange(query) : dateRange(query);
+    }
+
+    private int[] dateRange(MovementQuery query) {
+        LocalDate startDate = query.getStartDate();
+        LocalDate endDate = query.getEndDate();
+        int from = startDate != null ? firstIndex(byDate, i -> !rows[i].getDate().isBefore(startDate)) : 0;
+        int to = endDate != null ? firstIndex(byDate, i -> rows[i].getDate().isAfter(endDate)) : byDate.size;
+        return new int[]{from, Math.max(from, to)};
+    }
+
+    private int[] amountRange(MovementQuery query) {
+        BigDecimal minAmount = query.getMinAmount();
+        BigDecimal maxAmount = query.getMaxAmount();
+        int from = minAmount != null ? firstIndex(byAmount, i -> rows[i].getAmount().compareTo(minAmount) >= 0) : 0;
+        int to = maxAmount != null ? firstIndex(byAmount, i -> rows[i].getAmount().compareTo(maxAmount) > 0) : byAmount.size;
+        return new int[]{from, Math.max(from, to)};
+    }
+
+    // Prima posizione dell'indice che soddisfa una condizione monotona lungo l'ordinamento
+    private int firstIndex(SortedIndex index, IntPredicate condition) {
+        int lo = 0;
+        int hi = index.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (condition.test(index.get(mid))) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // Un predicato per ogni filtro attivo, composti in AND e valutati sulla posizione della riga
+    private IntPredicate predicateFor(MovementQuery query) {
+        List<IntPredicate> predicates = new ArrayList<>();
+
+        if (query.getType() != null) {
+            predicates.add(i -> rows[i].getType() == query.getType());
+        }
+        if (query.getStartDate() != null) {
+            predicates.add(i -> !rows[i].getDate().isBefore(query.getStartDate()));
+        }
+        if (query.getEndDate() != null) {
+            predicates.add(i -> !rows[i].getDate().isAfter(query.getEndDate()));
+        }
+        if (query.getMinAmount() != null) {
+            predicates.add(i -> rows[i].getAmount().compareTo(query.getMinAmount()) >= 0);
+        }
+        if (query.getMaxAmount() != null) {
+            predicates.add(i -> rows[i].getAmount().compareTo(query.getMaxAmount()) <= 0);
+        }
+        if (query.getCategoryId() != null) {
+            predicates.add(i -> rows[i].getCategoryIds() != null
+                    && rows[i].getCategoryIds().contains(query.getCategoryId()));
+        }
+        if (query.hasText()) {
+            List<String> terms = MovementSearchIndex.tokenize(query.getText());
+            // Come l'indice: testo senza parole non trova nulla, piu' termini vanno trovati tutti
+            predicates.add(i -> !terms.isEmpty()
+                    && terms.stream().allMatch(term -> SearchTerms.hasWordWithPrefix(searchTokens[i], term)));
+        }
+
+        return predicates.stream().reduce(IntPredicate::and).orElse(i -> true);
+    }
+
+    private List<MovementDTO> ordered(BitSet matches, MovementQuery query) {
+        SortedIndex index = indexFor(query.getSortField());
+        List<MovementDTO> result = new ArrayList<>(matches.cardinality());
+
+        if (query.isAscending()) {
+            for (int k = 0; k < index.size; k++) {
+                if (matches.get(index.get(k))) {
+                    result.add(rows[index.get(k)]);
+                }
+            }
+        } else {
+            for (int k = index.size - 1; k >= 0; k--) {
+                if (matches.get(index.get(k))) {
+                    result.add(rows[index.get(k)]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private SortedIndex indexFor(MovementQuery.SortField sortField) {
+        switch (sortField) {
+            case DESCRIPTION:
+                return byDescription;
+            case AMOUNT:
+                return byAmount;
+            case TYPE:
+                return byType;
+            default:
+                return byDate;
+        }
+    }
+
+    public synchronized int size() {
+        return slotById.size();
+    }
+
+    public synchronized long getLastFilterNanos() {
+        return lastFilterNanos;
+    }
+}
@@ -0,0 +1,251 @@
+package it.unicam.cs.mpgc.jbudget122631.presentation.table;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+// Lista virtuale per le TableView: conosce solo il numero di righe e tiene in memoria poche pagine.
+// Una riga non ancora caricata vale null; la sua pagina (e le vicine) viene letta in background e
+// all'arrivo le righe vengono sostituite, cosi' la tabella si aggiorna. Va usata dal thread JavaFX.
+public class PagedObservableList<T> extends ObservableListBase<T> {
+
+    public interface PageSource<T> {
+        long count();
+        List<T> fetch(int offset, int size);
+    }
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_MAX_CACHED_PAGES = 10;
+
+    private final Executor executor;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> pendingPages = new HashSet<>();
+
+    private PageSource<T> source;
+    private int size;
+    // Incrementata a ogni cambio di sorgente: i risultati delle letture precedenti vengono scartati
+    private long generation;
+
+    public PagedObservableList(Executor executor) {
+        this(executor, DEFAULT_PAGE_SIZE, DEFAULT_MAX_CACHED_PAGES);
+    }
+
+    public PagedObservableList(Executor executor, int pageSize, int maxCachedPages) {
+        if (pageSize <= 0 || maxCachedPages < 3) {
+            throw new IllegalArgumentException("Dimensione pagina o numero di pagine in memoria non valido");
+        }
+        this.executor = executor;
+        this.pageSize = pageSize;
+        // Ordine di accesso: vengono scartate le pagine lette meno di recente, lontane dalla parte visibile
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    // Nuova sorgente (filtri o ordinamento cambiati): conteggio e prima pagina in un'unica lettura
+    public void setSource(PageSource<T> source) {
+        this.source = source;
+        long loadGeneration = ++generation;
+        pages.clear();
+        pendingPages.clear();
+
+        if (source == null) {
+            resize(0);
+            return;
+        }
+
+        pendingPages.add(0);
+        executor.execute(() -> {
+            try {
+                long count = source.count();
+                List<T> firstPage = count > 0 ? source.fetch(0, pageSize) : List.of();
+                Platform.runLater(() -> {
+                    if (loadGeneration != generation) {
+                        return;
+                    }
+                    pendingPages.remove(0);
+                    pages.put(0, firstPage);
+                    resize((int) Math.min(count, Integer.MAX_VALUE));
+                });
+            } catch (Exception e) {
+                System.err.println("PAGING - Errore conteggio righe: " + e.getMessage());
+                Platform.runLater(() -> {
+                    if (loadGeneration == generation) {
+                        pendingPages.remove(0);
+                        resize(0);
+                    }
+                });
+            }
+        });
+    }
+
+    // Rilegge le righe dalla sorgente corrente, ad esempio dopo una modifica
+    public void reload() {
+        setSource(source);
+    }
+
+    // Stessa vista con dati modificati: rilegge il conteggio e le sole pagine in memoria senza svuotare
+    // la lista, cosi' la tabella mantiene posizione e selezione e ridisegna solo le righe caricate
+    public void refresh(PageSource<T> newSource) {
+        if (source == null || newSource == null || size == 0) {
+            setSource(newSource);
+            return;
+        }
+
+        this.source = newSource;
+        long loadGeneration = ++generation;
+        pendingPages.clear();
+        List<Integer> cachedPages = new ArrayList<>(pages.keySet());
+
+        executor.execute(() -> {
+            try {
+                long count = newSource.count();
+                Map<Integer, List<T>> reloaded = new HashMap<>();
+                for (int page : cachedPages) {
+                    if (page * (long) pageSize < count) {
+                        reloaded.put(page, newSource.fetch(page * pageSize, pageSize));
+                    }
+                }
+                Platform.runLater(() -> pagesRefreshed(loadGeneration, cachedPages, reloaded,
+                        (int) Math.min(count, Integer.MAX_VALUE)));
+            } catch (Exception e) {
+                System.err.println("PAGING - Errore aggiornamento righe: " + e.getMessage());
+                Platform.runLater(() -> {
+                    if (loadGeneration == generation) {
+                        setSource(newSource);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pagesRefreshed(long loadGeneration, List<Integer> cachedPages, Map<Integer, List<T>> reloaded, int newSize) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        // Le pagine lette dopo il cambio di sorgente sono gia' aggiornate, le altre vengono sostituite
+        for (int page : cachedPages) {
+            if (!reloaded.containsKey(page)) {
+                pages.remove(page);
+            }
+        }
+        pages.putAll(reloaded);
+
+        int oldSize = size;
+        size = newSize;
+        int common = Math.min(oldSize, newSize);
+
+        beginChange();
+        List<Integer> refreshedPages = new ArrayList<>(reloaded.keySet());
+        Collections.sort(refreshedPages);
+        for (int page : refreshedPages) {
+            for (int i = page * pageSize; i < Math.min((page + 1) * pageSize, common); i++) {
+                nextUpdate(i);
+            }
+        }
+        if (newSize > oldSize) {
+            nextAdd(oldSize, newSize);
+        } else if (newSize < oldSize) {
+            nextRemove(newSize, Collections.nCopies(oldSize - newSize, null));
+        }
+        endChange();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Indice " + index + " fuori dall'intervallo [0, " + size + ")");
+        }
+
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+
+        // Prefetch delle pagine adiacenti per lo scorrimento in entrambe le direzioni
+        requestPage(page);
+        requestPage(page - 1);
+        requestPage(page + 1);
+
+        int offset = index - page * pageSize;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isLoaded(int index) {
+        List<T> rows = pages.get(index / pageSize);
+        return rows != null && index % pageSize < rows.size();
+    }
+
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * (long) pageSize >= size || pages.containsKey(page) || !pendingPages.add(page)) {
+            return;
+        }
+
+        PageSource<T> pageSource = source;
+        long loadGeneration = generation;
+        executor.execute(() -> {
+            try {
+                List<T> rows = pageSource.fetch(page * pageSize, pageSize);
+                Platform.runLater(() -> pageLoaded(loadGeneration, page, rows));
+            } catch (Exception e) {
+                System.err.println("PAGING - Errore caricamento pagina " + page + ": " + e.getMessage());
+                Platform.runLater(() -> {
+                    if (loadGeneration == generation) {
+                        pendingPages.remove(page);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(long loadGeneration, int page, List<T> rows) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        pendingPages.remove(page);
+        pages.put(page, rows);
+
+        int from = page * pageSize;
+        int to = Math.min(from + pageSize, size);
+        if (from < to) {
+            // Le righe erano segnaposto vuoti: la sostituzione fa ridisegnare le celle della pagina
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        size = newSize;
+
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+}
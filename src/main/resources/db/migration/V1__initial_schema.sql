@@ -0,0 +1,100 @@
+-- Schema iniziale: corrisponde a quanto generato in precedenza da hbm2ddl
+
+create table amortization_plans (
+    id bigint generated by default as identity,
+    active boolean not null,
+    interestRate numeric(5, 4) not null,
+    name varchar(255) not null,
+    numberOfInstallments integer not null,
+    startDate date not null,
+    totalAmount numeric(19, 2) not null,
+    primary key (id)
+);
+
+create table categories (
+    id bigint generated by default as identity,
+    active boolean not null,
+    description varchar(255),
+    name varchar(255) not null,
+    parent_id bigint,
+    primary key (id)
+);
+
+create table periods (
+    id bigint generated by default as identity,
+    endDate date not null,
+    name varchar(255) not null,
+    startDate date not null,
+    primary key (id)
+);
+
+create table budgets (
+    id bigint generated by default as identity,
+    active boolean not null,
+    actualExpenses numeric(19, 2) not null,
+    actualIncome numeric(19, 2) not null,
+    createdAt timestamp not null,
+    notes varchar(255),
+    plannedExpenses numeric(19, 2) not null,
+    plannedIncome numeric(19, 2) not null,
+    updatedAt timestamp,
+    category_id bigint,
+    period_id bigint not null,
+    primary key (id)
+);
+
+create table movements (
+    id bigint not null,
+    amount numeric(19, 2) not null,
+    createdAt timestamp not null,
+    date date not null,
+    description varchar(255) not null,
+    notes varchar(255),
+    is_scheduled boolean,
+    type varchar(255) not null,
+    updatedAt timestamp,
+    amortization_plan_id bigint,
+    primary key (id)
+);
+
+create table movement_categories (
+    movement_id bigint not null,
+    category_id bigint not null,
+    primary key (movement_id, category_id)
+);
+
+create table scheduled_expenses (
+    id bigint generated by default as identity,
+    active boolean not null,
+    amount numeric(19, 2) not null,
+    completed boolean not null,
+    createdAt timestamp not null,
+    description varchar(255) not null,
+    dueDate date not null,
+    notes varchar(255),
+    recurrenceEndDate date,
+    recurrenceInterval integer,
+    recurrenceType varchar(255) not null,
+    type varchar(255) not null,
+    updatedAt timestamp,
+    created_movement_id bigint,
+    primary key (id)
+);
+
+create table scheduled_expense_categories (
+    scheduled_expense_id bigint not null,
+    category_id bigint not null,
+    primary key (scheduled_expense_id, category_id)
+);
+
+alter table budgets add constraint uk_budgets_period_category unique (period_id, category_id);
+
+alter table categories add constraint fk_categories_parent foreign key (parent_id) references categories;
+alter table budgets add constraint fk_budgets_category foreign key (category_id) references categories;
+alter table budgets add constraint fk_budgets_period foreign key (period_id) references periods;
+alter table movements add constraint fk_movements_amortization_plan foreign key (amortization_plan_id) references amortization_plans;
+alter table movement_categories add constraint fk_movement_categories_movement foreign key (movement_id) references movements;
+alter table movement_categories add constraint fk_movement_categories_category foreign key (category_id) references categories;
+alter table scheduled_expenses add constraint fk_scheduled_expenses_movement foreign key (created_movement_id) references movements;
+alter table scheduled_expense_categories add constraint fk_scheduled_expense_categories_expense foreign key (scheduled_expense_id) references scheduled_expenses;
+alter table scheduled_expense_categories add constraint fk_scheduled_expense_categories_category foreign key (category_id) references categories;
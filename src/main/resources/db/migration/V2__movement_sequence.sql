@@ -0,0 +1,2 @@
+-- Sequenza per gli ID dei movimenti (allocazione a blocchi da 50, necessaria al batching degli insert)
+create sequence if not exists movements_seq start with 1 increment by 50;
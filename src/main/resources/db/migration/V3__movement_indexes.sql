@@ -0,0 +1,16 @@
+-- Indici sulle colonne usate dalle query dei repository
+
+-- Filtri per intervallo di date e tipo (totali, statistiche, trend mensili)
+create index if not exists idx_movements_date_type on movements (date, type);
+
+-- Paginazione per cursore ordinata su (date, id)
+create index if not exists idx_movements_date_id on movements (date, id);
+
+-- Movimenti generati da un piano di ammortamento
+create index if not exists idx_movements_amortization_plan on movements (amortization_plan_id);
+
+-- Movimenti di una categoria: la chiave primaria (movement_id, category_id) non aiuta in questa direzione
+create index if not exists idx_movement_categories_category on movement_categories (category_id, movement_id);
+
+-- Spese programmate in scadenza
+create index if not exists idx_scheduled_expenses_due_date on scheduled_expenses (dueDate);
@@ -0,0 +1,23 @@
+-- Totali mensili precalcolati per (anno-mese, tipo, categoria), aggiornati ad ogni scrittura dei movimenti.
+-- year_month vale anno * 100 + mese (es. 202503); category_id = 0 raccoglie il totale di tutti
+-- i movimenti del tipo, contati una sola volta anche se associati a piu' categorie
+
+create table movement_monthly_totals (
+    year_month integer not null,
+    type varchar(255) not null,
+    category_id bigint not null,
+    total numeric(19, 2) not null,
+    movement_count bigint not null,
+    primary key (year_month, type, category_id)
+);
+
+insert into movement_monthly_totals (year_month, type, category_id, total, movement_count)
+select year(date) * 100 + month(date), type, 0, sum(amount), count(*)
+from movements
+group by year(date) * 100 + month(date), type;
+
+insert into movement_monthly_totals (year_month, type, category_id, total, movement_count)
+select year(m.date) * 100 + month(m.date), m.type, mc.category_id, sum(m.amount), count(*)
+from movements m
+join movement_categories mc on mc.movement_id = m.id
+group by year(m.date) * 100 + month(m.date), m.type, mc.category_id;
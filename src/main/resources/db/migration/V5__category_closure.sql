@@ -0,0 +1,23 @@
+-- Tabella di chiusura della gerarchia delle categorie: una riga per ogni coppia (antenato, discendente)
+-- con la distanza tra i due livelli. La riga riflessiva (depth = 0) non viene memorizzata: ogni
+-- categoria e' implicitamente nel proprio sottoalbero, cosi' le categorie radice non richiedono righe
+
+create table category_closure (
+    ancestor_id bigint not null,
+    descendant_id bigint not null,
+    depth integer not null,
+    primary key (ancestor_id, descendant_id)
+);
+
+create index idx_category_closure_descendant on category_closure (descendant_id, ancestor_id);
+
+insert into category_closure (ancestor_id, descendant_id, depth)
+with recursive tree(ancestor_id, descendant_id, depth) as (
+    select parent_id, id, 1 from categories where parent_id is not null
+    union all
+    select c.parent_id, t.descendant_id, t.depth + 1
+    from tree t
+    join categories c on c.id = t.ancestor_id
+    where c.parent_id is not null
+)
+select ancestor_id, descendant_id, depth from tree;
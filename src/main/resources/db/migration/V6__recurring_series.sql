@@ -0,0 +1,30 @@
+-- Serie delle spese ricorrenti: tutte le occorrenze generate da una stessa spesa condividono seriesId
+alter table scheduled_expenses add column seriesId bigint;
+
+-- Le occorrenze gia' presenti vengono raggruppate per descrizione, importo, tipo e ricorrenza
+update scheduled_expenses s set seriesId = (
+    select min(o.id) from scheduled_expenses o
+    where o.description = s.description
+      and o.amount = s.amount
+      and o.type = s.type
+      and o.recurrenceType = s.recurrenceType
+      and coalesce(o.recurrenceInterval, 1) = coalesce(s.recurrenceInterval, 1)
+);
+
+-- Occorrenze gia' presenti nella stessa serie e con la stessa data: dalla seconda in poi aprono una serie propria
+update scheduled_expenses s set seriesId = id
+where exists (
+    select 1 from scheduled_expenses o
+    where o.seriesId = s.seriesId and o.dueDate = s.dueDate and o.id < s.id
+);
+
+-- Ultima occorrenza di ogni serie; al massimo un'occorrenza per data, anche con piu' processi sullo stesso database
+create unique index if not exists ux_scheduled_expenses_series_due on scheduled_expenses (seriesId, dueDate);
+
+-- Avanzamento dei processi in background (es. generazione delle occorrenze ricorrenti)
+create table job_watermarks (
+    job varchar(100) not null,
+    processed_through date not null,
+    updated_at timestamp not null,
+    primary key (job)
+);
@@ -0,0 +1,7 @@
+-- Ordinamenti dell'elenco movimenti paginato: ogni pagina legge solo le righe che mostra
+
+-- Ordinamento per importo
+create index if not exists idx_movements_amount_id on movements (amount, id);
+
+-- Ordinamento per descrizione
+create index if not exists idx_movements_description_id on movements (description, id);
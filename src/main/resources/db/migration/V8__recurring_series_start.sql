@@ -0,0 +1,9 @@
+-- Prima scadenza della serie, ancora delle date delle occorrenze generate
+alter table scheduled_expenses add column seriesStartDate date;
+
+-- Le occorrenze gia' generate riprendono la scadenza piu' vecchia della propria serie;
+-- la prima spesa della serie resta senza valore e usa la propria scadenza
+update scheduled_expenses s set seriesStartDate = (
+    select min(o.dueDate) from scheduled_expenses o where o.seriesId = s.seriesId
+)
+where s.seriesId is not null and s.seriesId <> s.id;